@@ -3,6 +3,7 @@ package io.mykit.data.business.checker.impl.mapping;
 
 import io.mykit.data.business.checker.MappingConfigChecker;
 import io.mykit.data.business.checker.MappingLogConfigChecker;
+import io.mykit.data.common.utils.DateFormatUtils;
 import io.mykit.data.common.utils.StringUtils;
 import io.mykit.data.connector.config.ConnectorConfig;
 import io.mykit.data.manage.Manager;
@@ -17,6 +18,7 @@ import org.springframework.context.ApplicationContextAware;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import java.time.format.DateTimeParseException;
 import java.util.Map;
 
 /**
@@ -48,6 +50,48 @@ public class LogConfigChecker implements MappingConfigChecker, ApplicationContex
         ListenerConfig listener = mapping.getListener();
         Assert.notNull(listener, "ListenerConfig can not be null.");
 
+        // 断点落盘间隔(秒)和变更条数
+        String checkpointInterval = params.get("incrementStrategyLogCheckpointInterval");
+        String checkpointRows = params.get("incrementStrategyLogCheckpointRows");
+        if (StringUtils.isNotBlank(checkpointInterval)) {
+            listener.setCheckpointInterval(Integer.parseInt(checkpointInterval));
+        }
+        if (StringUtils.isNotBlank(checkpointRows)) {
+            listener.setCheckpointRows(Integer.parseInt(checkpointRows));
+        }
+
+        // 没有断点时的起始时间
+        String startTime = params.get("incrementStrategyLogStartTime");
+        if (null != startTime) {
+            startTime = startTime.trim();
+            if (StringUtils.isNotBlank(startTime)) {
+                try {
+                    DateFormatUtils.stringToTimestamp(startTime);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("起始时间格式有误, 例如: 2020-01-01 02:00:00");
+                }
+            }
+            listener.setStartTime(startTime);
+        }
+
+        // 本地binlog目录
+        String binlogPath = params.get("incrementStrategyLogBinlogPath");
+        if (null != binlogPath) {
+            listener.setBinlogPath(binlogPath.trim());
+        }
+
+        // MySQL复制连接传输方式
+        String nioTransport = params.get("incrementStrategyLogNioTransport");
+        if (null != nioTransport) {
+            listener.setNioTransport(Boolean.parseBoolean(nioTransport));
+        }
+
+        // Oracle读取方式
+        String logMiner = params.get("incrementStrategyLogMiner");
+        if (null != logMiner) {
+            listener.setLogMiner(Boolean.parseBoolean(logMiner));
+        }
+
         listener.setListenerType(ListenerTypeEnum.LOG.getType());
     }
 
@@ -0,0 +1,53 @@
+package io.mykit.data.business.checker.impl.mapping;
+
+
+import io.mykit.data.business.checker.MappingConfigChecker;
+import io.mykit.data.common.utils.StringUtils;
+import io.mykit.data.monitor.config.ListenerConfig;
+import io.mykit.data.monitor.enums.ListenerTypeEnum;
+import io.mykit.data.parser.model.Mapping;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+
+/**
+ * 快照对比配置
+ */
+@Component
+public class SnapshotConfigChecker implements MappingConfigChecker {
+
+    @Override
+    public void modify(Mapping mapping, Map<String, String> params) {
+        String cron = params.get("incrementStrategySnapshotCronExpression");
+        String chunkSize = params.get("incrementStrategySnapshotChunkSize");
+        String pollThreads = params.get("incrementStrategySnapshotPollThreads");
+        String checkpointInterval = params.get("incrementStrategySnapshotCheckpointInterval");
+        String checkpointRows = params.get("incrementStrategySnapshotCheckpointRows");
+
+        ListenerConfig config = mapping.getListener();
+        Assert.notNull(config, "ListenerConfig can not be null.");
+
+        if (StringUtils.isNotBlank(cron)) {
+            config.setCronExpression(cron);
+        }
+        if (StringUtils.isNotBlank(chunkSize)) {
+            config.setSnapshotChunkSize(Integer.parseInt(chunkSize));
+        }
+        if (StringUtils.isNotBlank(pollThreads)) {
+            config.setPollThreads(Integer.parseInt(pollThreads));
+        }
+
+        // 断点落盘间隔(秒)和写入批次
+        if (StringUtils.isNotBlank(checkpointInterval)) {
+            config.setCheckpointInterval(Integer.parseInt(checkpointInterval));
+        }
+        if (StringUtils.isNotBlank(checkpointRows)) {
+            config.setCheckpointRows(Integer.parseInt(checkpointRows));
+        }
+
+        config.setListenerType(ListenerTypeEnum.SNAPSHOT.getType());
+        mapping.setListener(config);
+    }
+
+}
@@ -24,6 +24,12 @@ public class TimingConfigChecker implements MappingConfigChecker {
         String insert = params.get("incrementStrategyTimingInsert");
         String update = params.get("incrementStrategyTimingUpdate");
         String delete = params.get("incrementStrategyTimingDelete");
+        String pollThreads = params.get("incrementStrategyTimingPollThreads");
+        String minInterval = params.get("incrementStrategyTimingMinInterval");
+        String maxInterval = params.get("incrementStrategyTimingMaxInterval");
+        String dedupeSize = params.get("incrementStrategyTimingDedupeSize");
+        String checkpointInterval = params.get("incrementStrategyTimingCheckpointInterval");
+        String checkpointRows = params.get("incrementStrategyTimingCheckpointRows");
 
         ListenerConfig config = mapping.getListener();
         Assert.notNull(config, "ListenerConfig can not be null.");
@@ -43,6 +49,26 @@ public class TimingConfigChecker implements MappingConfigChecker {
         if (StringUtils.isNotBlank(delete)) {
             config.setDelete(delete);
         }
+        if (StringUtils.isNotBlank(pollThreads)) {
+            config.setPollThreads(Integer.parseInt(pollThreads));
+        }
+        if (StringUtils.isNotBlank(minInterval)) {
+            config.setMinInterval(Integer.parseInt(minInterval));
+        }
+        if (StringUtils.isNotBlank(maxInterval)) {
+            config.setMaxInterval(Integer.parseInt(maxInterval));
+        }
+        if (StringUtils.isNotBlank(dedupeSize)) {
+            config.setDedupeSize(Integer.parseInt(dedupeSize));
+        }
+
+        // 断点落盘间隔(秒)和写入批次
+        if (StringUtils.isNotBlank(checkpointInterval)) {
+            config.setCheckpointInterval(Integer.parseInt(checkpointInterval));
+        }
+        if (StringUtils.isNotBlank(checkpointRows)) {
+            config.setCheckpointRows(Integer.parseInt(checkpointRows));
+        }
 
         config.setListenerType(ListenerTypeEnum.TIMING.getType());
         mapping.setListener(config);
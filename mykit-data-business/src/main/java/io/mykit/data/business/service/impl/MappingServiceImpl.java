@@ -133,6 +133,7 @@ public class MappingServiceImpl  extends BaseServiceImpl implements MappingServi
             Meta meta = manager.getMeta(metaId);
             meta.getFail().set(0);
             meta.getSuccess().set(0);
+            meta.getSkip().set(0);
             manager.editMeta(meta);
 
             // 启动
@@ -25,6 +25,15 @@ import java.util.Map;
  */
 public interface Event {
 
+    /**
+     * 日志中未记录的字段(binlog_row_image=MINIMAL/NOBLOB), 与NULL值区分
+     */
+    Object MISSING = new Object() {
+        @Override
+        public String toString() {
+            return "<missing>";
+        }
+    };
 
     /**
      * 日志数据变更事件
@@ -36,11 +45,28 @@ public interface Event {
      */
     void changedLogEvent(String tableName, String event, List<Object> before, List<Object> after);
 
+    /**
+     * 表结构变更事件, 之后的日志数据按新的字段顺序解析
+     *
+     * @param tableName 表名
+     * @param columns   变更后的字段, 按表中的顺序
+     */
+    void changedSchemaEvent(String tableName, List<String> columns);
+
     /**
      * 定时数据变更事件
      */
     void changedQuartzEvent(int tableGroupIndex, String event, Map<String, Object> before, Map<String, Object> after);
 
+    /**
+     * 定时数据批量变更事件, 同一页数据按事件分组
+     *
+     * @param tableGroupIndex 映射关系索引
+     * @param event           事件
+     * @param data            变化后(删除事件为删除的数据)
+     */
+    void changedQuartzEvent(int tableGroupIndex, String event, List<Map<String, Object>> data);
+
     /**
      * 写入增量点事件
      */
@@ -38,6 +38,9 @@ public class Result implements Serializable {
     // 错误数
     private AtomicLong fail;
 
+    // 跳过数(没有变化, 未执行)
+    private AtomicLong skip;
+
     // 错误日志
     private StringBuffer error;
 
@@ -53,6 +56,7 @@ public class Result implements Serializable {
     private void init() {
         this.failData = new ConcurrentLinkedQueue<>();
         this.fail = new AtomicLong(0);
+        this.skip = new AtomicLong(0);
         this.error = new StringBuffer();
     }
 
@@ -68,6 +72,10 @@ public class Result implements Serializable {
         return fail;
     }
 
+    public AtomicLong getSkip() {
+        return skip;
+    }
+
     public StringBuffer getError() {
         return error;
     }
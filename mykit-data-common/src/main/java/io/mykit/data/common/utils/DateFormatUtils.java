@@ -47,4 +47,12 @@ public class DateFormatUtils {
         Instant instant = localDate.atStartOfDay().atZone(zoneId).toInstant();
         return Date.from(instant);
     }
+
+    /**
+     * @param s yyyy-MM-dd HH:mm:ss
+     * @return 毫秒
+     */
+    public static long stringToTimestamp(String s) {
+        return LocalDateTime.parse(s, dateTimeFormatter).atZone(zoneId).toInstant().toEpochMilli();
+    }
 }
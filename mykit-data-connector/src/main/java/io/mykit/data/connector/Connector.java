@@ -96,7 +96,19 @@ public interface Connector {
      * @param fields  字段信息
      * @param command 执行命令
      * @param event   事件
+     * @param before  变化前的数据, 更新时按其主键定位, 可为空
      * @param data    数据
      */
-    Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> data);
+    Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> before, Map<String, Object> data);
+
+    /**
+     * 批量写入目标源数据
+     *
+     * @param config  连接器配置
+     * @param fields  字段信息
+     * @param command 执行命令
+     * @param event   事件
+     * @param data    数据
+     */
+    Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, List<Map<String, Object>> data);
 }
@@ -53,6 +53,22 @@ public class ConnectorConstants {
      */
     public static final String OPERTION_QUERY_MAX = "QUERY_MAX";
 
+    /**
+     * 按游标分页查询, 由调用方将{@link #QUERY_CURSOR_CONDITION}替换为游标条件和排序, 每次只读取第一页
+     * <p>例如：SELECT * FROM (SELECT ID, LAST_TIME FROM MY_TEST) K WHERE $cursor$ LIMIT ?,?</p>
+     */
+    public static final String OPERTION_QUERY_CURSOR = "QUERY_CURSOR";
+
+    /**
+     * 游标分页的主键
+     */
+    public static final String OPERTION_QUERY_PK = "QUERY_PK";
+
+    /**
+     * 游标条件占位符
+     */
+    public static final String QUERY_CURSOR_CONDITION = "$cursor$";
+
     /**
      * 查询表达式and
      */
@@ -23,6 +23,8 @@ import io.mykit.data.connector.enums.ConnectorEnum;
 import io.mykit.data.connector.enums.OperationEnum;
 import io.mykit.data.connector.enums.SetterEnum;
 import io.mykit.data.connector.enums.SqlBuilderEnum;
+import io.mykit.data.connector.database.sqlbuilder.SqlBuilderQuery;
+import io.mykit.data.connector.database.sqlbuilder.SqlBuilderUpdate;
 import io.mykit.data.connector.exception.ConnectorException;
 import io.mykit.data.connector.utils.DatabaseUtils;
 import io.mykit.data.connector.utils.JDBCUtils;
@@ -136,6 +138,13 @@ public abstract class AbstractDatabaseConnector implements Database{
         String query = SqlBuilderEnum.QUERY.getName();
         map.put(query, buildSql(query, table, queryFilterSql));
 
+        // 按主键游标分页
+        String pk = getPrimaryKey(table);
+        if (StringUtils.isNotBlank(pk)) {
+            map.put(ConnectorConstants.OPERTION_QUERY_PK, pk);
+            map.put(ConnectorConstants.OPERTION_QUERY_CURSOR, buildCursorSql(table, pk, queryFilterSql));
+        }
+
         // 获取查询总数SQL
         StringBuilder queryCount = new StringBuilder();
         String quotation = buildSqlWithQuotation();
@@ -273,7 +282,7 @@ public abstract class AbstractDatabaseConnector implements Database{
     }
 
     @Override
-    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> data) {
+    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> before, Map<String, Object> data) {
         // 1、获取 SQL
         String sql = command.get(event);
         Assert.hasText(sql, "执行语句不能为空.");
@@ -281,11 +290,28 @@ public abstract class AbstractDatabaseConnector implements Database{
             logger.error("writer data can not be empty.");
             throw new ConnectorException("writer data can not be empty.");
         }
+        Result result = new Result();
+        // 条件中的主键值, 默认取自写入数据
+        Object pkValue = null;
 
         // Update / Delete
         if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event)) {
             // update attrs by id
             List<Field> pkList = fields.stream().filter(f -> f.isPk()).collect(Collectors.toList());
+            // 按变化前的主键定位, 主键变化时新值在更新字段中
+            final String pk = pkList.get(0).getName();
+            pkValue = null != before && before.containsKey(pk) ? before.get(pk) : data.get(pk);
+            final boolean pkChanged = !Objects.deepEquals(pkValue, data.get(pk));
+            // 只更新有值的字段(未变化或日志未记录的字段已移除)
+            if (fields.removeIf(f -> !data.containsKey(f.getName()))) {
+                // 除主键外没有变化的字段, 跳过
+                if (!pkChanged && fields.stream().allMatch(f -> f.isPk())) {
+                    result.getSkip().set(1);
+                    return result;
+                }
+                List<String> names = fields.stream().map(f -> f.getName()).collect(Collectors.toList());
+                sql = SqlBuilderUpdate.buildPartialSql(sql, names, buildSqlWithQuotation());
+            }
             fields.add(pkList.get(0));
         } else if (StringUtils.equals(ConnectorConstants.OPERTION_DELETE, event)) {
             // delete by id
@@ -295,23 +321,25 @@ public abstract class AbstractDatabaseConnector implements Database{
         }
 
         int size = fields.size();
+        final boolean update = StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event);
+        final Object where = pkValue;
 
         DatabaseConfig cfg = (DatabaseConfig) config;
         JdbcTemplate jdbcTemplate = null;
-        Result result = new Result();
         try {
             // 2、获取连接
             jdbcTemplate = getJdbcTemplate(cfg);
 
-            // 3、设置参数
-            int update = jdbcTemplate.update(sql, (ps) -> {
+            // 3、设置参数, 更新语句最后一个参数为条件中的主键
+            int rows = jdbcTemplate.update(sql, (ps) -> {
                 Field f = null;
                 for (int i = 0; i < size; i++) {
                     f = fields.get(i);
-                    SetterEnum.getSetter(f.getType()).set(ps, i + 1, f.getType(), data.get(f.getName()));
+                    Object value = update && i == size - 1 ? where : data.get(f.getName());
+                    SetterEnum.getSetter(f.getType()).set(ps, i + 1, f.getType(), value);
                 }
             });
-            if (0 == update) {
+            if (0 == rows) {
                 throw new ConnectorException(String.format("执行%s操作失败, 数据不存在", event));
             }
         } catch (Exception e) {
@@ -327,6 +355,73 @@ public abstract class AbstractDatabaseConnector implements Database{
         return result;
     }
 
+    @Override
+    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, List<Map<String, Object>> data) {
+        // 1、获取 SQL
+        String sql = command.get(event);
+        Assert.hasText(sql, "执行语句不能为空.");
+        if (CollectionUtils.isEmpty(data) || CollectionUtils.isEmpty(fields)) {
+            logger.error("writer data can not be empty.");
+            throw new ConnectorException("writer data can not be empty.");
+        }
+
+        // Update / Delete, 整行更新
+        if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event)) {
+            List<Field> pkList = fields.stream().filter(f -> f.isPk()).collect(Collectors.toList());
+            fields.add(pkList.get(0));
+        } else if (StringUtils.equals(ConnectorConstants.OPERTION_DELETE, event)) {
+            List<Field> pkList = fields.stream().filter(f -> f.isPk()).collect(Collectors.toList());
+            fields.clear();
+            fields.add(pkList.get(0));
+        }
+
+        final int size = data.size();
+        final int fSize = fields.size();
+        final String executeSql = sql;
+
+        DatabaseConfig cfg = (DatabaseConfig) config;
+        JdbcTemplate jdbcTemplate = null;
+        Result result = new Result();
+        try {
+            // 2、获取连接
+            jdbcTemplate = getJdbcTemplate(cfg);
+
+            // 3、设置参数
+            int[] updates = jdbcTemplate.batchUpdate(executeSql, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
+                    batchRowsSetter(preparedStatement, fields, fSize, data.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+
+            // 记录不存在的数据(驱动不返回行数时为SUCCESS_NO_INFO)
+            for (int i = 0; i < updates.length && i < size; i++) {
+                if (0 == updates[i]) {
+                    result.getFailData().add(data.get(i));
+                    result.getFail().incrementAndGet();
+                }
+            }
+            if (0 < result.getFail().get()) {
+                result.getError().append(String.format("执行%s操作失败, 数据不存在", event)).append("\r\n");
+            }
+        } catch (Exception e) {
+            // 记录错误数据
+            result.getFailData().addAll(data);
+            result.getFail().set(size);
+            result.getError().append(e.getMessage()).append("\r\n");
+            logger.error(e.getMessage());
+        } finally {
+            // 释放连接
+            this.close(jdbcTemplate);
+        }
+        return result;
+    }
+
     @Override
     public JdbcTemplate getJdbcTemplate(DatabaseConfig config) {
         return DatabaseUtils.getJdbcTemplate(config);
@@ -485,6 +580,38 @@ public abstract class AbstractDatabaseConnector implements Database{
         return sql.toString();
     }
 
+    private String getPrimaryKey(Table table) {
+        if (null == table || CollectionUtils.isEmpty(table.getColumn())) {
+            return null;
+        }
+        String pk = null;
+        for (Field c : table.getColumn()) {
+            if (c.isPk()) {
+                // 不支持联合主键
+                if (null != pk) {
+                    return null;
+                }
+                pk = c.getName();
+            }
+        }
+        return pk;
+    }
+
+    /**
+     * 获取游标分页查询SQL, 原查询作为子查询, 游标条件在外层
+     *
+     * @param table
+     * @param pk
+     * @param queryFilterSQL
+     * @return
+     */
+    private String buildCursorSql(Table table, String pk, String queryFilterSQL) {
+        List<String> filedNames = table.getColumn().stream().map(c -> c.getName()).filter(n -> StringUtils.isNotBlank(n)).distinct()
+                .collect(Collectors.toList());
+        String sql = SqlBuilderQuery.buildQuerySql(table.getName(), filedNames, queryFilterSQL, buildSqlWithQuotation());
+        return getPageSql(table.getName(), pk, "SELECT * FROM (" + sql + ") K WHERE " + ConnectorConstants.QUERY_CURSOR_CONDITION);
+    }
+
     /**
      * 获取查询SQL
      *
@@ -28,6 +28,11 @@ import java.sql.SQLException;
 public class CharSetter extends AbstractSetter {
     @Override
     protected void set(PreparedStatement ps, int i, Object val) throws SQLException {
+        // 二进制原始值直接绑定, 避免解码再编码
+        if (val instanceof byte[]) {
+            ps.setBytes(i, (byte[]) val);
+            return;
+        }
         ps.setString(i, String.valueOf(val));
     }
 }
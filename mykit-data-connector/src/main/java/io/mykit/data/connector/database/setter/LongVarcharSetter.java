@@ -28,6 +28,11 @@ import java.sql.SQLException;
 public class LongVarcharSetter extends AbstractSetter {
     @Override
     protected void set(PreparedStatement ps, int i, Object val) throws SQLException {
+        // 二进制原始值直接绑定, 避免解码再编码
+        if (val instanceof byte[]) {
+            ps.setBytes(i, (byte[]) val);
+            return;
+        }
         // 当数据库为mysql,字段类型为text,如果值里面包含非数字类型转换会失败,为兼容采用Types.VARCHAR方式替换
         ps.setString(i, String.valueOf(val));
     }
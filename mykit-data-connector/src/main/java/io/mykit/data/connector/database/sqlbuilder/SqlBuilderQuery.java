@@ -32,6 +32,24 @@ public class SqlBuilderQuery implements SqlBuilder {
 
     @Override
     public String buildSql(String tableName, String pk, List<String> filedNames, String queryFilter, String quotation, Database database) {
+        String sql = buildQuerySql(tableName, filedNames, queryFilter, quotation);
+        logger.debug("拼接的查询语句===>>> " + sql);
+        // 分页语句
+        String pageSql = database.getPageSql(tableName, pk, sql);
+        logger.debug("拼接的分页查询语句===>>> " + pageSql);
+        return pageSql;
+    }
+
+    /**
+     * 生成不分页的查询语句
+     *
+     * @param tableName
+     * @param filedNames
+     * @param queryFilter
+     * @param quotation
+     * @return
+     */
+    public static String buildQuerySql(String tableName, List<String> filedNames, String queryFilter, String quotation) {
         StringBuilder sql = new StringBuilder();
         int size = filedNames.size();
         int end = size - 1;
@@ -50,10 +68,6 @@ public class SqlBuilderQuery implements SqlBuilder {
         if (StringUtils.isNotBlank(queryFilter)) {
             sql.append(queryFilter);
         }
-        logger.debug("拼接的查询语句===>>> " + sql.toString());
-        // 分页语句
-        String pageSql = database.getPageSql(tableName, pk, sql.toString());
-        logger.debug("拼接的分页查询语句===>>> " + pageSql);
-        return pageSql;
+        return sql.toString();
     }
 }
@@ -38,9 +38,35 @@ public class SqlBuilderUpdate implements SqlBuilder{
             throw new ConnectorException("Table primary key can not be empty.");
         }
         StringBuilder sql = new StringBuilder();
+        sql.append("UPDATE ").append(quotation).append(tableName).append(quotation).append(" SET ");
+        appendFields(sql, filedNames, quotation);
+        // UPDATE "USER" SET "USERNAME"=?,"AGE"=? WHERE "ID"=?
+        sql.append(" WHERE ").append(quotation).append(pk).append(quotation).append("=?");
+        return sql.toString();
+    }
+
+    /**
+     * 只更新部分字段, 沿用已生成语句的表名和条件
+     *
+     * @param sql        完整的update语句
+     * @param filedNames 更新的字段
+     * @param quotation
+     * @return UPDATE "USER" SET "AGE"=? WHERE "ID"=?
+     */
+    public static String buildPartialSql(String sql, List<String> filedNames, String quotation) {
+        int set = sql.indexOf(" SET ");
+        int where = sql.lastIndexOf(" WHERE ");
+        if (set < 0 || where < set) {
+            throw new ConnectorException(String.format("Unsupported update sql: %s", sql));
+        }
+        StringBuilder partial = new StringBuilder(sql.substring(0, set + 5));
+        appendFields(partial, filedNames, quotation);
+        return partial.append(sql.substring(where)).toString();
+    }
+
+    private static void appendFields(StringBuilder sql, List<String> filedNames, String quotation) {
         int size = filedNames.size();
         int end = size - 1;
-        sql.append("UPDATE ").append(quotation).append(tableName).append(quotation).append(" SET ");
         for (int i = 0; i < size; i++) {
             // "USERNAME"=?
             sql.append(quotation).append(filedNames.get(i)).append(quotation).append("=?");
@@ -49,8 +75,5 @@ public class SqlBuilderUpdate implements SqlBuilder{
                 sql.append(",");
             }
         }
-        // UPDATE "USER" SET "USERNAME"=?,"AGE"=? WHERE "ID"=?
-        sql.append(" WHERE ").append(quotation).append(pk).append(quotation).append("=?");
-        return sql.toString();
     }
 }
@@ -44,7 +44,11 @@ public enum SetterEnum {
     TINYINT(Types.TINYINT, new TinyintSetter()),
     DOUBLE(Types.DOUBLE, new DoubleSetter()),
     FLOAT(Types.FLOAT, new FloatSetter()),
-    REAL(Types.REAL, new RealSetter());
+    REAL(Types.REAL, new RealSetter()),
+    BINARY(Types.BINARY, new BinarySetter()),
+    VARBINARY(Types.VARBINARY, new BinarySetter()),
+    LONGVARBINARY(Types.LONGVARBINARY, new BinarySetter()),
+    BLOB(Types.BLOB, new BinarySetter());
 
     private int type;
 
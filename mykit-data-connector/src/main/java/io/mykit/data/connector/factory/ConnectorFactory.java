@@ -100,13 +100,20 @@ public class ConnectorFactory {
         return result;
     }
 
-    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> data) {
+    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, List<Map<String, Object>> data) {
         Connector connector = getConnector(config.getConnectorType());
         Result result = connector.writer(config, fields, command, event, data);
         Assert.notNull(result, "Connector writer result can not null");
         return result;
     }
 
+    public Result writer(ConnectorConfig config, List<Field> fields, Map<String, String> command, String event, Map<String, Object> before, Map<String, Object> data) {
+        Connector connector = getConnector(config.getConnectorType());
+        Result result = connector.writer(config, fields, command, event, before, data);
+        Assert.notNull(result, "Connector writer result can not null");
+        return result;
+    }
+
     /**
      * 获取连接器
      */
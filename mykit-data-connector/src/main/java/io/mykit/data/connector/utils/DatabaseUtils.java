@@ -45,7 +45,57 @@ import java.util.Map;
  */
 public class DatabaseUtils {
 
+    // 绑定到当前线程的连接, 增量同步的写入通道在线程内复用同一个连接, 避免逐条创建和释放连接
+    private static final ThreadLocal<Map<String, JdbcTemplate>> BOUND = new ThreadLocal<>();
+
     public static JdbcTemplate getJdbcTemplate(DatabaseConfig config) {
+        Map<String, JdbcTemplate> bound = BOUND.get();
+        if (null == bound) {
+            return createJdbcTemplate(config);
+        }
+        return bound.computeIfAbsent(getKey(config), k -> {
+            JdbcTemplate jdbcTemplate = createJdbcTemplate(config);
+            BasicDataSource ds = (BasicDataSource) jdbcTemplate.getDataSource();
+            ds.setMaxActive(1);
+            ds.setMaxIdle(1);
+            // 长期持有的连接不能按超时回收
+            ds.setRemoveAbandoned(false);
+            return jdbcTemplate;
+        });
+    }
+
+    /**
+     * 当前线程开始独占连接, 之后获取的连接在调用{@link #unbind()}前不会释放
+     */
+    public static void bind() {
+        if (null == BOUND.get()) {
+            BOUND.set(new HashMap<>());
+        }
+    }
+
+    /**
+     * 释放当前线程独占的连接
+     */
+    public static void unbind() {
+        Map<String, JdbcTemplate> bound = BOUND.get();
+        BOUND.remove();
+        if (null != bound) {
+            for (JdbcTemplate jdbcTemplate : bound.values()) {
+                try {
+                    ((BasicDataSource) jdbcTemplate.getDataSource()).close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+            }
+            bound.clear();
+        }
+    }
+
+    private static String getKey(DatabaseConfig config) {
+        return new StringBuilder(config.getUrl()).append("|").append(config.getUsername()).toString();
+    }
+
+    private static JdbcTemplate createJdbcTemplate(DatabaseConfig config) {
         BasicDataSource dataSource = new BasicDataSource();
         dataSource.setDriverClassName(config.getDriverClassName());
         dataSource.setUrl(config.getUrl());
@@ -59,6 +109,10 @@ public class DatabaseUtils {
     }
 
     public static void close(JdbcTemplate jdbcTemplate) throws SQLException {
+        Map<String, JdbcTemplate> bound = BOUND.get();
+        if (null != bound && bound.containsValue(jdbcTemplate)) {
+            return;
+        }
         if (null != jdbcTemplate) {
             DataSource dataSource = jdbcTemplate.getDataSource();
             BasicDataSource ds = (BasicDataSource) dataSource;
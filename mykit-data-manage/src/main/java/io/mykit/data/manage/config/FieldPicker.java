@@ -15,6 +15,7 @@
  */
 package io.mykit.data.manage.config;
 
+import io.mykit.data.common.event.Event;
 import io.mykit.data.common.utils.CollectionUtils;
 import io.mykit.data.connector.CompareFilter;
 import io.mykit.data.connector.config.Field;
@@ -43,13 +44,17 @@ public class FieldPicker {
     private boolean filterSwitch;
     private List<Filter> add;
     private List<Filter> or;
+    private List<String> primaryKeys;
+    private Set<String> mapped = Collections.EMPTY_SET;
 
     public FieldPicker(TableGroup tableGroup) {
         this.tableGroup = tableGroup;
+        this.primaryKeys = findPrimaryKeys(tableGroup);
     }
 
     public FieldPicker(TableGroup tableGroup, List<Filter> filter, List<Field> column, List<FieldMapping> fieldMapping) {
         this.tableGroup = tableGroup;
+        this.primaryKeys = findPrimaryKeys(tableGroup);
         init(filter, column, fieldMapping);
     }
 
@@ -57,9 +62,10 @@ public class FieldPicker {
         if (!CollectionUtils.isEmpty(list)) {
             Map<String, Object> data = new HashMap<>(indexSize);
             final int size = list.size() - 1;
-            index.parallelStream().forEach(node -> {
-                if (node.i <= size) {
-                    data.put(node.name, list.get(node.i));
+            // 日志未记录的字段不放入结果, 与NULL值区分
+            index.forEach(node -> {
+                if (node.i <= size && Event.MISSING != list.get(node.i)) {
+                    data.put(node.name, getValue(list.get(node.i)));
                 }
             });
             return data;
@@ -67,10 +73,50 @@ public class FieldPicker {
         return Collections.EMPTY_MAP;
     }
 
+    /**
+     * 增量事件中的字符列为延迟解码的CharSequence, 仅对同步字段解码
+     * @param value
+     * @return
+     */
+    private Object getValue(Object value) {
+        return value instanceof CharSequence ? value.toString() : value;
+    }
+
+    /**
+     * 同步字段是否变化, 只比较有映射目标的字段
+     *
+     * @param before 变化前
+     * @param after  变化后
+     * @return 没有映射关系时返回true
+     */
+    public boolean isChanged(Map<String, Object> before, Map<String, Object> after) {
+        if (mapped.isEmpty()) {
+            return true;
+        }
+        for (String name : mapped) {
+            // 日志未记录的字段视为未变化
+            if (!after.containsKey(name)) {
+                continue;
+            }
+            if (!before.containsKey(name) || !Objects.deepEquals(before.get(name), after.get(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public TableGroup getTableGroup() {
         return tableGroup;
     }
 
+    /**
+     * 数据源表主键字段
+     * @return
+     */
+    public List<String> getPrimaryKeys() {
+        return primaryKeys;
+    }
+
     /**
      * 根据过滤条件过滤
      * @param data
@@ -127,6 +173,9 @@ public class FieldPicker {
 
         // 找到同步字段 => [{source.name}]
         Set<String> key = fieldMapping.stream().filter(m -> null != m.getSource()).map(m -> m.getSource().getName()).collect(Collectors.toSet());
+        // 写入目标源的字段 => [{source.name}]
+        mapped = fieldMapping.stream().filter(m -> null != m.getSource() && null != m.getTarget()).map(m -> m.getSource().getName()).collect(
+                Collectors.toSet());
 
         // 记录字段索引 [{"ID":0},{"NAME":1}]
         index = new LinkedList<>();
@@ -142,6 +191,14 @@ public class FieldPicker {
         this.indexSize = index.size();
     }
 
+    private List<String> findPrimaryKeys(TableGroup tableGroup) {
+        List<Field> column = null != tableGroup.getSourceTable() ? tableGroup.getSourceTable().getColumn() : null;
+        if (CollectionUtils.isEmpty(column)) {
+            return Collections.EMPTY_LIST;
+        }
+        return column.stream().filter(f -> f.isPk()).map(f -> f.getName()).collect(Collectors.toList());
+    }
+
     final class Node {
         // 属性
         String name;
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.manage.puller;
+
+import io.mykit.data.common.utils.JsonUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 增量断点
+ * <p>只记录已完整写入的事务位置, 异步追加到断点文件:
+ * <ol>
+ * <li>达到时间间隔或变更条数时复制当前断点, 等写入通道执行完此前提交的变更后再落盘</li>
+ * <li>每个断点追加一行, 记录数过多时压缩为最后一条</li>
+ * <li>重启时读取最后一条完整记录, 忽略写了一半的记录</li>
+ * </ol>
+ */
+public class Checkpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(Checkpoint.class);
+
+    private static final String PATH = "data" + File.separator + "checkpoint" + File.separator;
+
+    // 追加记录数达到上限后压缩文件
+    private static final int MAX_RECORDS = 1000;
+
+    private final File file;
+    private final Map<String, String> position;
+    private final ParallelApplier applier;
+    private final long interval;
+    private final long rows;
+    private final ExecutorService writer;
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private volatile long lastTime = Instant.now().toEpochMilli();
+    private volatile Map<String, String> persisted = Collections.EMPTY_MAP;
+    private FileOutputStream out;
+    // 启动后首次落盘先压缩, 丢弃上次运行的记录
+    private int records = MAX_RECORDS;
+
+    /**
+     * @param metaId   驱动meta
+     * @param position 提取器断点, 修改时需锁定该对象
+     * @param applier  写入通道
+     * @param interval 落盘间隔(秒)
+     * @param rows     变更条数达到该值时提前落盘
+     */
+    public Checkpoint(String metaId, Map<String, String> position, ParallelApplier applier, long interval, long rows) {
+        this.file = new File(PATH + metaId);
+        this.position = position;
+        this.applier = applier;
+        this.interval = TimeUnit.SECONDS.toMillis(Math.max(1, interval));
+        this.rows = Math.max(1, rows);
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "checkpoint-" + metaId);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 读取最后一条完整的断点
+     *
+     * @param metaId 驱动meta
+     * @return 没有断点文件时返回null
+     */
+    public static Map<String, String> restore(String metaId) {
+        File file = new File(PATH + metaId);
+        if (!file.exists()) {
+            return null;
+        }
+        Map<String, String> last = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while (null != (line = reader.readLine())) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                // 宕机时最后一行可能不完整, 解析失败则保留上一条
+                Map<String, String> record = JsonUtils.jsonToObj(line, LinkedHashMap.class);
+                if (null != record) {
+                    last = record;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("读取断点失败:{}", e.getMessage());
+        }
+        return last;
+    }
+
+    /**
+     * 删除断点文件
+     *
+     * @param metaId 驱动meta
+     */
+    public static void remove(String metaId) {
+        File file = new File(PATH + metaId);
+        if (file.exists() && !file.delete()) {
+            logger.error("删除断点失败:{}", file.getPath());
+        }
+    }
+
+    /**
+     * 记录变更条数, 达到阈值时提前落盘
+     */
+    public void mark() {
+        if (changed.incrementAndGet() >= rows) {
+            flush();
+        }
+    }
+
+    /**
+     * 定时检查, 有变更且超过间隔时落盘
+     */
+    public void tick() {
+        if (0 < changed.get() && Instant.now().toEpochMilli() - lastTime >= interval) {
+            flush();
+        }
+    }
+
+    /**
+     * 复制当前断点, 待此前提交的变更全部写入后异步落盘; 上一次落盘未完成时忽略
+     */
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        changed.set(0);
+        lastTime = Instant.now().toEpochMilli();
+        final Map<String, String> snapshot = snapshot();
+        try {
+            applier.barrier(() -> {
+                try {
+                    writer.execute(() -> {
+                        try {
+                            append(snapshot);
+                        } finally {
+                            flushing.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    flushing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * 等待变更写入完成, 保存最终断点
+     *
+     * @param timeout 等待写入的超时时间(秒)
+     * @return 最终断点, 超时返回最后一次落盘的断点
+     */
+    public Map<String, String> close(long timeout) {
+        final Map<String, String> snapshot = snapshot();
+        if (applier.await(timeout, TimeUnit.SECONDS)) {
+            try {
+                writer.submit(() -> append(snapshot)).get(timeout, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error("保存断点失败:{}", e.getMessage());
+            }
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(timeout, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly();
+        return persisted;
+    }
+
+    /**
+     * @return 最后一次落盘的断点
+     */
+    public Map<String, String> getPersisted() {
+        return persisted;
+    }
+
+    private Map<String, String> snapshot() {
+        synchronized (position) {
+            return new LinkedHashMap<>(position);
+        }
+    }
+
+    private void append(Map<String, String> snapshot) {
+        if (snapshot.isEmpty() || snapshot.equals(persisted)) {
+            return;
+        }
+        try {
+            if (records >= MAX_RECORDS) {
+                compact(snapshot);
+            } else {
+                if (null == out) {
+                    file.getParentFile().mkdirs();
+                    out = new FileOutputStream(file, true);
+                }
+                out.write(toBytes(snapshot));
+                // 落盘后才算保存, 宕机不丢失已确认的断点
+                out.getFD().sync();
+                records++;
+            }
+            persisted = snapshot;
+        } catch (IOException e) {
+            closeQuietly();
+            logger.error("保存断点失败:{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入临时文件并落盘后替换, 替换前宕机不影响原文件
+     */
+    private void compact(Map<String, String> snapshot) throws IOException {
+        closeQuietly();
+        File tmp = new File(file.getPath() + ".tmp");
+        file.getParentFile().mkdirs();
+        try (FileOutputStream o = new FileOutputStream(tmp)) {
+            o.write(toBytes(snapshot));
+            o.getFD().sync();
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = new FileOutputStream(file, true);
+        records = 1;
+    }
+
+    private byte[] toBytes(Map<String, String> snapshot) {
+        return (JsonUtils.objToJson(snapshot) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void closeQuietly() {
+        if (null != out) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.error(e.getMessage());
+            }
+            out = null;
+        }
+    }
+
+}
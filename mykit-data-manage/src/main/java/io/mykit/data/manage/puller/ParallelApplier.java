@@ -0,0 +1,181 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.manage.puller;
+
+import io.mykit.data.connector.utils.DatabaseUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 增量数据并行写入
+ * <p>按目标表+主键哈希将变更分配到N个有序通道, 每个通道单线程执行并独占一个目标源连接:
+ * <ol>
+ * <li>不同行的变更并行写入</li>
+ * <li>同一行的变更始终进入同一通道, 保持原有顺序</li>
+ * <li>涉及两个分区键的变更(例如修改主键)在两个通道都执行到该位置后执行</li>
+ * <li>通道队列已满时阻塞提交方, 避免无限堆积</li>
+ * </ol>
+ */
+public class ParallelApplier {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public ParallelApplier(String name, int size, int queueSize) {
+        this.lanes = new ThreadPoolExecutor[Math.max(1, size)];
+        for (int i = 0; i < lanes.length; i++) {
+            final String threadName = new StringBuilder(name).append("-").append(i).toString();
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queueSize), r -> {
+                Thread t = new Thread(() -> {
+                    // 通道线程独占连接, 退出时释放
+                    DatabaseUtils.bind();
+                    try {
+                        r.run();
+                    } finally {
+                        DatabaseUtils.unbind();
+                    }
+                }, threadName);
+                t.setDaemon(true);
+                return t;
+            }, (r, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("通道已关闭.");
+                }
+                try {
+                    executor.getQueue().put(r);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(e);
+                }
+            });
+            // await直接放入队列, 需先启动通道线程
+            lanes[i].prestartCoreThread();
+        }
+    }
+
+    /**
+     * 提交变更, 相同分区键的任务按提交顺序执行
+     *
+     * @param key  分区键(目标表+主键)
+     * @param task 写入任务
+     */
+    public void execute(String key, Runnable task) {
+        lanes[getLane(key)].execute(task);
+    }
+
+    /**
+     * 提交涉及两个分区键的变更, 与两个分区键此前和此后的任务都保持顺序
+     * <p>另一个通道放入等待标记, 任务执行完成前该通道暂停. 只有一个提交线程, 各通道中标记的顺序一致, 不会互相等待
+     *
+     * @param key   分区键
+     * @param other 另一个分区键
+     * @param task  写入任务
+     */
+    public void execute(String key, String other, Runnable task) {
+        final int i = getLane(key);
+        final int j = getLane(other);
+        if (i == j) {
+            lanes[i].execute(task);
+            return;
+        }
+        final CountDownLatch arrived = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        lanes[j].execute(() -> {
+            arrived.countDown();
+            awaitQuietly(done);
+        });
+        lanes[i].execute(() -> {
+            try {
+                if (awaitQuietly(arrived)) {
+                    task.run();
+                }
+            } finally {
+                done.countDown();
+            }
+        });
+    }
+
+    /**
+     * 等待此前提交的任务全部执行完成
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 是否全部完成
+     */
+    public boolean await(long timeout, TimeUnit unit) {
+        final CountDownLatch latch = new CountDownLatch(lanes.length);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            // 通道已满时最多等待到超时, 不能无限阻塞
+            for (ThreadPoolExecutor lane : lanes) {
+                if (lane.isShutdown() || !lane.getQueue().offer(latch::countDown, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+            return latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 此前提交的任务全部执行完成后回调, 调用方无需等待执行完成
+     *
+     * @param callback 回调, 在最后一个完成的通道线程中执行
+     */
+    public void barrier(Runnable callback) {
+        final AtomicInteger remaining = new AtomicInteger(lanes.length);
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.execute(() -> {
+                if (0 == remaining.decrementAndGet()) {
+                    callback.run();
+                }
+            });
+        }
+    }
+
+    private int getLane(String key) {
+        return (null == key ? 0 : key.hashCode() & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * @return 未被中断(关闭)
+     */
+    private boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void close() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdownNow();
+        }
+        logger.info("关闭写入通道:{}", lanes.length);
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.manage.puller;
+
+import io.mykit.data.common.utils.CollectionUtils;
+import io.mykit.data.connector.constants.ConnectorConstants;
+import org.apache.commons.lang.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 已写入数据摘要缓存
+ * <p>定时抽取的时间范围重叠或事件字段未重置时, 同一行会被重复读取:
+ * <ol>
+ * <li>按主键记录最后写入的同步字段摘要(64位), 内容相同时跳过写入</li>
+ * <li>超过容量时淘汰最久未访问的主键</li>
+ * <li>写入成功后才记录摘要, 删除时移除</li>
+ * </ol>
+ */
+public final class RowHashCache {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<String> primaryKeys;
+    private final List<String> columns;
+    private final Map<String, Long> cache;
+
+    /**
+     * @param primaryKeys 数据源表主键
+     * @param columns     同步字段
+     * @param size        容量
+     */
+    public RowHashCache(List<String> primaryKeys, Collection<String> columns, int size) {
+        this.primaryKeys = primaryKeys;
+        this.columns = new ArrayList<>(new TreeSet<>(columns));
+        this.cache = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * @param primaryKeys 没有主键时返回null
+     * @param columns
+     * @param size        小于等于0时返回null
+     * @return
+     */
+    public static RowHashCache create(List<String> primaryKeys, Collection<String> columns, int size) {
+        if (size <= 0 || CollectionUtils.isEmpty(primaryKeys) || CollectionUtils.isEmpty(columns)) {
+            return null;
+        }
+        return new RowHashCache(primaryKeys, columns, size);
+    }
+
+    /**
+     * @param event
+     * @param row
+     * @return 与上次写入成功的内容相同
+     */
+    public boolean isDuplicate(String event, Map<String, Object> row) {
+        if (StringUtils.equals(ConnectorConstants.OPERTION_DELETE, event)) {
+            return false;
+        }
+        final String key = getKey(row);
+        final long hash = hash(row);
+        synchronized (cache) {
+            final Long last = cache.get(key);
+            return null != last && last == hash;
+        }
+    }
+
+    /**
+     * 记录写入成功的内容
+     *
+     * @param event
+     * @param row
+     */
+    public void record(String event, Map<String, Object> row) {
+        final String key = getKey(row);
+        if (StringUtils.equals(ConnectorConstants.OPERTION_DELETE, event)) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+            return;
+        }
+        final long hash = hash(row);
+        synchronized (cache) {
+            cache.put(key, hash);
+        }
+    }
+
+    private String getKey(Map<String, Object> row) {
+        StringBuilder key = new StringBuilder();
+        primaryKeys.forEach(pk -> {
+            // 二进制主键按内容区分
+            final Object value = row.get(pk);
+            key.append(value instanceof byte[] ? Arrays.toString((byte[]) value) : value).append('|');
+        });
+        return key.toString();
+    }
+
+    private long hash(Map<String, Object> row) {
+        long hash = FNV_OFFSET;
+        for (String column : columns) {
+            final Object value = row.get(column);
+            final String s = value instanceof byte[] ? Arrays.toString((byte[]) value) : String.valueOf(value);
+            for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= FNV_PRIME;
+            }
+            // 字段分隔
+            hash ^= 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+}
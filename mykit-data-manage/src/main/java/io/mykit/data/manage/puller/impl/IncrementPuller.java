@@ -19,18 +19,26 @@ import io.mykit.data.common.event.Event;
 import io.mykit.data.common.utils.CollectionUtils;
 import io.mykit.data.common.utils.UUIDUtils;
 import io.mykit.data.connector.config.ConnectorConfig;
+import io.mykit.data.connector.config.Field;
+import io.mykit.data.connector.config.MetaInfo;
 import io.mykit.data.connector.config.Table;
+import io.mykit.data.connector.constants.ConnectorConstants;
+import io.mykit.data.connector.enums.ConnectorEnum;
 import io.mykit.data.connector.factory.ConnectorFactory;
 import io.mykit.data.manage.Manager;
 import io.mykit.data.manage.config.ExtractorConfig;
 import io.mykit.data.manage.config.FieldPicker;
 import io.mykit.data.manage.puller.AbstractPuller;
+import io.mykit.data.manage.puller.Checkpoint;
+import io.mykit.data.manage.puller.ParallelApplier;
+import io.mykit.data.manage.puller.RowHashCache;
 import io.mykit.data.monitor.AbstractExtractor;
 import io.mykit.data.monitor.Extractor;
 import io.mykit.data.monitor.Listener;
 import io.mykit.data.monitor.config.ListenerConfig;
+import io.mykit.data.monitor.enums.ListenerEnum;
 import io.mykit.data.monitor.enums.ListenerTypeEnum;
-import io.mykit.data.monitor.quartz.QuartzExtractor;
+import io.mykit.data.monitor.quartz.AbstractQuartzExtractor;
 import io.mykit.data.monitor.quartz.ScheduledTaskJob;
 import io.mykit.data.monitor.quartz.ScheduledTaskService;
 import io.mykit.data.parser.Parser;
@@ -38,6 +46,7 @@ import io.mykit.data.parser.logger.LogService;
 import io.mykit.data.parser.logger.LogType;
 import io.mykit.data.parser.model.*;
 import io.mykit.data.parser.utils.PickerUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -46,6 +55,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import java.sql.Types;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -84,6 +94,18 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
 
     private Map<String, Extractor> map = new ConcurrentHashMap<>();
 
+    // 增量写入通道 <metaId, 通道>
+    private Map<String, ParallelApplier> appliers = new ConcurrentHashMap<>();
+
+    // 增量断点 <metaId, 断点>
+    private Map<String, Checkpoint> checkpoints = new ConcurrentHashMap<>();
+
+    // 写入通道队列大小
+    private static final int APPLIER_QUEUE_SIZE = 1000;
+
+    // 关闭时等待写入完成的超时时间(秒)
+    private static final long FLUSH_TIMEOUT = 5;
+
     @Override
     public void asyncStart(Mapping mapping) {
         final String mappingId = mapping.getId();
@@ -95,6 +117,7 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
             Assert.notEmpty(list, "映射关系不能为空.");
             Meta meta = manager.getMeta(metaId);
             Assert.notNull(meta, "Meta不能为空.");
+            restore(meta);
             AbstractExtractor extractor = getExtractor(mapping, connector, list, meta);
             Assert.notNull(extractor, "未知的监听配置.");
 
@@ -122,20 +145,58 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
             extractor.close();
         }
         map.remove(metaId);
+        Checkpoint checkpoint = checkpoints.remove(metaId);
+        ParallelApplier applier = appliers.remove(metaId);
+        if (null != checkpoint) {
+            saveMeta(metaId, checkpoint.close(FLUSH_TIMEOUT));
+        }
+        if (null != applier) {
+            applier.close();
+        }
         publishClosedEvent(metaId);
         logger.info("关闭成功:{}", metaId);
     }
 
     @Override
     public void run() {
-        // 定时同步增量信息
+        // 检查增量断点是否需要落盘
         map.forEach((k, v) -> v.flushEvent());
     }
 
     @Override
     public void afterPropertiesSet() {
         key = UUIDUtils.getUUID();
-        scheduledTaskService.start(key, "*/10 * * * * ?", this);
+        scheduledTaskService.start(key, "* * * * * ?", this);
+    }
+
+    /**
+     * 恢复断点文件中已写入的增量点
+     * <p>驱动修改后Meta的增量点被清空, 断点文件随之失效
+     *
+     * @param meta
+     */
+    private void restore(Meta meta) {
+        final String metaId = meta.getId();
+        if (CollectionUtils.isEmpty(meta.getMap())) {
+            Checkpoint.remove(metaId);
+            return;
+        }
+        Map<String, String> position = Checkpoint.restore(metaId);
+        if (!CollectionUtils.isEmpty(position)) {
+            logger.info("恢复增量点:{}, {}", metaId, position);
+            meta.setMap(position);
+        }
+    }
+
+    private void saveMeta(String metaId, Map<String, String> position) {
+        if (CollectionUtils.isEmpty(position)) {
+            return;
+        }
+        Meta meta = manager.getMeta(metaId);
+        if (null != meta) {
+            meta.setMap(new LinkedHashMap<>(position));
+            manager.editMeta(meta);
+        }
     }
 
     @Override
@@ -148,15 +209,28 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
         ConnectorConfig connectorConfig = connector.getConfig();
         ListenerConfig listenerConfig = mapping.getListener();
 
-        // timing/log
+        // timing/log/snapshot
         final String listenerType = listenerConfig.getListenerType();
 
-        // 默认定时抽取
-        if (ListenerTypeEnum.isTiming(listenerType)) {
-            QuartzExtractor extractor = listener.getExtractor(listenerType, QuartzExtractor.class);
+        // 按目标表+主键分区的并行写入通道
+        final String metaId = mapping.getMetaId();
+        ParallelApplier applier = new ParallelApplier("increment-" + metaId, mapping.getThreadNum(), APPLIER_QUEUE_SIZE);
+        ParallelApplier old = appliers.put(metaId, applier);
+        if (null != old) {
+            old.close();
+        }
+
+        // 提取器与断点共享增量点, 修改时锁定该对象
+        Map<String, String> position = Collections.synchronizedMap(new LinkedHashMap<>(meta.getMap()));
+        Checkpoint checkpoint = new Checkpoint(metaId, position, applier, listenerConfig.getCheckpointInterval(), listenerConfig.getCheckpointRows());
+        checkpoints.put(metaId, checkpoint);
+
+        // 默认定时抽取/快照对比
+        if (ListenerTypeEnum.isTiming(listenerType) || ListenerTypeEnum.isSnapshot(listenerType)) {
+            AbstractQuartzExtractor extractor = listener.getExtractor(listenerType, AbstractQuartzExtractor.class);
             List<Map<String, String>> commands = list.stream().map(t -> t.getCommand()).collect(Collectors.toList());
 
-            ExtractorConfig config = new ExtractorConfig(connectorConfig, listenerConfig, meta.getMap(), new QuartzListener(mapping, list));
+            ExtractorConfig config = new ExtractorConfig(connectorConfig, listenerConfig, position, new QuartzListener(mapping, list, applier, checkpoint));
             setExtractorConfig(extractor, config);
             extractor.setConnectorFactory(connectorFactory);
             extractor.setScheduledTaskService(scheduledTaskService);
@@ -166,10 +240,13 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
 
         // 基于日志抽取
         if (ListenerTypeEnum.isLog(listenerType)) {
-            final String connectorType = connectorConfig.getConnectorType();
+            String connectorType = connectorConfig.getConnectorType();
+            if (StringUtils.equals(ConnectorEnum.ORACLE.getType(), connectorType) && listenerConfig.isLogMiner()) {
+                connectorType = ListenerEnum.ORACLE_LOGMINER.getType();
+            }
             AbstractExtractor extractor = listener.getExtractor(connectorType, AbstractExtractor.class);
 
-            ExtractorConfig config = new ExtractorConfig(connectorConfig, listenerConfig, meta.getMap(), new LogListener(mapping, list));
+            ExtractorConfig config = new ExtractorConfig(connectorConfig, listenerConfig, position, new LogListener(mapping, list, applier, checkpoint));
             setExtractorConfig(extractor, config);
             return extractor;
         }
@@ -186,7 +263,10 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
     abstract class AbstractListener implements Event {
         protected Mapping mapping;
         protected String metaId;
-        protected AtomicBoolean changed = new AtomicBoolean();
+        protected ParallelApplier applier;
+        protected Checkpoint checkpoint;
+        // 首个断点是否已同步到Meta
+        protected AtomicBoolean synced = new AtomicBoolean();
 
         @Override
         public void changedLogEvent(String tableName, String event, List<Object> before, List<Object> after) {
@@ -198,16 +278,67 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
             // nothing to do
         }
 
+        @Override
+        public void changedQuartzEvent(int tableGroupIndex, String event, List<Map<String, Object>> data) {
+            // nothing to do
+        }
+
+        @Override
+        public void changedSchemaEvent(String tableName, List<String> columns) {
+            // nothing to do
+        }
+
         @Override
         public void flushEvent(Map<String, String> map) {
-            // 如果有变更，执行更新
-            if (changed.compareAndSet(true, false)) {
-                Meta meta = manager.getMeta(metaId);
-                if (null != meta) {
-                    meta.setMap(map);
-                    manager.editMeta(meta);
+            // 断点异步落盘, 不再每次重写Meta
+            checkpoint.tick();
+
+            // 首个断点同步到Meta, 重启时据此判断断点文件是否有效
+            Map<String, String> persisted = checkpoint.getPersisted();
+            if (!CollectionUtils.isEmpty(persisted) && synced.compareAndSet(false, true)) {
+                saveMeta(metaId, persisted);
+            }
+        }
+
+        /**
+         * 提交到写入通道, 同一目标表同一主键的变更按顺序写入
+         * <p>更新和删除按变化前的主键分区, 修改主键的更新同时与新主键的变更保持顺序
+         *
+         * @param picker
+         * @param data
+         */
+        protected void apply(FieldPicker picker, DataEvent data) {
+            final Runnable task = () -> {
+                try {
+                    parser.execute(mapping, picker.getTableGroup(), data);
+                } catch (Exception e) {
+                    logger.error(e.getMessage());
+                    errorEvent(e);
+                }
+            };
+            final String key = getPartitionKey(picker, data.getData());
+            if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, data.getEvent()) && !CollectionUtils.isEmpty(data.getBefore())) {
+                final String before = getPartitionKey(picker, data.getBefore());
+                if (!StringUtils.equals(before, key)) {
+                    applier.execute(before, key, task);
+                    checkpoint.mark();
+                    return;
                 }
             }
+            applier.execute(key, task);
+            checkpoint.mark();
+        }
+
+        private String getPartitionKey(FieldPicker picker, Map<String, Object> row) {
+            StringBuilder key = new StringBuilder(picker.getTableGroup().getTargetTable().getName());
+            if (null != row) {
+                picker.getPrimaryKeys().forEach(pk -> {
+                    // 二进制主键按内容区分
+                    final Object value = row.get(pk);
+                    key.append("|").append(value instanceof byte[] ? Arrays.toString((byte[]) value) : value);
+                });
+            }
+            return key.toString();
         }
 
         @Override
@@ -231,31 +362,81 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
      * </ul>
      * </p>PS：
      * <ol>
-     * <li>依次执行同步关系A >> B 然后 A >> C ...</li>
+     * <li>同步关系A >> B、A >> C ...在有界线程池中并行读取, 各自维护增量点, 同一关系上次未完成时跳过本次</li>
+     * <li>变更按页批量写入, 同一目标表的批次在同一写入通道中串行执行, 不同目标表并行写入.</li>
+     * <li>快照对比与定时抽取共用该监听.</li>
      * </ol>
      */
     final class QuartzListener extends AbstractListener {
 
         private List<FieldPicker> tablePicker;
+        // 已写入数据摘要, 未开启时为null
+        private List<RowHashCache> tableCache;
 
-        public QuartzListener(Mapping mapping, List<TableGroup> list) {
+        public QuartzListener(Mapping mapping, List<TableGroup> list, ParallelApplier applier, Checkpoint checkpoint) {
             this.mapping = mapping;
             this.metaId = mapping.getMetaId();
-            this.tablePicker = new LinkedList<>();
-            list.forEach(t -> tablePicker.add(new FieldPicker(PickerUtils.mergeTableGroupConfig(mapping, t))));
+            this.applier = applier;
+            this.checkpoint = checkpoint;
+            // 多个读取线程按索引并发访问
+            this.tablePicker = new ArrayList<>(list.size());
+            this.tableCache = new ArrayList<>(list.size());
+            final int dedupeSize = null == mapping.getListener() ? 0 : mapping.getListener().getDedupeSize();
+            list.forEach(t -> {
+                FieldPicker picker = new FieldPicker(PickerUtils.mergeTableGroupConfig(mapping, t));
+                tablePicker.add(picker);
+                // 写入目标源的字段
+                Set<String> columns = picker.getTableGroup().getFieldMapping().stream().filter(m -> null != m.getSource() && null != m.getTarget())
+                        .map(m -> m.getSource().getName()).collect(Collectors.toSet());
+                tableCache.add(RowHashCache.create(picker.getPrimaryKeys(), columns, dedupeSize));
+            });
         }
 
         @Override
         public void changedQuartzEvent(int tableGroupIndex, String event, Map<String, Object> before, Map<String, Object> after) {
-            final FieldPicker picker = tablePicker.get(tableGroupIndex);
-            logger.info("监听数据=> tableName:{}, event:{}, before:{}, after:{}", picker.getTableGroup().getSourceTable().getName(), event, before, after);
-
-            // 处理过程有异常向上抛
+            // 与批量写入使用同一写入通道, 保持同一行的顺序
             DataEvent data = new DataEvent(event, before, after);
-            parser.execute(mapping, picker.getTableGroup(), data);
+            changedQuartzEvent(tableGroupIndex, event, Collections.singletonList(data.getData()));
+        }
+
+        /**
+         * 批量写入, 按目标表分区: 同一目标表的所有批次在同一写入通道中串行执行
+         */
+        @Override
+        public void changedQuartzEvent(int tableGroupIndex, String event, List<Map<String, Object>> data) {
+            final FieldPicker picker = tablePicker.get(tableGroupIndex);
+            logger.info("监听数据=> tableName:{}, event:{}, size:{}", picker.getTableGroup().getSourceTable().getName(), event, data.size());
+
+            // 跳过与上次写入内容相同的数据
+            final RowHashCache cache = tableCache.get(tableGroupIndex);
+            final List<Map<String, Object>> rows = null == cache ? data : data.stream().filter(r -> !cache.isDuplicate(event, r))
+                    .collect(Collectors.toList());
+            if (rows.size() < data.size()) {
+                parser.skip(metaId, data.size() - rows.size());
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
 
-            // 标记有变更记录
-            changed.compareAndSet(false, true);
+            applier.execute(picker.getTableGroup().getTargetTable().getName(), () -> {
+                try {
+                    final List<Integer> failed = parser.execute(mapping, picker.getTableGroup(), event, rows);
+                    // 只记录写入成功的数据, 失败的数据下次重新写入
+                    if (null != cache) {
+                        final Set<Integer> skip = new HashSet<>(failed);
+                        final int size = rows.size();
+                        for (int i = 0; i < size; i++) {
+                            if (!skip.contains(i)) {
+                                cache.record(event, rows.get(i));
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.error(e.getMessage());
+                    errorEvent(e);
+                }
+            });
+            checkpoint.mark();
         }
     }
 
@@ -277,16 +458,21 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
      * <li>为减少开销而选择复用监听器实例, 启动时只需创建一个数据源连接器.</li>
      * <li>关系A >> B和A >> C会复用A监听的数据, A监听到增量数据，会发送给B和C.</li>
      * <li>该模式下，会监听表所有字段.</li>
+     * <li>变更按目标表+主键分区提交到写入通道并行写入, 同一行的变更保持顺序.</li>
      * </ol>
      */
     final class LogListener extends AbstractListener {
 
         private Map<String, List<FieldPicker>> tablePicker;
+        private List<TableGroup> tableGroups;
 
-        public LogListener(Mapping mapping, List<TableGroup> list) {
+        public LogListener(Mapping mapping, List<TableGroup> list, ParallelApplier applier, Checkpoint checkpoint) {
             this.mapping = mapping;
             this.metaId = mapping.getMetaId();
-            this.tablePicker = new LinkedHashMap<>();
+            this.applier = applier;
+            this.checkpoint = checkpoint;
+            this.tableGroups = list;
+            this.tablePicker = new ConcurrentHashMap<>();
             list.forEach(t -> {
                 final Table table = t.getSourceTable();
                 final String tableName = table.getName();
@@ -298,21 +484,89 @@ public class IncrementPuller extends AbstractPuller implements ScheduledTaskJob,
 
         @Override
         public void changedLogEvent(String tableName, String event, List<Object> before, List<Object> after) {
-            logger.info("监听数据=> tableName:{}, event:{}, before:{}, after:{}", tableName, event, before, after);
+            // 逐行调用, 只在调试时输出行内容
+            if (logger.isDebugEnabled()) {
+                logger.debug("监听数据=> tableName:{}, event:{}, before:{}, after:{}", tableName, event, before, after);
+            }
 
-            // 处理过程有异常向上抛
             List<FieldPicker> pickers = tablePicker.get(tableName);
             if (!CollectionUtils.isEmpty(pickers)) {
-                pickers.parallelStream().forEach(picker -> {
-                    DataEvent data = new DataEvent(event, picker.getColumns(before), picker.getColumns(after));
+                pickers.forEach(picker -> {
+                    Map<String, Object> b = picker.getColumns(before);
+                    Map<String, Object> a = picker.getColumns(after);
+                    // 日志只记录部分字段时(binlog_row_image=MINIMAL/NOBLOB), 主键等未记录的字段取自变化前
+                    if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event) && !CollectionUtils.isEmpty(b)) {
+                        Map<String, Object> row = new HashMap<>(b);
+                        row.putAll(a);
+                        a = row;
+
+                        // 同步字段未变化, 跳过
+                        if (!picker.isChanged(b, a)) {
+                            parser.skip(metaId, 1);
+                            return;
+                        }
+                    }
+                    DataEvent data = new DataEvent(event, b, a);
                     if (picker.filter(data)) {
-                        parser.execute(mapping, picker.getTableGroup(), data);
+                        apply(picker, data);
                     }
                 });
             }
+        }
+
+        /**
+         * 表结构变更后按新的字段顺序重建映射, 之后的行事件按新版本解析
+         *
+         * @param tableName
+         * @param columns
+         */
+        @Override
+        public void changedSchemaEvent(String tableName, List<String> columns) {
+            final List<FieldPicker> pickers = tablePicker.get(tableName);
+            if (CollectionUtils.isEmpty(pickers)) {
+                return;
+            }
+            final List<Field> old = pickers.get(0).getTableGroup().getSourceTable().getColumn();
+            if (columns.equals(old.stream().map(f -> f.getName()).collect(Collectors.toList()))) {
+                return;
+            }
+            final List<Field> column = getColumn(tableName, columns, old);
+
+            // 与构造时的顺序一致
+            final List<FieldPicker> changed = new ArrayList<>();
+            tableGroups.stream().filter(t -> StringUtils.equals(tableName, t.getSourceTable().getName())).forEach(t -> {
+                TableGroup group = PickerUtils.mergeTableGroupConfig(mapping, t);
+                Table table = new Table().setName(tableName).setColumn(column);
+                table.setCount(t.getSourceTable().getCount());
+                group.setSourceTable(table);
+                try {
+                    changed.add(new FieldPicker(group, group.getFilter(), column, group.getFieldMapping()));
+                } catch (IllegalArgumentException e) {
+                    // 映射字段已被删除, 保留原映射
+                    logger.error("表结构变更[{}]后无法重建映射:{}", tableName, e.getMessage());
+                    changed.add(pickers.get(changed.size()));
+                }
+            });
+            tablePicker.put(tableName, changed);
+            logger.info("表结构变更[{}], 字段:{}", tableName, columns);
+        }
 
-            // 标记有变更记录
-            changed.compareAndSet(false, true);
+        /**
+         * 字段类型和主键优先取数据源当前的表结构, 其次取变更前的字段
+         */
+        private List<Field> getColumn(String tableName, List<String> columns, List<Field> old) {
+            final Map<String, Field> fields = new HashMap<>();
+            old.forEach(f -> fields.put(f.getName(), f));
+            try {
+                MetaInfo metaInfo = manager.getMetaInfo(mapping.getSourceConnectorId(), tableName);
+                if (null != metaInfo && !CollectionUtils.isEmpty(metaInfo.getColumn())) {
+                    metaInfo.getColumn().forEach(f -> fields.put(f.getName(), f));
+                }
+            } catch (Exception e) {
+                logger.warn("读取表结构失败:{}, {}", tableName, e.getMessage());
+            }
+            return columns.stream().map(name -> fields.getOrDefault(name, new Field(name, "OTHER", Types.OTHER))).collect(
+                    Collectors.toList());
         }
 
     }
@@ -0,0 +1,60 @@
+package io.mykit.data.monitor.mysql.io.impl;
+
+import io.mykit.data.monitor.mysql.binlog.impl.RecordedBinlogParser;
+import io.mykit.data.monitor.mysql.io.XInputStream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 解码录制的binlog文件, 对比ByteBuffer窗口和逐字节解码的吞吐量
+ * <p>运行: mvn -Pbenchmark -pl mykit-data-monitor test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XInputStreamBenchmark {
+
+    @Param({"window", "byte"})
+    public String reader;
+
+    private Function<InputStream, XInputStream> factory;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws Exception {
+        factory = "window".equals(reader) ? XInputStreamImpl::new : ByteAtATimeInputStream::new;
+        data = Files.readAllBytes(RecordedBinlogParser.getFile().toPath());
+    }
+
+    /**
+     * 完整解析文件中的事件, 包括CRC32校验
+     */
+    @Benchmark
+    public void decodeBinlog(Blackhole bh) throws Exception {
+        new RecordedBinlogParser(factory, bh::consume).parse();
+    }
+
+    /**
+     * 只解码定长整数, 排除事件对象的开销
+     */
+    @Benchmark
+    public long decodePrimitives() throws Exception {
+        final XInputStream is = factory.apply(new ByteArrayInputStream(data));
+        long r = 0;
+        for (int i = data.length / 15; i > 0; i--) {
+            r += is.readInt(1) + is.readInt(2) + is.readInt(4) + is.readLong(8);
+        }
+        return r;
+    }
+}
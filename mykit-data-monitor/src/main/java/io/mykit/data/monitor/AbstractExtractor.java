@@ -60,6 +60,13 @@ public abstract class AbstractExtractor implements Extractor{
         }
     }
 
+    @Override
+    public void changedQuartzEvent(int tableGroupIndex, String event, List<Map<String, Object>> data) {
+        if (!CollectionUtils.isEmpty(watcher)) {
+            watcher.forEach(w -> w.changedQuartzEvent(tableGroupIndex, event, data));
+        }
+    }
+
     @Override
     public void changedLogEvent(String tableName, String event, List<Object> before, List<Object> after) {
         if (!CollectionUtils.isEmpty(watcher)) {
@@ -67,6 +74,13 @@ public abstract class AbstractExtractor implements Extractor{
         }
     }
 
+    @Override
+    public void changedSchemaEvent(String tableName, List<String> columns) {
+        if (!CollectionUtils.isEmpty(watcher)) {
+            watcher.forEach(w -> w.changedSchemaEvent(tableName, columns));
+        }
+    }
+
     @Override
     public void flushEvent() {
         if (!CollectionUtils.isEmpty(watcher)) {
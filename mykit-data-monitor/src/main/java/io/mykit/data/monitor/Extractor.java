@@ -52,11 +52,21 @@ public interface Extractor {
      */
     void changedQuartzEvent(int tableGroupIndex, String event, Map<String, Object> before, Map<String, Object> after);
 
+    /**
+     * 定时模式: 批量监听增量事件
+     */
+    void changedQuartzEvent(int tableGroupIndex, String event, List<Map<String, Object>> data);
+
     /**
      * 日志模式: 监听增量事件
      */
     void changedLogEvent(String tableName, String event, List<Object> before, List<Object> after);
 
+    /**
+     * 日志模式: 表结构变更事件
+     */
+    void changedSchemaEvent(String tableName, List<String> columns);
+
     /**
      * 刷新增量点事件
      */
@@ -53,6 +53,42 @@ public class ListenerConfig implements Serializable {
     // 表别名
     private String tableLabel = "T1";
 
+    // 定时抽取同时读取的表数, 同一张表上次未完成时跳过本次
+    private int pollThreads = 4;
+
+    // 自适应读取的最小间隔(秒), 有变化时按该间隔读取
+    private int minInterval = 1;
+
+    // 自适应读取的最大间隔(秒), 空闲时间隔翻倍直到该值; 0表示按定时表达式读取
+    private int maxInterval = 0;
+
+    // 定时抽取按主键缓存已写入数据的摘要个数(每个映射关系), 内容未变化时跳过写入; 0表示不缓存
+    private int dedupeSize = 0;
+
+    // 快照对比每块的行数, 块摘要相同时跳过逐行对比
+    private int snapshotChunkSize = 1000;
+
+    // 日志解析线程数, 行事件按表分区并行解码(同表保持顺序), 0表示在读取线程中解码
+    private int decodeThreads = 0;
+
+    // 复制连接使用NIO非阻塞读取, 否则使用阻塞Socket
+    private boolean nioTransport = false;
+
+    // 断点落盘间隔(秒)
+    private int checkpointInterval = 3;
+
+    // 变更条数达到该值时提前落盘断点
+    private int checkpointRows = 1000;
+
+    // 没有断点时从该时间开始读取日志, 格式: yyyy-MM-dd HH:mm:ss, 为空时从当前位置开始
+    private String startTime = "";
+
+    // 本地binlog目录(拷贝或保留的binlog文件), 断点落后整个文件时先读取本地文件追赶, 为空时只使用复制连接
+    private String binlogPath = "";
+
+    // Oracle使用LogMiner读取重做日志, 否则使用数据库变更通知(DCN)
+    private boolean logMiner;
+
     public ListenerConfig() {
     }
 
@@ -123,4 +159,100 @@ public class ListenerConfig implements Serializable {
     public void setTableLabel(String tableLabel) {
         this.tableLabel = tableLabel;
     }
+
+    public int getPollThreads() {
+        return pollThreads;
+    }
+
+    public void setPollThreads(int pollThreads) {
+        this.pollThreads = pollThreads;
+    }
+
+    public int getMinInterval() {
+        return minInterval;
+    }
+
+    public void setMinInterval(int minInterval) {
+        this.minInterval = minInterval;
+    }
+
+    public int getMaxInterval() {
+        return maxInterval;
+    }
+
+    public void setMaxInterval(int maxInterval) {
+        this.maxInterval = maxInterval;
+    }
+
+    public int getDedupeSize() {
+        return dedupeSize;
+    }
+
+    public void setDedupeSize(int dedupeSize) {
+        this.dedupeSize = dedupeSize;
+    }
+
+    public int getSnapshotChunkSize() {
+        return snapshotChunkSize;
+    }
+
+    public void setSnapshotChunkSize(int snapshotChunkSize) {
+        this.snapshotChunkSize = snapshotChunkSize;
+    }
+
+    public int getDecodeThreads() {
+        return decodeThreads;
+    }
+
+    public void setDecodeThreads(int decodeThreads) {
+        this.decodeThreads = decodeThreads;
+    }
+
+    public boolean isNioTransport() {
+        return nioTransport;
+    }
+
+    public void setNioTransport(boolean nioTransport) {
+        this.nioTransport = nioTransport;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getCheckpointRows() {
+        return checkpointRows;
+    }
+
+    public void setCheckpointRows(int checkpointRows) {
+        this.checkpointRows = checkpointRows;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    public String getBinlogPath() {
+        return binlogPath;
+    }
+
+    public void setBinlogPath(String binlogPath) {
+        this.binlogPath = binlogPath;
+    }
+
+    public boolean isLogMiner() {
+        return logMiner;
+    }
+
+    public void setLogMiner(boolean logMiner) {
+        this.logMiner = logMiner;
+    }
 }
@@ -19,7 +19,9 @@ import io.mykit.data.connector.enums.ConnectorEnum;
 import io.mykit.data.monitor.exception.ListenerException;
 import io.mykit.data.monitor.mysql.MysqlExtractor;
 import io.mykit.data.monitor.oracle.OracleExtractor;
+import io.mykit.data.monitor.oracle.logminer.LogMinerExtractor;
 import io.mykit.data.monitor.quartz.QuartzExtractor;
+import io.mykit.data.monitor.snapshot.SnapshotExtractor;
 import org.apache.commons.lang.StringUtils;
 
 /**
@@ -32,6 +34,10 @@ public enum ListenerEnum {
      * 定时
      */
     DEFAULT(ListenerTypeEnum.TIMING.getType(), QuartzExtractor.class),
+    /**
+     * 快照对比
+     */
+    SNAPSHOT(ListenerTypeEnum.SNAPSHOT.getType(), SnapshotExtractor.class),
     /**
      * Mysql
      */
@@ -39,7 +45,11 @@ public enum ListenerEnum {
     /**
      * Oracle
      */
-    ORACLE(ConnectorEnum.ORACLE.getType(), OracleExtractor.class);
+    ORACLE(ConnectorEnum.ORACLE.getType(), OracleExtractor.class),
+    /**
+     * Oracle LogMiner
+     */
+    ORACLE_LOGMINER("OracleLogMiner", LogMinerExtractor.class);
 
     private String type;
     private Class<?> clazz;
@@ -31,7 +31,11 @@ public enum ListenerTypeEnum {
     /**
      * 日志
      */
-    LOG("log");
+    LOG("log"),
+    /**
+     * 快照对比
+     */
+    SNAPSHOT("snapshot");
 
     private String type;
 
@@ -47,6 +51,10 @@ public enum ListenerTypeEnum {
         return StringUtils.equals(LOG.getType(), type);
     }
 
+    public static boolean isSnapshot(String type) {
+        return StringUtils.equals(SNAPSHOT.getType(), type);
+    }
+
     public String getType() {
         return type;
     }
@@ -0,0 +1,466 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.mysql;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 表结构DDL解析
+ * <p>只关心字段名称和顺序, 支持:
+ * <ol>
+ * <li>CREATE TABLE t (...)</li>
+ * <li>ALTER TABLE t ADD/DROP/CHANGE/MODIFY/RENAME COLUMN, RENAME TO</li>
+ * <li>DROP TABLE t1, t2</li>
+ * <li>RENAME TABLE a TO b, c TO d</li>
+ * </ol>
+ * 无法确定变更后字段的语句(如CREATE TABLE ... LIKE)返回null, 由调用方读取数据源当前的表结构
+ */
+public final class DdlParser {
+
+    public enum Type {
+        CREATE, ALTER, DROP, RENAME
+    }
+
+    // 索引和约束定义, 不影响字段
+    private static final Set<String> CONSTRAINTS = new HashSet<>(Arrays.asList("PRIMARY", "KEY", "INDEX", "UNIQUE", "CONSTRAINT",
+            "FOREIGN", "FULLTEXT", "SPATIAL", "CHECK", "PARTITION"));
+
+    private final Type type;
+    // [库名, 表名], RENAME时为[库名, 原表名, 库名, 新表名]
+    private final List<String[]> tables;
+    // 建表字段或修改表的子句
+    private final List<List<Token>> specs;
+
+    private DdlParser(Type type, List<String[]> tables, List<List<Token>> specs) {
+        this.type = type;
+        this.tables = tables;
+        this.specs = specs;
+    }
+
+    /**
+     * @param sql QueryEvent语句
+     * @return 不是表结构变更语句时返回null
+     */
+    public static DdlParser parse(String sql) {
+        if (StringUtils.isBlank(sql)) {
+            return null;
+        }
+        final List<Token> tokens = tokenize(sql);
+        final Cursor c = new Cursor(tokens);
+        if (c.accept("CREATE")) {
+            if (c.accept("TEMPORARY") || !c.accept("TABLE")) {
+                return null;
+            }
+            c.accept("IF", "NOT", "EXISTS");
+            final String[] table = c.name();
+            // CREATE TABLE t LIKE x / CREATE TABLE t SELECT ... 无法确定字段
+            List<List<Token>> specs = null;
+            if (c.peek("(")) {
+                specs = split(c.group());
+                if (c.peek("SELECT") || c.peek("AS") || c.peek("IGNORE") || c.peek("REPLACE")) {
+                    specs = null;
+                }
+            }
+            return new DdlParser(Type.CREATE, Collections.singletonList(table), specs);
+        }
+        if (c.accept("ALTER")) {
+            c.accept("ONLINE");
+            c.accept("IGNORE");
+            if (!c.accept("TABLE")) {
+                return null;
+            }
+            final String[] table = c.name();
+            return new DdlParser(Type.ALTER, Collections.singletonList(table), split(c.rest()));
+        }
+        if (c.accept("DROP")) {
+            if (c.accept("TEMPORARY") || !c.accept("TABLE")) {
+                return null;
+            }
+            c.accept("IF", "EXISTS");
+            final List<String[]> tables = new ArrayList<>();
+            do {
+                tables.add(c.name());
+            } while (c.accept(","));
+            return new DdlParser(Type.DROP, tables, Collections.EMPTY_LIST);
+        }
+        if (c.accept("RENAME")) {
+            if (!c.accept("TABLE")) {
+                return null;
+            }
+            final List<String[]> tables = new ArrayList<>();
+            do {
+                final String[] from = c.name();
+                c.accept("TO");
+                final String[] to = c.name();
+                tables.add(new String[]{from[0], from[1], to[0], to[1]});
+            } while (c.accept(","));
+            return new DdlParser(Type.RENAME, tables, Collections.EMPTY_LIST);
+        }
+        return null;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<String[]> getTables() {
+        return tables;
+    }
+
+    /**
+     * ALTER TABLE t RENAME [TO|AS] t2
+     *
+     * @return 新表名[库名, 表名], 没有改名时返回null
+     */
+    public String[] getNewName() {
+        if (Type.ALTER != type) {
+            return null;
+        }
+        String[] name = null;
+        for (List<Token> spec : specs) {
+            final Cursor c = new Cursor(spec);
+            if (c.accept("RENAME") && !c.peek("COLUMN") && !c.peek("INDEX") && !c.peek("KEY")) {
+                if (!c.accept("TO")) {
+                    c.accept("AS");
+                }
+                name = c.name();
+            }
+        }
+        return name;
+    }
+
+    /**
+     * 计算变更后的字段
+     *
+     * @param columns 变更前的字段, 未知时为null
+     * @return 无法确定时返回null
+     */
+    public List<String> apply(List<String> columns) {
+        if (Type.CREATE == type) {
+            return null == specs ? null : create();
+        }
+        if (Type.ALTER != type || null == columns) {
+            return null;
+        }
+        final List<String> r = new ArrayList<>(columns);
+        for (List<Token> spec : specs) {
+            if (!alter(r, new Cursor(spec))) {
+                return null;
+            }
+        }
+        return r;
+    }
+
+    private List<String> create() {
+        final List<String> r = new ArrayList<>();
+        for (List<Token> spec : specs) {
+            if (spec.isEmpty()) {
+                continue;
+            }
+            final Token first = spec.get(0);
+            if (!first.quoted && CONSTRAINTS.contains(first.upper)) {
+                continue;
+            }
+            r.add(first.text);
+        }
+        return r;
+    }
+
+    private boolean alter(List<String> columns, Cursor c) {
+        if (c.accept("ADD")) {
+            if (c.peekConstraint()) {
+                return true;
+            }
+            c.accept("COLUMN");
+            // ADD COLUMN (a INT, b INT)
+            if (c.peek("(")) {
+                for (List<Token> def : split(c.group())) {
+                    if (!def.isEmpty()) {
+                        columns.add(def.get(0).text);
+                    }
+                }
+                return true;
+            }
+            final String name = c.identifier();
+            return null != name && !contains(columns, name) && place(columns, name, c, columns.size());
+        }
+        if (c.accept("DROP")) {
+            if (c.peekConstraint()) {
+                return true;
+            }
+            c.accept("COLUMN");
+            return remove(columns, c.identifier()) >= 0;
+        }
+        if (c.accept("CHANGE")) {
+            c.accept("COLUMN");
+            final String old = c.identifier();
+            final String name = c.identifier();
+            final int i = remove(columns, old);
+            return i >= 0 && null != name && place(columns, name, c, i);
+        }
+        if (c.accept("MODIFY")) {
+            c.accept("COLUMN");
+            final String name = c.identifier();
+            final int i = remove(columns, name);
+            return i >= 0 && place(columns, name, c, i);
+        }
+        if (c.accept("RENAME", "COLUMN")) {
+            final String old = c.identifier();
+            c.accept("TO");
+            final String name = c.identifier();
+            final int i = remove(columns, old);
+            if (i < 0 || null == name) {
+                return false;
+            }
+            columns.add(i, name);
+            return true;
+        }
+        // ALTER COLUMN ... SET DEFAULT, ENGINE=, COMMENT=, RENAME TO 等不影响字段
+        return true;
+    }
+
+    /**
+     * 按 FIRST / AFTER col 放置字段, 没有指定时放在index
+     */
+    private boolean place(List<String> columns, String name, Cursor c, int index) {
+        final List<Token> rest = c.rest();
+        final int size = rest.size();
+        if (size >= 1 && rest.get(size - 1).is("FIRST")) {
+            columns.add(0, name);
+            return true;
+        }
+        if (size >= 2 && rest.get(size - 2).is("AFTER")) {
+            final int i = indexOf(columns, rest.get(size - 1).text);
+            if (i < 0) {
+                return false;
+            }
+            columns.add(i + 1, name);
+            return true;
+        }
+        columns.add(index, name);
+        return true;
+    }
+
+    private static boolean contains(List<String> columns, String name) {
+        return indexOf(columns, name) >= 0;
+    }
+
+    private static int indexOf(List<String> columns, String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (StringUtils.equalsIgnoreCase(columns.get(i), name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int remove(List<String> columns, String name) {
+        final int i = null == name ? -1 : indexOf(columns, name);
+        if (i >= 0) {
+            columns.remove(i);
+        }
+        return i;
+    }
+
+    /**
+     * 按顶层逗号拆分
+     */
+    private static List<List<Token>> split(List<Token> tokens) {
+        final List<List<Token>> r = new ArrayList<>();
+        List<Token> current = new ArrayList<>();
+        int depth = 0;
+        for (Token t : tokens) {
+            if (t.is("(")) {
+                depth++;
+            } else if (t.is(")")) {
+                depth--;
+            } else if (0 == depth && t.is(",")) {
+                r.add(current);
+                current = new ArrayList<>();
+                continue;
+            }
+            current.add(t);
+        }
+        if (!current.isEmpty()) {
+            r.add(current);
+        }
+        return r;
+    }
+
+    private static List<Token> tokenize(String sql) {
+        final List<Token> r = new ArrayList<>();
+        final int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            final char ch = sql.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+            } else if (ch == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                // 版本注释 /*!50100 ... */ 的内容有效, 其他注释忽略
+                if (i + 2 < length && sql.charAt(i + 2) == '!') {
+                    i += 3;
+                    while (i < length && Character.isDigit(sql.charAt(i))) {
+                        i++;
+                    }
+                } else {
+                    final int end = sql.indexOf("*/", i + 2);
+                    i = end < 0 ? length : end + 2;
+                }
+            } else if (ch == '*' && i + 1 < length && sql.charAt(i + 1) == '/') {
+                i += 2;
+            } else if (ch == '#' || (ch == '-' && sql.startsWith("-- ", i))) {
+                final int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (ch == '`' || ch == '\'' || ch == '"') {
+                final StringBuilder text = new StringBuilder();
+                i++;
+                while (i < length) {
+                    final char c = sql.charAt(i++);
+                    if (c == '\\' && ch != '`' && i < length) {
+                        text.append(sql.charAt(i++));
+                    } else if (c == ch) {
+                        // 连续两个引号表示引号本身
+                        if (i < length && sql.charAt(i) == ch) {
+                            text.append(ch);
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        text.append(c);
+                    }
+                }
+                r.add(new Token(text.toString(), ch == '`' ? Token.IDENTIFIER : Token.STRING));
+            } else if (Character.isLetterOrDigit(ch) || ch == '_' || ch == '$') {
+                final int start = i;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                r.add(new Token(sql.substring(start, i), Token.WORD));
+            } else {
+                r.add(new Token(String.valueOf(ch), Token.SYMBOL));
+                i++;
+            }
+        }
+        return r;
+    }
+
+    static final class Token {
+        static final int WORD = 0;
+        static final int IDENTIFIER = 1;
+        static final int STRING = 2;
+        static final int SYMBOL = 3;
+
+        private final String text;
+        private final String upper;
+        private final boolean quoted;
+        private final int kind;
+
+        Token(String text, int kind) {
+            this.text = text;
+            this.kind = kind;
+            this.quoted = kind == IDENTIFIER || kind == STRING;
+            this.upper = quoted ? null : text.toUpperCase();
+        }
+
+        boolean is(String s) {
+            return !quoted && s.equals(upper);
+        }
+    }
+
+    static final class Cursor {
+        private final List<Token> tokens;
+        private int i;
+
+        Cursor(List<Token> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean peek(String s) {
+            return i < tokens.size() && tokens.get(i).is(s);
+        }
+
+        boolean peekConstraint() {
+            return i < tokens.size() && !tokens.get(i).quoted && CONSTRAINTS.contains(tokens.get(i).upper);
+        }
+
+        /**
+         * 依次匹配关键字, 全部匹配时前进
+         */
+        boolean accept(String... words) {
+            for (int k = 0; k < words.length; k++) {
+                if (i + k >= tokens.size() || !tokens.get(i + k).is(words[k])) {
+                    return false;
+                }
+            }
+            i += words.length;
+            return true;
+        }
+
+        String identifier() {
+            if (i < tokens.size() && tokens.get(i).kind != Token.SYMBOL && tokens.get(i).kind != Token.STRING) {
+                return tokens.get(i++).text;
+            }
+            return null;
+        }
+
+        /**
+         * [库名.]表名
+         */
+        String[] name() {
+            final String first = identifier();
+            if (accept(".")) {
+                return new String[]{first, identifier()};
+            }
+            return new String[]{null, first};
+        }
+
+        /**
+         * 读取括号内的内容
+         */
+        List<Token> group() {
+            final List<Token> r = new ArrayList<>();
+            int depth = 0;
+            while (i < tokens.size()) {
+                final Token t = tokens.get(i++);
+                if (t.is("(")) {
+                    if (depth++ == 0) {
+                        continue;
+                    }
+                } else if (t.is(")") && --depth == 0) {
+                    break;
+                }
+                r.add(t);
+            }
+            return r;
+        }
+
+        List<Token> rest() {
+            final List<Token> r = tokens.subList(Math.min(i, tokens.size()), tokens.size());
+            i = tokens.size();
+            return r;
+        }
+    }
+}
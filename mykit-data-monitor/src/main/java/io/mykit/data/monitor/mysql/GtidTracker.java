@@ -0,0 +1,136 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.mysql;
+
+import io.mykit.data.monitor.mysql.binlog.impl.event.AbstractBinlogEventV4;
+import io.mykit.data.monitor.mysql.binlog.impl.event.GtidEvent;
+import io.mykit.data.monitor.mysql.common.glossary.GtidSet;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 已执行GTID集合跟踪
+ * <p>并行解码时行事件可能早于所属事务的GTID事件或晚于上一个事务的Xid事件分发, 因此按binlog位置定位事务:
+ * <ol>
+ * <li>GTID事件在读取线程中按顺序登记事务起始位置</li>
+ * <li>行事件按自身位置找到所属事务, 判断是否已执行</li>
+ * <li>Xid事件提交所属事务及之前未提交的事务(如DDL)</li>
+ * </ol>
+ */
+public final class GtidTracker {
+
+    private final GtidSet gtidSet;
+
+    // <事务起始位置, 事务>
+    private final NavigableMap<Position, Transaction> transactions = new ConcurrentSkipListMap<>();
+
+    public GtidTracker(String gtidSet) {
+        this.gtidSet = new GtidSet(gtidSet);
+    }
+
+    /**
+     * 登记事务
+     *
+     * @param event
+     * @return 事务是否已执行
+     */
+    public boolean begin(GtidEvent event) {
+        final String uuid = GtidSet.toUuid(event.getSourceId());
+        final boolean executed;
+        synchronized (gtidSet) {
+            executed = gtidSet.contains(uuid, event.getTransactionId());
+        }
+        transactions.put(new Position(event), new Transaction(uuid, event.getTransactionId(), executed));
+        return executed;
+    }
+
+    /**
+     * @param event 行事件
+     * @return 所属事务是否已执行, 没有GTID的事务返回false
+     */
+    public boolean isExecuted(AbstractBinlogEventV4 event) {
+        final Map.Entry<Position, Transaction> entry = transactions.floorEntry(new Position(event));
+        return null != entry && entry.getValue().executed;
+    }
+
+    /**
+     * 提交事务
+     *
+     * @param event Xid事件
+     * @return 是否为新执行的事务, 已执行的事务返回false
+     */
+    public boolean commit(AbstractBinlogEventV4 event) {
+        final NavigableMap<Position, Transaction> head = transactions.headMap(new Position(event), true);
+        final Map.Entry<Position, Transaction> last = head.lastEntry();
+        synchronized (gtidSet) {
+            head.values().forEach(t -> gtidSet.add(t.uuid, t.transactionId));
+        }
+        head.clear();
+        return null == last || !last.getValue().executed;
+    }
+
+    public String getGtidSet() {
+        synchronized (gtidSet) {
+            return gtidSet.toString();
+        }
+    }
+
+    /**
+     * @return 集合a是否包含集合b的全部事务
+     */
+    public static boolean contains(String a, String b) {
+        return new GtidSet(b).isContainedWithin(new GtidSet(a));
+    }
+
+    /**
+     * @return 两个集合都已执行的事务
+     */
+    public static String intersect(String a, String b) {
+        return new GtidSet(a).intersect(new GtidSet(b)).toString();
+    }
+
+    static final class Position implements Comparable<Position> {
+        private final String fileName;
+        private final long position;
+
+        Position(AbstractBinlogEventV4 event) {
+            this.fileName = event.getBinlogFilename();
+            this.position = event.getHeader().getPosition();
+        }
+
+        @Override
+        public int compareTo(Position o) {
+            return MysqlBinlogHub.compare(fileName, position, o.fileName, o.position);
+        }
+    }
+
+    static final class Transaction {
+        private final String uuid;
+        private final long transactionId;
+        private final boolean executed;
+
+        Transaction(String uuid, long transactionId, boolean executed) {
+            this.uuid = uuid;
+            this.transactionId = transactionId;
+            this.executed = executed;
+        }
+    }
+
+}
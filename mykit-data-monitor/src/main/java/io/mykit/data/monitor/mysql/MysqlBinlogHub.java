@@ -0,0 +1,683 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.mysql;
+
+import io.mykit.data.monitor.config.Host;
+import io.mykit.data.monitor.config.ListenerConfig;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventListener;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4;
+import io.mykit.data.monitor.mysql.binlog.BinlogLocalClient;
+import io.mykit.data.monitor.mysql.binlog.BinlogParser;
+import io.mykit.data.monitor.mysql.binlog.BinlogParserListener;
+import io.mykit.data.monitor.mysql.binlog.BinlogRemoteClient;
+import io.mykit.data.monitor.mysql.binlog.impl.event.AbstractBinlogEventV4;
+import io.mykit.data.monitor.mysql.binlog.impl.event.GtidEvent;
+import io.mykit.data.monitor.mysql.binlog.impl.event.RotateEvent;
+import io.mykit.data.monitor.mysql.binlog.impl.event.XidEvent;
+import org.apache.commons.lang.RandomStringUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 同一MySQL数据源共享的binlog连接
+ * <p>多个驱动监听同一个数据源时只建立一个复制连接, 解码一次后分发给所有订阅者:
+ * <ol>
+ * <li>从所有订阅者中最早的断点开始读取, 订阅者都有GTID断点时按GTID集合的交集定位</li>
+ * <li>每个订阅者维护自己的断点, 跳过已处理的事件</li>
+ * <li>新订阅者的断点早于当前读取位置时, 从最早的断点重新读取</li>
+ * <li>最后一个订阅者退出时关闭连接</li>
+ * </ol>
+ * <p>连接断开或长时间收不到心跳时按指数退避自动重连, 从订阅者已提交的断点继续;
+ * 连接失败时切换到下一个节点, 开启GTID时按GTID集合定位, 否则无法换算位置, 从新节点的当前位置开始.
+ * <p>配置了本地binlog目录且断点所在文件之后还有文件时, 先按内存映射读取本地文件追赶, 读完后从订阅者的断点切换到复制连接.
+ * <p>解码线程数和本地binlog目录由连接共享, 取第一个订阅者的配置, 后续订阅者的配置不同时忽略.
+ * <p>每个订阅者有独立的有界队列和分发线程, 读取线程只负责入队, 一个订阅者处理慢时不影响其他订阅者,
+ * 直到它的队列写满: 此时读取线程等待该订阅者(不丢弃事件), 同一数据源的所有订阅者随之暂停.
+ */
+public final class MysqlBinlogHub {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final Map<String, MysqlBinlogHub> HUBS = new HashMap<>();
+
+    // 重连和心跳检查
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mysql-binlog-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // 心跳间隔(秒), 超过3个间隔没有收到任何事件视为连接已失效
+    private static final float HEARTBEAT_PERIOD = 10f;
+    private static final long MAX_IDLE = TimeUnit.SECONDS.toMillis(3 * (long) HEARTBEAT_PERIOD);
+
+    // 重连间隔(毫秒), 每次失败翻倍
+    private static final long RETRY_MIN = 1000L;
+    private static final long RETRY_MAX = 60000L;
+
+    // 每个订阅者待处理的事件数, 吸收单个订阅者的短时阻塞
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final String key;
+    private final List<Host> cluster;
+    private final String username;
+    private final String password;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // 订阅者的分发队列
+    private final Map<Subscriber, Channel> channels = new ConcurrentHashMap<>();
+    private BinlogRemoteClient client;
+    // 本地文件追赶, 与复制连接不会同时存在
+    private BinlogLocalClient local;
+    // 第一个订阅者的配置
+    private ListenerConfig config;
+
+    // 当前连接的节点
+    private int master = 0;
+    // 当前位置所属的节点, 未开启GTID时切换节点后文件名和位置不可用
+    private int origin = 0;
+    private int retries = 0;
+    private ScheduledFuture<?> reconnecting;
+    private ScheduledFuture<?> watchdog;
+
+    // 当前读取到的位置(最后一个事务结束或切换文件的位置)
+    private volatile String binlogFileName;
+    private volatile long binlogPosition;
+    // 当前读取到的GTID集合, 未开启GTID时为null
+    private volatile GtidTracker gtidTracker;
+    // 最后一个事务的提交时间
+    private volatile long timestamp;
+
+    /**
+     * 订阅者, 按自己的断点接收事件
+     * <p>事件在该订阅者独立的分发线程中按读取顺序回调, 不与其他订阅者并发; 回调阻塞超过队列容量时会暂停共享连接的读取
+     */
+    public interface Subscriber extends BinlogEventListener {
+
+        String getBinlogFileName();
+
+        long getBinlogPosition();
+
+        String getGtidSet();
+
+        /**
+         * @return 没有断点时从该时间开始读取(毫秒), 0表示从主库当前位置开始
+         */
+        long getStartTimestamp();
+
+        /**
+         * 订阅时没有断点, 从共享连接当前位置开始
+         */
+        void setBinlogPosition(String binlogFileName, long binlogPosition, String gtidSet);
+    }
+
+    private MysqlBinlogHub(String key, List<Host> cluster, String username, String password) {
+        this.key = key;
+        this.cluster = cluster;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * @param cluster 数据源节点, 第一个为主库, 其余节点在主库不可用时依次切换
+     */
+    public static MysqlBinlogHub getInstance(List<Host> cluster, String username, String password) {
+        final StringBuilder key = new StringBuilder();
+        cluster.forEach(host -> key.append(host.getIp()).append(":").append(host.getPort()).append(","));
+        key.append(username);
+        synchronized (HUBS) {
+            return HUBS.computeIfAbsent(key.toString(), k -> new MysqlBinlogHub(k, cluster, username, password));
+        }
+    }
+
+    /**
+     * 比较binlog位置
+     *
+     * @return 负数: 位置1在前, 0: 相同, 正数: 位置1在后
+     */
+    public static int compare(String fileName1, long position1, String fileName2, long position2) {
+        if (!StringUtils.equals(fileName1, fileName2)) {
+            // mysql-bin.000009 < mysql-bin.000010, 序号位数可能增长, 按数字比较
+            long index1 = NumberUtils.toLong(StringUtils.substringAfterLast(fileName1, "."), -1);
+            long index2 = NumberUtils.toLong(StringUtils.substringAfterLast(fileName2, "."), -1);
+            int r = index1 != index2 ? Long.compare(index1, index2) : StringUtils.defaultString(fileName1).compareTo(StringUtils.defaultString(fileName2));
+            if (0 != r) {
+                return r;
+            }
+        }
+        return Long.compare(position1, position2);
+    }
+
+    public synchronized void subscribe(Subscriber subscriber, ListenerConfig config) throws Exception {
+        if (subscribers.isEmpty()) {
+            this.config = config;
+        } else if (isDifferent(config)) {
+            logger.warn("数据源[{}]的共享连接已按解码线程数[{}], 本地binlog目录[{}], NIO[{}]启动, 忽略订阅者的配置[{}], [{}], [{}]", key,
+                    this.config.getDecodeThreads(), this.config.getBinlogPath(), this.config.isNioTransport(),
+                    config.getDecodeThreads(), config.getBinlogPath(), config.isNioTransport());
+        }
+        // 指定了起始时间, 先换算为binlog位置
+        if (isBlank(subscriber) && 0 < subscriber.getStartTimestamp()) {
+            final BinlogRemoteClient c = seek(subscriber.getStartTimestamp());
+            subscriber.setBinlogPosition(c.getBinlogFileName(), c.getBinlogPosition(), null);
+        }
+        if (null == client && null == local) {
+            // 可能刚被最后一个订阅者关闭, 重新登记
+            synchronized (HUBS) {
+                HUBS.putIfAbsent(key, this);
+            }
+            attach(subscriber);
+            // 正在等待重连时立即连接, 依次尝试所有节点
+            cancel();
+            Exception error = null;
+            for (int i = 0; i < cluster.size(); i++) {
+                try {
+                    start();
+                    return;
+                } catch (Exception e) {
+                    error = e;
+                    logger.error("连接[{}:{}]失败:{}", getHost().getIp(), getHost().getPort(), e.getMessage());
+                    master = (master + 1) % cluster.size();
+                }
+            }
+            detach(subscriber);
+            // 其他订阅者仍在等待重连
+            if (!subscribers.isEmpty()) {
+                retry();
+            }
+            throw error;
+        }
+
+        if (isBlank(subscriber)) {
+            subscriber.setBinlogPosition(binlogFileName, binlogPosition, getGtidSet());
+            attach(subscriber);
+            return;
+        }
+
+        attach(subscriber);
+        // 断点早于当前读取位置, 重新读取(其他订阅者会跳过已处理的事件)
+        if (isBehind(subscriber)) {
+            logger.info("订阅者断点[{}:{}]早于当前位置[{}:{}], 重新读取", subscriber.getBinlogFileName(), subscriber.getBinlogPosition(),
+                    binlogFileName, binlogPosition);
+            stop();
+            try {
+                start();
+            } catch (Exception e) {
+                logger.error("连接[{}:{}]失败:{}", getHost().getIp(), getHost().getPort(), e.getMessage());
+                master = (master + 1) % cluster.size();
+                retry();
+            }
+        }
+    }
+
+    private boolean isDifferent(ListenerConfig config) {
+        return this.config.getDecodeThreads() != config.getDecodeThreads()
+                || this.config.isNioTransport() != config.isNioTransport()
+                || !StringUtils.equals(this.config.getBinlogPath(), config.getBinlogPath());
+    }
+
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        detach(subscriber);
+        if (!subscribers.isEmpty()) {
+            return;
+        }
+        cancel();
+        stop();
+        synchronized (HUBS) {
+            HUBS.remove(key);
+        }
+    }
+
+    private void attach(Subscriber subscriber) {
+        channels.put(subscriber, new Channel(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    private void detach(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        final Channel channel = channels.remove(subscriber);
+        if (null != channel) {
+            channel.close();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private Host getHost() {
+        return cluster.get(master);
+    }
+
+    private String getGtidSet() {
+        final GtidTracker tracker = gtidTracker;
+        return null == tracker ? null : tracker.getGtidSet();
+    }
+
+    private boolean isBlank(Subscriber s) {
+        return StringUtils.isBlank(s.getBinlogFileName()) && StringUtils.isBlank(s.getGtidSet());
+    }
+
+    private boolean isBehind(Subscriber s) {
+        final String gtidSet = getGtidSet();
+        if (StringUtils.isNotBlank(gtidSet) && StringUtils.isNotBlank(s.getGtidSet())) {
+            return !GtidTracker.contains(s.getGtidSet(), gtidSet);
+        }
+        return compare(s.getBinlogFileName(), s.getBinlogPosition(), binlogFileName, binlogPosition) < 0;
+    }
+
+    private void start() throws Exception {
+        start(true);
+    }
+
+    /**
+     * @param catchUp 是否允许先读取本地文件, 本地追赶结束后切换到复制连接时为false
+     */
+    private void start(boolean catchUp) throws Exception {
+        // 从最早的断点开始, 没有断点时从主库当前位置开始
+        String fileName = null;
+        long position = 0;
+        // 订阅者都有GTID断点时取交集, 主从切换后也能从准确的位置继续
+        String gtidSet = null;
+        boolean gtidMode = true;
+        boolean hasPosition = false;
+        for (Subscriber s : subscribers) {
+            if (isBlank(s)) {
+                continue;
+            }
+            hasPosition = true;
+            if (StringUtils.isBlank(s.getGtidSet())) {
+                gtidMode = false;
+            } else {
+                gtidSet = null == gtidSet ? s.getGtidSet() : GtidTracker.intersect(gtidSet, s.getGtidSet());
+            }
+            if (StringUtils.isBlank(s.getBinlogFileName())) {
+                continue;
+            }
+            if (null == fileName || compare(s.getBinlogFileName(), s.getBinlogPosition(), fileName, position) < 0) {
+                fileName = s.getBinlogFileName();
+                position = s.getBinlogPosition();
+            }
+        }
+        if (!gtidMode || StringUtils.isBlank(gtidSet)) {
+            gtidSet = null;
+        }
+        // 切换节点后文件名和位置不可换算, 从新节点的当前位置开始
+        final boolean reset = hasPosition && null == gtidSet && origin != master;
+        if (reset) {
+            logger.warn("切换到节点[{}:{}], 未开启GTID无法换算断点[{}:{}], 按最后提交时间[{}]定位", getHost().getIp(), getHost().getPort(),
+                    fileName, position, timestamp);
+            fileName = null;
+            position = 0;
+            if (0 < timestamp) {
+                final BinlogRemoteClient c = seek(timestamp);
+                fileName = c.getBinlogFileName();
+                position = c.getBinlogPosition();
+            }
+        }
+
+        if (catchUp && !reset && catchUp(fileName, position, gtidSet)) {
+            return;
+        }
+
+        // mysql-binlog-127.0.0.1:3306-654321
+        final Host host = getHost();
+        final String threadSuffixName = new StringBuilder("mysql-binlog-")
+                .append(host.getIp()).append(":").append(host.getPort()).append("-")
+                .append(RandomStringUtils.randomNumeric(6))
+                .toString();
+
+        final BinlogRemoteClient c = new BinlogRemoteClient(host.getIp(), host.getPort(), username, password, threadSuffixName);
+        c.setBinlogFileName(null == gtidSet ? fileName : null);
+        c.setBinlogPosition(position);
+        c.setGtidSet(gtidSet);
+        c.setDecodeThreads(config.getDecodeThreads());
+        c.setNioTransport(config.isNioTransport());
+        c.setHeartbeatPeriod(HEARTBEAT_PERIOD);
+        c.setBinlogEventListener(new HubEventListener());
+        // 解析线程异常退出时重连, 主动关闭的连接已不是当前连接, 重连时忽略
+        c.setBinlogParserListener(new BinlogParserListener.Adapter() {
+            @Override
+            public void onStop(BinlogParser parser) {
+                scheduleReconnect(c);
+            }
+
+            @Override
+            public void onException(BinlogParser parser, Exception exception) {
+                logger.error("binlog连接[{}:{}]异常:{}", host.getIp(), host.getPort(), exception.getMessage());
+            }
+        });
+        binlogFileName = fileName;
+        binlogPosition = position;
+        gtidTracker = null == gtidSet ? null : new GtidTracker(gtidSet);
+        try {
+            c.start();
+        } catch (Exception e) {
+            try {
+                c.stopQuietly();
+            } catch (Exception ex) {
+                logger.error("关闭失败:{}", ex.getMessage());
+            }
+            throw e;
+        }
+        client = c;
+        origin = master;
+        retries = 0;
+        binlogFileName = c.getBinlogFileName();
+        binlogPosition = c.getBinlogPosition();
+        // 从主库当前位置开始时记录对应的GTID集合
+        if (null == gtidTracker && null == fileName && StringUtils.isNotBlank(c.getGtidSet())) {
+            gtidTracker = new GtidTracker(c.getGtidSet());
+        }
+
+        // 没有断点或断点无法换算的订阅者从实际开始的位置读取
+        for (Subscriber s : subscribers) {
+            if (reset || isBlank(s)) {
+                s.setBinlogPosition(binlogFileName, binlogPosition, getGtidSet());
+            }
+        }
+        if (null == watchdog) {
+            watchdog = SCHEDULER.scheduleWithFixedDelay(this::check, MAX_IDLE, MAX_IDLE, TimeUnit.MILLISECONDS);
+        }
+        logger.info("启动共享binlog连接[{}:{}], 位置[{}:{}], GTID[{}], 订阅数:{}", host.getIp(), host.getPort(), binlogFileName, binlogPosition,
+                getGtidSet(), subscribers.size());
+    }
+
+    /**
+     * 断点所在文件及之后的文件已拷贝到本地目录时, 按内存映射读取本地文件, 比复制连接更快追上主库
+     *
+     * @return 是否已开始读取本地文件
+     */
+    private boolean catchUp(String fileName, long position, String gtidSet) {
+        final String path = null == config ? null : config.getBinlogPath();
+        if (StringUtils.isBlank(path) || StringUtils.isBlank(fileName) || !new File(path, fileName).isFile()) {
+            return false;
+        }
+        // 断点已在最后一个文件中, 没有落后整个文件, 直接使用复制连接
+        final String prefix = StringUtils.substringBeforeLast(fileName, ".") + ".";
+        final String[] files = new File(path).list((dir, name) -> name.startsWith(prefix) && compare(name, 0, fileName, 0) > 0);
+        if (null == files || 0 == files.length) {
+            return false;
+        }
+
+        final BinlogLocalClient c = new BinlogLocalClient();
+        c.setBinlogFilePath(path);
+        c.setBinlogFileName(fileName);
+        c.setStartPosition(Math.max(4, position));
+        c.setFollowRotate(true);
+        c.setThreadSuffixName("mysql-binlog-local-" + RandomStringUtils.randomNumeric(6));
+        c.setBinlogEventListener(new HubEventListener());
+        c.addBinlogParserListener(new BinlogParserListener.Adapter() {
+            @Override
+            public void onStop(BinlogParser parser) {
+                SCHEDULER.execute(() -> handoff(c));
+            }
+
+            @Override
+            public void onException(BinlogParser parser, Exception exception) {
+                logger.error("读取本地binlog[{}]异常:{}", path, exception.getMessage());
+            }
+        });
+        binlogFileName = fileName;
+        binlogPosition = position;
+        gtidTracker = null == gtidSet ? null : new GtidTracker(gtidSet);
+        try {
+            c.start();
+        } catch (Exception e) {
+            logger.error("读取本地binlog[{}]失败:{}", path, e.getMessage());
+            return false;
+        }
+        local = c;
+        if (null == watchdog) {
+            watchdog = SCHEDULER.scheduleWithFixedDelay(this::check, MAX_IDLE, MAX_IDLE, TimeUnit.MILLISECONDS);
+        }
+        logger.info("读取本地binlog[{}], 位置[{}:{}], 之后还有{}个文件, 订阅数:{}", path, fileName, position, files.length, subscribers.size());
+        return true;
+    }
+
+    /**
+     * 本地文件读取结束, 从订阅者的断点切换到复制连接
+     *
+     * @param done 已结束的本地读取, 不是当前读取时忽略
+     */
+    private synchronized void handoff(BinlogLocalClient done) {
+        if (local != done) {
+            return;
+        }
+        local = null;
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        logger.info("本地binlog读取结束, 位置[{}:{}], 切换到复制连接", binlogFileName, binlogPosition);
+        try {
+            start(false);
+        } catch (Exception e) {
+            logger.error("连接[{}:{}]失败:{}", getHost().getIp(), getHost().getPort(), e.getMessage());
+            master = (master + 1) % cluster.size();
+            retry();
+        }
+    }
+
+    /**
+     * 按时间定位当前节点的binlog位置
+     *
+     * @param timestamp 毫秒
+     * @return 定位到的文件和位置
+     */
+    private BinlogRemoteClient seek(long timestamp) throws Exception {
+        final Host host = getHost();
+        final BinlogRemoteClient c = new BinlogRemoteClient(host.getIp(), host.getPort(), username, password, null);
+        c.seek(timestamp);
+        return c;
+    }
+
+    private void stop() {
+        if (null != local) {
+            final BinlogLocalClient c = local;
+            local = null;
+            try {
+                c.stop(1, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error("关闭失败:{}", e.getMessage());
+            }
+        }
+        if (null != client) {
+            final BinlogRemoteClient c = client;
+            client = null;
+            try {
+                c.stopQuietly();
+            } catch (Exception e) {
+                logger.error("关闭失败:{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 连接断开后重连
+     *
+     * @param dead 已断开的连接, 不是当前连接时忽略
+     */
+    private void scheduleReconnect(BinlogRemoteClient dead) {
+        SCHEDULER.execute(() -> reconnect(dead));
+    }
+
+    /**
+     * @param dead 已断开的连接, 为null表示等待重连
+     */
+    private synchronized void reconnect(BinlogRemoteClient dead) {
+        if (client != dead || null != local || subscribers.isEmpty()) {
+            return;
+        }
+        if (null != dead) {
+            logger.warn("binlog连接[{}:{}]已断开, 位置[{}:{}], GTID[{}]", getHost().getIp(), getHost().getPort(), binlogFileName, binlogPosition,
+                    getGtidSet());
+            stop();
+            retry();
+            return;
+        }
+
+        reconnecting = null;
+        try {
+            start();
+        } catch (Exception e) {
+            // 连接失败时切换到下一个节点
+            logger.error("连接[{}:{}]失败:{}", getHost().getIp(), getHost().getPort(), e.getMessage());
+            master = (master + 1) % cluster.size();
+            retry();
+        }
+    }
+
+    /**
+     * 按指数退避等待重连, 从订阅者已提交的断点继续
+     */
+    private void retry() {
+        if (null != reconnecting) {
+            reconnecting.cancel(false);
+        }
+        final long delay = Math.min(RETRY_MAX, RETRY_MIN << Math.min(retries++, 16));
+        logger.info("{}ms后重连[{}:{}]", delay, getHost().getIp(), getHost().getPort());
+        reconnecting = SCHEDULER.schedule(() -> reconnect(null), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 心跳检查, 网络中断时socket可能不会报错, 超时没有收到事件则重连
+     */
+    private synchronized void check() {
+        final BinlogRemoteClient c = client;
+        if (null == c) {
+            return;
+        }
+        final Long idle = c.millisSinceLastEvent();
+        if (null != idle && idle > MAX_IDLE) {
+            logger.warn("binlog连接[{}:{}]{}ms未收到心跳", getHost().getIp(), getHost().getPort(), idle);
+            reconnect(c);
+        }
+    }
+
+    private void cancel() {
+        if (null != reconnecting) {
+            reconnecting.cancel(false);
+            reconnecting = null;
+        }
+        if (subscribers.isEmpty() && null != watchdog) {
+            watchdog.cancel(false);
+            watchdog = null;
+        }
+    }
+
+    final class HubEventListener implements BinlogEventListener {
+
+        @Override
+        public void onEvents(BinlogEventV4 event) {
+            final GtidTracker tracker = gtidTracker;
+            if (null != tracker) {
+                if (event instanceof GtidEvent) {
+                    tracker.begin((GtidEvent) event);
+                } else if (event instanceof XidEvent) {
+                    tracker.commit((XidEvent) event);
+                }
+            }
+            if (event instanceof XidEvent || event instanceof RotateEvent) {
+                AbstractBinlogEventV4 e = (AbstractBinlogEventV4) event;
+                if (event instanceof XidEvent) {
+                    timestamp = e.getHeader().getTimestamp();
+                }
+                if (StringUtils.isNotBlank(e.getBinlogFilename())) {
+                    binlogFileName = e.getBinlogFilename();
+                }
+                binlogPosition = e.getHeader().getNextPosition();
+            }
+
+            for (Channel c : channels.values()) {
+                try {
+                    c.put(event);
+                } catch (InterruptedException e) {
+                    // 连接正在关闭
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 订阅者的有界队列, 在独立线程中按顺序回调订阅者
+     */
+    final class Channel implements Runnable {
+
+        private final Subscriber subscriber;
+        private final BlockingQueue<BinlogEventV4> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean closed;
+
+        Channel(Subscriber subscriber) {
+            this.subscriber = subscriber;
+            Thread t = new Thread(this, "mysql-binlog-dispatch-" + RandomStringUtils.randomNumeric(6));
+            t.setDaemon(true);
+            t.start();
+        }
+
+        /**
+         * 队列满时等待, 订阅者退出后丢弃
+         */
+        void put(BinlogEventV4 event) throws InterruptedException {
+            boolean full = false;
+            while (!closed && !queue.offer(event, 1, TimeUnit.SECONDS)) {
+                if (!full) {
+                    full = true;
+                    logger.warn("数据源[{}]的订阅者处理过慢, 分发队列已满({}), 暂停读取", key, QUEUE_CAPACITY);
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                try {
+                    final BinlogEventV4 event = queue.poll(1, TimeUnit.SECONDS);
+                    if (null != event && !closed) {
+                        subscriber.onEvents(event);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.error("分发binlog事件失败:{}", e.getMessage());
+                }
+            }
+        }
+    }
+
+}
@@ -15,25 +15,29 @@
  */
 package io.mykit.data.monitor.mysql;
 
+import io.mykit.data.common.event.Event;
+import io.mykit.data.common.utils.CollectionUtils;
+import io.mykit.data.common.utils.DateFormatUtils;
 import io.mykit.data.connector.config.DatabaseConfig;
 import io.mykit.data.connector.constants.ConnectorConstants;
+import io.mykit.data.connector.utils.JDBCUtils;
 import io.mykit.data.monitor.AbstractExtractor;
 import io.mykit.data.monitor.config.Host;
 import io.mykit.data.monitor.exception.ListenerException;
-import io.mykit.data.monitor.mysql.binlog.BinlogEventListener;
 import io.mykit.data.monitor.mysql.binlog.BinlogEventV4;
-import io.mykit.data.monitor.mysql.binlog.BinlogRemoteClient;
 import io.mykit.data.monitor.mysql.binlog.impl.event.*;
 import io.mykit.data.monitor.mysql.common.glossary.Column;
 import io.mykit.data.monitor.mysql.common.glossary.Pair;
 import io.mykit.data.monitor.mysql.common.glossary.Row;
+import io.mykit.data.monitor.mysql.common.glossary.column.BitColumn;
 import io.mykit.data.monitor.mysql.common.glossary.column.StringColumn;
-import org.apache.commons.lang.RandomStringUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.util.*;
 import java.util.regex.Matcher;
 
@@ -50,9 +54,23 @@ public class MysqlExtractor extends AbstractExtractor {
 
     private static final String BINLOG_FILENAME = "fileName";
     private static final String BINLOG_POSITION = "position";
-    private BinlogRemoteClient client;
+    private static final String BINLOG_GTID_SET = "gtidSet";
+    private static final String BINLOG_SCHEMA = "schema";
+    private MysqlBinlogHub hub;
+    private final MysqlEventListener eventListener = new MysqlEventListener();
     private List<Host> cluster;
-    private int master = 0;
+
+    // 当前驱动已处理的位置, 同一数据源的其他驱动共享连接但各自维护断点
+    private volatile String binlogFileName;
+    private volatile long binlogPosition;
+    // 已执行的GTID集合, 主库未开启GTID时为null
+    private volatile GtidTracker gtidTracker;
+    // 没有断点时的起始时间
+    private long startTimestamp;
+    // 数据源的库名, 只跟踪该库的表结构变更
+    private String database;
+    // 表结构版本
+    private SchemaHistory schemaHistory;
 
     @Override
     public void start() {
@@ -61,21 +79,27 @@ public class MysqlExtractor extends AbstractExtractor {
             cluster = readNodes(config.getUrl());
             Assert.notEmpty(cluster, "Mysql连接地址有误.");
 
-            final Host host = cluster.get(master);
-            final String username = config.getUsername();
-            final String password = config.getPassword();
-            // mysql-binlog-127.0.0.1:3306-654321
-            final String threadSuffixName = new StringBuilder("mysql-binlog-")
-                    .append(host.getIp()).append(":").append(host.getPort()).append("-")
-                    .append(RandomStringUtils.randomNumeric(6))
-                    .toString();
-
-            client = new BinlogRemoteClient(host.getIp(), host.getPort(), username, password, threadSuffixName);
-            client.setBinlogFileName(map.get(BINLOG_FILENAME));
+            binlogFileName = map.get(BINLOG_FILENAME);
             String pos = map.get(BINLOG_POSITION);
-            client.setBinlogPosition(StringUtils.isBlank(pos) ? 0 : Long.parseLong(pos));
-            client.setBinlogEventListener(new MysqlEventListener());
-            client.start();
+            binlogPosition = StringUtils.isBlank(pos) ? 0 : Long.parseLong(pos);
+            String gtidSet = map.get(BINLOG_GTID_SET);
+            gtidTracker = StringUtils.isBlank(gtidSet) ? null : new GtidTracker(gtidSet);
+            String startTime = listenerConfig.getStartTime();
+            startTimestamp = StringUtils.isBlank(startTime) ? 0 : DateFormatUtils.stringToTimestamp(startTime);
+
+            // 按断点所在的表结构版本解析行事件
+            database = readDatabase(config.getUrl());
+            schemaHistory = new SchemaHistory(map.get(BINLOG_SCHEMA));
+            for (String tableName : schemaHistory.getTables()) {
+                List<String> columns = schemaHistory.get(tableName, binlogFileName, binlogPosition);
+                if (!CollectionUtils.isEmpty(columns)) {
+                    changedSchemaEvent(tableName, columns);
+                }
+            }
+
+            // 同一数据源共享binlog连接, 断开后自动重连并在节点间切换
+            hub = MysqlBinlogHub.getInstance(cluster, config.getUsername(), config.getPassword());
+            hub.subscribe(eventListener, listenerConfig);
         } catch (Exception e) {
             logger.error("启动失败:{}", e.getMessage());
             throw new ListenerException(e);
@@ -85,8 +109,9 @@ public class MysqlExtractor extends AbstractExtractor {
     @Override
     public void close() {
         try {
-            if (null != client) {
-                client.stopQuietly();
+            if (null != hub) {
+                hub.unsubscribe(eventListener);
+                hub = null;
             }
         } catch (Exception e) {
             logger.error("关闭失败:{}", e.getMessage());
@@ -116,28 +141,202 @@ public class MysqlExtractor extends AbstractExtractor {
         return cluster;
     }
 
+    private String readDatabase(String url) {
+        // jdbc:mysql://127.0.0.1:3306,127.0.0.1:3307/test?useUnicode=true
+        String path = StringUtils.substringAfter(StringUtils.substringAfter(url, "//"), "/");
+        return StringUtils.substringBefore(path, "?");
+    }
+
+    /**
+     * 处理表结构变更, 记录新版本并通知监听器按新的字段解析之后的行事件
+     *
+     * @param event
+     */
+    private void changedSchema(QueryEvent event) {
+        final DdlParser ddl = DdlParser.parse(event.getSql().toString());
+        if (null == ddl) {
+            return;
+        }
+        final String defaultDatabase = null == event.getDatabaseName() ? null : event.getDatabaseName().toString();
+        final String fileName = StringUtils.isBlank(event.getBinlogFilename()) ? binlogFileName : event.getBinlogFilename();
+        final long position = event.getHeader().getNextPosition();
+        for (String[] t : ddl.getTables()) {
+            if (!isCurrentDatabase(t[0], defaultDatabase)) {
+                continue;
+            }
+            switch (ddl.getType()) {
+                case DROP:
+                    record(t[1], fileName, position, Collections.EMPTY_LIST);
+                    break;
+                case RENAME:
+                    List<String> renamed = schemaHistory.getBefore(t[1], fileName, position);
+                    record(t[1], fileName, position, Collections.EMPTY_LIST);
+                    if (isCurrentDatabase(t[2], defaultDatabase)) {
+                        changed(t[3], fileName, position, renamed);
+                    }
+                    break;
+                default:
+                    final String[] newName = ddl.getNewName();
+                    List<String> before = schemaHistory.getBefore(t[1], fileName, position);
+                    List<String> columns = ddl.apply(before);
+                    if (null != newName) {
+                        record(t[1], fileName, position, Collections.EMPTY_LIST);
+                        if (isCurrentDatabase(newName[0], defaultDatabase)) {
+                            changed(newName[1], fileName, position, columns);
+                        }
+                        break;
+                    }
+                    changed(t[1], fileName, position, columns);
+            }
+        }
+    }
+
+    /**
+     * @param columns 解析出的字段, 为null时读取数据源当前的表结构
+     */
+    private void changed(String tableName, String fileName, long position, List<String> columns) {
+        // 重复读取同一个DDL时沿用已记录的版本
+        List<String> recorded = schemaHistory.getExact(tableName, fileName, position);
+        if (null != recorded) {
+            columns = recorded;
+        } else if (null == columns) {
+            columns = readColumns(tableName);
+        }
+        if (CollectionUtils.isEmpty(columns)) {
+            logger.warn("无法确定表[{}]的字段, 位置[{}:{}]", tableName, fileName, position);
+            return;
+        }
+        final List<String> before = schemaHistory.getBefore(tableName, fileName, position);
+        record(tableName, fileName, position, columns);
+        if (!columns.equals(before)) {
+            logger.info("表结构变更[{}], 位置[{}:{}], 字段:{}", tableName, fileName, position, columns);
+            changedSchemaEvent(tableName, columns);
+        }
+    }
+
+    private void record(String tableName, String fileName, long position, List<String> columns) {
+        schemaHistory.put(tableName, fileName, position, columns);
+        synchronized (map) {
+            map.put(BINLOG_SCHEMA, schemaHistory.toJson(binlogFileName, binlogPosition));
+        }
+    }
+
+    private boolean isCurrentDatabase(String schema, String defaultDatabase) {
+        final String db = StringUtils.isBlank(schema) ? defaultDatabase : schema;
+        return StringUtils.isBlank(database) || StringUtils.equalsIgnoreCase(database, db);
+    }
+
+    /**
+     * 读取数据源当前的表结构
+     */
+    private List<String> readColumns(String tableName) {
+        final DatabaseConfig config = (DatabaseConfig) connectorConfig;
+        final List<String> columns = new ArrayList<>();
+        Connection conn = null;
+        try {
+            conn = JDBCUtils.getConnection(config.getDriverClassName(), config.getUrl(), config.getUsername(), config.getPassword());
+            try (ResultSet rs = conn.getMetaData().getColumns(conn.getCatalog(), null, tableName, null)) {
+                while (rs.next()) {
+                    // 表名中的下划线会被当作通配符
+                    if (StringUtils.equals(tableName, rs.getString("TABLE_NAME"))) {
+                        columns.add(rs.getString("COLUMN_NAME"));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("读取表结构失败:{}, {}", tableName, e.getMessage());
+        } finally {
+            JDBCUtils.close(conn);
+        }
+        return columns;
+    }
+
     /**
      * 有变化触发刷新binlog增量事件
      *
      * @param event
      */
     private void refresh(AbstractBinlogEventV4 event) {
-        String binlogFilename = event.getBinlogFilename();
-        long nextPosition = event.getHeader().getNextPosition();
+        refresh(event.getBinlogFilename(), event.getHeader().getNextPosition());
+    }
+
+    /**
+     * 切换binlog, 记录新文件的起始位置
+     *
+     * @param event
+     */
+    private void refresh(RotateEvent event) {
+        refresh(event.getBinlogFileName().toString(), event.getBinlogPosition());
+    }
 
-        // binlogFileName
-        if (StringUtils.isNotBlank(binlogFilename) && !StringUtils.equals(binlogFilename, client.getBinlogFileName())) {
-            client.setBinlogFileName(binlogFilename);
+    private void refresh(String fileName, long position) {
+        if (StringUtils.isBlank(fileName)) {
+            fileName = binlogFileName;
         }
-        client.setBinlogPosition(nextPosition);
+        // 共享连接可能从更早的位置重新读取, 断点只前进不后退; 按GTID定位时主从切换后文件名不可比较, 由GTID跳过已处理的事务
+        final GtidTracker tracker = gtidTracker;
+        if (null == tracker && StringUtils.isNotBlank(binlogFileName) && MysqlBinlogHub.compare(fileName, position, binlogFileName, binlogPosition) <= 0) {
+            return;
+        }
+        binlogFileName = fileName;
+        binlogPosition = position;
+
+        // nextPosition, 文件名、位置和GTID需同时更新, 避免断点落盘时读到一半
+        synchronized (map) {
+            map.put(BINLOG_FILENAME, binlogFileName);
+            map.put(BINLOG_POSITION, String.valueOf(binlogPosition));
+            if (null != tracker) {
+                map.put(BINLOG_GTID_SET, tracker.getGtidSet());
+            }
+        }
+    }
 
-        // nextPosition
-        map.put(BINLOG_FILENAME, client.getBinlogFileName());
-        map.put(BINLOG_POSITION, String.valueOf(client.getBinlogPosition()));
+    /**
+     * 事件是否已处理(位于断点之前)
+     *
+     * @param event
+     * @return
+     */
+    private boolean isApplied(AbstractBinlogEventV4 event) {
+        final GtidTracker tracker = gtidTracker;
+        if (null != tracker) {
+            return tracker.isExecuted(event);
+        }
+        return StringUtils.isNotBlank(binlogFileName) && StringUtils.isNotBlank(event.getBinlogFilename())
+                && MysqlBinlogHub.compare(event.getBinlogFilename(), event.getHeader().getNextPosition(), binlogFileName, binlogPosition) <= 0;
     }
 
-    final class MysqlEventListener implements BinlogEventListener {
+    final class MysqlEventListener implements MysqlBinlogHub.Subscriber {
+
+        @Override
+        public String getBinlogFileName() {
+            return binlogFileName;
+        }
+
+        @Override
+        public long getBinlogPosition() {
+            return binlogPosition;
+        }
 
+        @Override
+        public String getGtidSet() {
+            final GtidTracker tracker = gtidTracker;
+            return null == tracker ? null : tracker.getGtidSet();
+        }
+
+        @Override
+        public long getStartTimestamp() {
+            return startTimestamp;
+        }
+
+        @Override
+        public void setBinlogPosition(String fileName, long position, String gtidSet) {
+            binlogFileName = fileName;
+            binlogPosition = position;
+            gtidTracker = StringUtils.isBlank(gtidSet) ? null : new GtidTracker(gtidSet);
+        }
+
+        // 事件在共享连接为该订阅者分配的分发线程中按顺序处理
         private Map<Long, String> table = new HashMap<>();
 
         @Override
@@ -147,12 +346,48 @@ public class MysqlExtractor extends AbstractExtractor {
                 return;
             }
 
+            // 处理事件优先级：RotateEvent > FormatDescriptionEvent > GtidEvent > TableMapEvent > RowsEvent > XidEvent
             if (event instanceof TableMapEvent) {
                 TableMapEvent tableEvent = (TableMapEvent) event;
                 table.putIfAbsent(tableEvent.getTableId(), tableEvent.getTableName().toString());
                 return;
             }
 
+            // 切换binlog
+            if (event instanceof RotateEvent) {
+                refresh((RotateEvent) event);
+                return;
+            }
+
+            // 登记事务, 按读取顺序分发
+            if (event instanceof GtidEvent) {
+                final GtidTracker tracker = gtidTracker;
+                if (null != tracker) {
+                    tracker.begin((GtidEvent) event);
+                }
+                return;
+            }
+
+            // 事务提交, 已执行的事务不刷新断点
+            if (event instanceof XidEvent) {
+                final GtidTracker tracker = gtidTracker;
+                if (null != tracker ? tracker.commit((XidEvent) event) : !isApplied((XidEvent) event)) {
+                    refresh((XidEvent) event);
+                }
+                return;
+            }
+
+            // 跳过断点之前的事件
+            if (event instanceof AbstractBinlogEventV4 && isApplied((AbstractBinlogEventV4) event)) {
+                return;
+            }
+
+            // 表结构变更, 通知完成后才处理之后的行事件
+            if (event instanceof QueryEvent) {
+                changedSchema((QueryEvent) event);
+                return;
+            }
+
             if (event instanceof UpdateRowsEventV2) {
                 UpdateRowsEventV2 e = (UpdateRowsEventV2) event;
                 final String tableName = table.get(e.getTableId());
@@ -160,10 +395,9 @@ public class MysqlExtractor extends AbstractExtractor {
                 for (Pair<Row> p : rows) {
                     List<Object> before = new ArrayList<>();
                     List<Object> after = new ArrayList<>();
-                    addAll(before, p.getBefore().getColumns());
-                    addAll(after, p.getAfter().getColumns());
+                    addAll(before, p.getBefore().getColumns(), e.getUsedColumnsBefore());
+                    addAll(after, p.getAfter().getColumns(), e.getUsedColumnsAfter());
                     changedLogEvent(tableName, ConnectorConstants.OPERTION_UPDATE, before, after);
-                    break;
                 }
                 return;
             }
@@ -174,9 +408,8 @@ public class MysqlExtractor extends AbstractExtractor {
                 List<Row> rows = e.getRows();
                 for (Row row : rows) {
                     List<Object> after = new ArrayList<>();
-                    addAll(after, row.getColumns());
+                    addAll(after, row.getColumns(), e.getUsedColumns());
                     changedLogEvent(tableName, ConnectorConstants.OPERTION_INSERT, Collections.EMPTY_LIST, after);
-                    break;
                 }
                 return;
             }
@@ -187,29 +420,37 @@ public class MysqlExtractor extends AbstractExtractor {
                 List<Row> rows = e.getRows();
                 for (Row row : rows) {
                     List<Object> before = new ArrayList<>();
-                    addAll(before, row.getColumns());
+                    addAll(before, row.getColumns(), e.getUsedColumns());
                     changedLogEvent(tableName, ConnectorConstants.OPERTION_DELETE, before, Collections.EMPTY_LIST);
-                    break;
                 }
                 return;
             }
 
-            // 处理事件优先级：RotateEvent > FormatDescriptionEvent > TableMapEvent > RowsEvent > XidEvent
-            if (event instanceof XidEvent) {
-                refresh((XidEvent) event);
-                return;
-            }
+        }
 
-            // 切换binlog
-            if (event instanceof RotateEvent) {
-                refresh((RotateEvent) event);
+        /**
+         * 按列位图还原整行, 日志未记录的列(binlog_row_image=MINIMAL/NOBLOB)填充{@link Event#MISSING}
+         */
+        private void addAll(List<Object> values, List<Column> columns, BitColumn usedColumns) {
+            if (usedColumns.getSetBitCount() == usedColumns.getLength()) {
+                columns.forEach(c -> values.add(getValue(c)));
                 return;
             }
-
+            int index = 0;
+            for (int i = 0; i < usedColumns.getLength(); i++) {
+                values.add(usedColumns.get(i) ? getValue(columns.get(index++)) : Event.MISSING);
+            }
         }
 
-        private void addAll(List<Object> before, List<Column> columns) {
-            columns.forEach(c -> before.add((c instanceof StringColumn) ? c.toString() : c.getValue()));
+        /**
+         * 字符列延迟解码(StringColumn按列字符集在读取时才解码), 二进制列直接传递原始字节
+         */
+        private Object getValue(Column c) {
+            if (c instanceof StringColumn) {
+                StringColumn s = (StringColumn) c;
+                return s.isBinary() ? s.getValue() : s;
+            }
+            return null == c ? null : c.getValue();
         }
 
     }
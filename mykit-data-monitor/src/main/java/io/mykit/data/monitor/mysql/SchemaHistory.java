@@ -0,0 +1,146 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.mysql;
+
+import io.mykit.data.common.utils.JsonUtils;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 表结构版本
+ * <p>按binlog位置记录每次DDL后的字段, 与增量点一起保存:
+ * <ol>
+ * <li>从增量点重新读取时, 按增量点所在的版本解析行事件</li>
+ * <li>重复读取同一个DDL时沿用已记录的版本</li>
+ * <li>保存时只保留增量点所在的版本及之后的版本</li>
+ * </ol>
+ */
+public final class SchemaHistory {
+
+    // <表名, <DDL结束位置, 字段>>
+    private final Map<String, NavigableMap<Position, List<String>>> tables = new LinkedHashMap<>();
+
+    public SchemaHistory() {
+    }
+
+    /**
+     * @param json {@link #toJson(String, long)}的结果
+     */
+    public SchemaHistory(String json) {
+        if (StringUtils.isBlank(json)) {
+            return;
+        }
+        final Map<String, List<Map<String, Object>>> map = JsonUtils.jsonToObj(json, Map.class);
+        if (null == map) {
+            return;
+        }
+        map.forEach((table, versions) -> versions.forEach(v -> put(table, (String) v.get("fileName"),
+                ((Number) v.get("position")).longValue(), (List<String>) v.get("columns"))));
+    }
+
+    /**
+     * @return 位置之前(含)最后一个版本, 没有记录时返回null
+     */
+    public synchronized List<String> get(String table, String fileName, long position) {
+        final NavigableMap<Position, List<String>> versions = tables.get(table);
+        if (null == versions) {
+            return null;
+        }
+        final Map.Entry<Position, List<String>> e = versions.floorEntry(new Position(fileName, position));
+        return null == e ? null : e.getValue();
+    }
+
+    /**
+     * @return 位置之前(不含)最后一个版本, 没有记录时返回null
+     */
+    public synchronized List<String> getBefore(String table, String fileName, long position) {
+        final NavigableMap<Position, List<String>> versions = tables.get(table);
+        if (null == versions) {
+            return null;
+        }
+        final Map.Entry<Position, List<String>> e = versions.lowerEntry(new Position(fileName, position));
+        return null == e ? null : e.getValue();
+    }
+
+    /**
+     * @return 该位置记录的版本, 没有记录时返回null
+     */
+    public synchronized List<String> getExact(String table, String fileName, long position) {
+        final NavigableMap<Position, List<String>> versions = tables.get(table);
+        return null == versions ? null : versions.get(new Position(fileName, position));
+    }
+
+    /**
+     * @param columns 删除表时为空
+     */
+    public synchronized void put(String table, String fileName, long position, List<String> columns) {
+        tables.computeIfAbsent(table, k -> new TreeMap<>()).put(new Position(fileName, position), columns);
+    }
+
+    public synchronized List<String> getTables() {
+        return new ArrayList<>(tables.keySet());
+    }
+
+    /**
+     * 序列化, 丢弃增量点所在版本之前的版本
+     *
+     * @param fileName 增量点
+     * @param position 增量点
+     */
+    public synchronized String toJson(String fileName, long position) {
+        final Position checkpoint = new Position(fileName, position);
+        final Map<String, List<Map<String, Object>>> map = new LinkedHashMap<>();
+        tables.forEach((table, versions) -> {
+            final Position floor = versions.floorKey(checkpoint);
+            final List<Map<String, Object>> list = new ArrayList<>();
+            versions.tailMap(null == floor ? checkpoint : floor, true).forEach((p, columns) -> {
+                final Map<String, Object> v = new LinkedHashMap<>();
+                v.put("fileName", p.fileName);
+                v.put("position", p.position);
+                v.put("columns", columns);
+                list.add(v);
+            });
+            if (!list.isEmpty()) {
+                map.put(table, list);
+            }
+        });
+        return JsonUtils.objToJson(map);
+    }
+
+    static final class Position implements Comparable<Position> {
+        private final String fileName;
+        private final long position;
+
+        Position(String fileName, long position) {
+            this.fileName = fileName;
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(Position o) {
+            return MysqlBinlogHub.compare(fileName, position, o.fileName, o.position);
+        }
+    }
+
+}
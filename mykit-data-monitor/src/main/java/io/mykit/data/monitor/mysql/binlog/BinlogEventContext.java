@@ -0,0 +1,18 @@
+package io.mykit.data.monitor.mysql.binlog;
+
+
+import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
+
+/**
+ * The part of the parser context an event parser only reads, row events are decoded against it off the
+ * reader thread.
+ */
+public interface BinlogEventContext {
+    boolean getChecksumEnabled();
+
+    String getBinlogFileName();
+
+    BinlogEventListener getEventListener();
+
+    TableMapEvent getTableMapEvent(long tableId);
+}
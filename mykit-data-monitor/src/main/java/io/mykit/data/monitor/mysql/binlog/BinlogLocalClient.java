@@ -4,6 +4,9 @@ package io.mykit.data.monitor.mysql.binlog;
 import io.mykit.data.monitor.mysql.binlog.impl.FileBasedBinlogParser;
 import io.mykit.data.monitor.mysql.binlog.impl.parser.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -12,6 +15,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <ol type="1">
  * <li><dt>binlog文件解析器</dt></li>
  * <dd>监听本地binlog文件增量数据</dd>
+ * <li><dt>追赶模式</dt></li>
+ * <dd>按RotateEvent连续读取目录中拷贝或保留的binlog文件, 读完后由调用方从断点切换到{@link BinlogRemoteClient}</dd>
  * </ol>
  */
 public class BinlogLocalClient {
@@ -19,9 +24,11 @@ public class BinlogLocalClient {
     protected long startPosition;
     protected String binlogFileName;
     protected String binlogFilePath;
+    protected boolean followRotate;
 
     protected BinlogParser binlogParser;
     protected BinlogEventListener binlogEventListener;
+    protected final List<BinlogParserListener> binlogParserListeners = new CopyOnWriteArrayList<BinlogParserListener>();
     protected final AtomicBoolean running = new AtomicBoolean(false);
     protected String threadSuffixName = "binlog-parser";
 
@@ -36,7 +43,22 @@ public class BinlogLocalClient {
 
         if (this.binlogParser == null) this.binlogParser = getDefaultBinlogParser();
         this.binlogParser.setEventListener(this.binlogEventListener);
-        this.binlogParser.start(threadSuffixName);
+        final List<BinlogParserListener> listeners = new ArrayList<BinlogParserListener>();
+        // the parser stops by itself at the end of the last file
+        listeners.add(new BinlogParserListener.Adapter() {
+            @Override
+            public void onStop(BinlogParser parser) {
+                running.set(false);
+            }
+        });
+        listeners.addAll(this.binlogParserListeners);
+        this.binlogParser.setParserListeners(listeners);
+        try {
+            this.binlogParser.start(threadSuffixName);
+        } catch (Exception e) {
+            this.running.set(false);
+            throw e;
+        }
     }
 
     public void stop(long timeout, TimeUnit unit) throws Exception {
@@ -79,6 +101,14 @@ public class BinlogLocalClient {
         this.binlogFilePath = path;
     }
 
+    public boolean isFollowRotate() {
+        return followRotate;
+    }
+
+    public void setFollowRotate(boolean followRotate) {
+        this.followRotate = followRotate;
+    }
+
     public BinlogParser getBinlogParser() {
         return binlogParser;
     }
@@ -95,6 +125,10 @@ public class BinlogLocalClient {
         this.binlogEventListener = listener;
     }
 
+    public void addBinlogParserListener(BinlogParserListener listener) {
+        this.binlogParserListeners.add(listener);
+    }
+
     public void setThreadSuffixName(String threadSuffixName) {
         this.threadSuffixName = threadSuffixName;
     }
@@ -118,11 +152,13 @@ public class BinlogLocalClient {
         r.registerEventParser(new DeleteRowsEventV2Parser());
         r.registerEventParser(new FormatDescriptionEventParser());
         r.registerEventParser(new GtidEventParser());
+        r.registerEventParser(new TransactionPayloadEventParser());
 
         r.setStopPosition(this.stopPosition);
         r.setStartPosition(this.startPosition);
         r.setBinlogFileName(this.binlogFileName);
         r.setBinlogFilePath(this.binlogFilePath);
+        r.setFollowRotate(this.followRotate);
         return r;
     }
 }
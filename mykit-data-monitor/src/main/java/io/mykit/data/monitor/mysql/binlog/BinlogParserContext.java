@@ -1,17 +1,16 @@
 package io.mykit.data.monitor.mysql.binlog;
 
 
-import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
+import io.mykit.data.monitor.mysql.io.XInputStream;
 
-public interface BinlogParserContext {
-    boolean getChecksumEnabled();
-
-    void setChecksumEnabled(boolean flag);
+import java.io.IOException;
 
+public interface BinlogParserContext extends BinlogEventContext {
 
-    String getBinlogFileName();
-
-    BinlogEventListener getEventListener();
+    void setChecksumEnabled(boolean flag);
 
-    TableMapEvent getTableMapEvent(long tableId);
+    /**
+     * Parses an event with the registered parsers, e.g. the events embedded in a transaction payload.
+     */
+    void parse(XInputStream is, BinlogEventV4Header header) throws IOException;
 }
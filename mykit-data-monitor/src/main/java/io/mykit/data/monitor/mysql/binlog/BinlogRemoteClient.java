@@ -2,21 +2,31 @@ package io.mykit.data.monitor.mysql.binlog;
 
 
 import io.mykit.data.monitor.mysql.binlog.impl.ReplicationBasedBinlogParser;
+import io.mykit.data.monitor.mysql.binlog.impl.event.BinlogEventV4HeaderImpl;
 import io.mykit.data.monitor.mysql.binlog.impl.parser.*;
+import io.mykit.data.monitor.mysql.common.glossary.GtidSet;
 import io.mykit.data.monitor.mysql.common.glossary.column.StringColumn;
+import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
 import io.mykit.data.monitor.mysql.io.impl.SocketFactoryImpl;
 import io.mykit.data.monitor.mysql.net.Packet;
 import io.mykit.data.monitor.mysql.net.Transport;
 import io.mykit.data.monitor.mysql.net.TransportException;
+import io.mykit.data.monitor.mysql.net.TransportInputStream;
 import io.mykit.data.monitor.mysql.net.impl.AuthenticatorImpl;
+import io.mykit.data.monitor.mysql.net.impl.ChannelTransportImpl;
 import io.mykit.data.monitor.mysql.net.impl.Query;
 import io.mykit.data.monitor.mysql.net.impl.TransportImpl;
+import io.mykit.data.monitor.mysql.net.impl.packet.EOFPacket;
 import io.mykit.data.monitor.mysql.net.impl.packet.ErrorPacket;
+import io.mykit.data.monitor.mysql.net.impl.packet.command.ComBinlogDumpGtidPacket;
 import io.mykit.data.monitor.mysql.net.impl.packet.command.ComBinlogDumpPacket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.UUID;
@@ -45,6 +55,9 @@ public class BinlogRemoteClient {
     protected String encoding = "utf-8";
     protected String binlogFileName;
     protected long binlogPosition = 4;
+    // 已执行的GTID集合, 启动前设置时按GTID定位(COM_BINLOG_DUMP_GTID), 否则记录起始位置对应的集合
+    protected String gtidSet;
+    protected boolean checksumEnabled;
 
     protected Float heartbeatPeriod;
     protected Transport transport;
@@ -59,6 +72,10 @@ public class BinlogRemoteClient {
     protected int level1BufferSize = 1024 * 1024;
     protected int level2BufferSize = 8 * 1024 * 1024;
     protected int socketReceiveBufferSize = 512 * 1024;
+    // 是否使用NIO通信管道(SocketChannel + 直接内存缓冲区), 默认false使用Socket流
+    protected boolean nioTransport = false;
+    // 行事件解码线程数(按表ID分区, 保证同表顺序), 0表示在读取线程中解码
+    protected int decodeThreads = 0;
     protected final AtomicBoolean running = new AtomicBoolean(false);
 
     public BinlogRemoteClient() {
@@ -96,6 +113,7 @@ public class BinlogRemoteClient {
         }
         this.binlogParser.setTransport(this.transport);
         this.binlogParser.setBinlogFileName(this.binlogFileName);
+        this.binlogParser.setDecodeThreads(this.decodeThreads);
         this.binlogParser.setEventListener(this.binlogEventListener);
         this.binlogParserListener.add(new BinlogParserListener.Adapter() {
             @Override
@@ -111,19 +129,187 @@ public class BinlogRemoteClient {
         binlogParserListener = null;
 
         // 4、检查连接数据库的基本信息
+        final boolean gtidMode = this.gtidSet != null && this.gtidSet.length() > 0;
         final Query query = new Query(this.transport);
-        setupFilenameAndPosition(query);
+        if (!gtidMode) {
+            setupFilenameAndPosition(query);
+        }
         //防止第一次设置binlog文件名称时，this.binlogFileName为空导致的Bug
         this.binlogParser.setBinlogFileName(this.binlogFileName);
         setupChecksumState(query);
         setupHeartbeatPeriod(query);
         setupSlaveUUID(query);
-        dumpBinlog();
+        if (gtidMode) {
+            dumpBinlogGtid();
+            this.binlogParser.setBinlogFileName(this.binlogFileName);
+        } else {
+            dumpBinlog();
+        }
 
         // 5、启动解析器
         this.binlogParser.start(threadSuffixName);
     }
 
+    /**
+     * 按时间定位起始位置, 不启动复制, 定位后通过{@link #getBinlogFileName()}和{@link #getBinlogPosition()}获取:
+     * <ol type="1">
+     * <li>按SHOW BINARY LOGS列出的文件, 以每个文件首个事件的时间二分查找所在文件</li>
+     * <li>从文件头开始读取事件头并跳过事件体, 找到时间不早于timestamp的第一个事务的起始位置</li>
+     * </ol>
+     * 复制协议只能从事件边界开始读取, 文件内无法随机定位, 因此文件内按顺序扫描; 每次探测使用独立连接, 读取结束后断开.
+     *
+     * @param timestamp 毫秒
+     */
+    public void seek(long timestamp) throws Exception {
+        final List<List<String>> logs;
+        final Transport t = getDefaultTransport();
+        t.connect(this.host, this.port);
+        try {
+            logs = new Query(t).getAll("show binary logs");
+        } finally {
+            t.disconnect();
+        }
+        if (logs.isEmpty()) {
+            throw new IllegalStateException("binary log is disabled");
+        }
+
+        // 最后一个首个事件时间不晚于timestamp的文件, 都晚于timestamp时从最早的文件开始
+        int index = 0;
+        int low = 0;
+        int high = logs.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (getFirstTimestamp(logs.get(mid).get(0)) <= timestamp) {
+                index = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        this.binlogFileName = logs.get(index).get(0);
+        this.binlogPosition = scan(this.binlogFileName, timestamp);
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info(String.format("seek binlog by timestamp %d, found %s:%d", timestamp, this.binlogFileName, this.binlogPosition));
+        }
+    }
+
+    /**
+     * @return 文件的创建时间(首个FORMAT_DESCRIPTION_EVENT的时间)
+     */
+    private long getFirstTimestamp(String fileName) throws Exception {
+        final Transport t = dump(fileName);
+        try {
+            BinlogEventV4HeaderImpl header;
+            while (null != (header = readHeader(t.getInputStream()))) {
+                if (header.getEventType() == MySQLConstants.FORMAT_DESCRIPTION_EVENT) {
+                    return header.getTimestamp();
+                }
+            }
+            return Long.MAX_VALUE;
+        } finally {
+            t.disconnect();
+        }
+    }
+
+    /**
+     * @return 文件中时间不早于timestamp的第一个事务的起始位置, 没有时返回文件结束位置
+     */
+    private long scan(String fileName, long timestamp) throws Exception {
+        final Transport t = dump(fileName);
+        try {
+            // 事务边界: GTID事件的起始位置和Xid事件的结束位置
+            long boundary = 4;
+            BinlogEventV4HeaderImpl header;
+            while (null != (header = readHeader(t.getInputStream()))) {
+                final int type = header.getEventType();
+                if ((header.getFlags() & MySQLConstants.LOG_EVENT_ARTIFICIAL_F) != 0 || type == MySQLConstants.FORMAT_DESCRIPTION_EVENT
+                        || type == MySQLConstants.PREVIOUS_GTIDS_LOG_EVENT) {
+                    continue;
+                }
+                // 文件结束, 从ROTATE_EVENT开始读取会切换到下一个文件
+                if (type == MySQLConstants.ROTATE_EVENT) {
+                    return header.getPosition();
+                }
+                if (type == MySQLConstants.GTID_LOG_EVENT || type == MySQLConstants.ANONYMOUS_GTID_LOG_EVENT) {
+                    boundary = header.getPosition();
+                }
+                if (header.getTimestamp() >= timestamp) {
+                    return boundary;
+                }
+                // 压缩的事务整体作为一个事件
+                if (type == MySQLConstants.XID_EVENT || type == MySQLConstants.TRANSACTION_PAYLOAD_EVENT) {
+                    boundary = header.getNextPosition();
+                }
+            }
+            return boundary;
+        } finally {
+            t.disconnect();
+        }
+    }
+
+    /**
+     * 建立探测连接, 从文件头开始读取, 读到最后一个事件后返回EOF而不是等待新事件
+     */
+    private Transport dump(String fileName) throws Exception {
+        final Transport t = getDefaultTransport();
+        t.connect(this.host, this.port);
+        try {
+            final Query query = new Query(t);
+            setupChecksumState(query);
+            // 独立的复制标识, 避免主库断开正在复制的同名连接
+            query.getFirst("SET @slave_uuid = '" + UUID.randomUUID().toString() + "'");
+
+            final ComBinlogDumpPacket command = new ComBinlogDumpPacket();
+            command.setBinlogFlag(MySQLConstants.BINLOG_DUMP_NON_BLOCK);
+            command.setServerId(this.serverId);
+            command.setBinlogPosition(4);
+            command.setBinlogFileName(StringColumn.valueOf(fileName.getBytes(this.encoding)));
+            t.getOutputStream().writePacket(command);
+            t.getOutputStream().flush();
+        } catch (Exception e) {
+            t.disconnect();
+            throw e;
+        }
+        return t;
+    }
+
+    /**
+     * 只读取事件头, 跳过事件体和校验和
+     *
+     * @return 读到EOF时返回null
+     */
+    private BinlogEventV4HeaderImpl readHeader(TransportInputStream is) throws IOException {
+        final int marker = is.readInt(1);
+        if ((byte) marker == EOFPacket.PACKET_MARKER) {
+            return null;
+        }
+        if ((byte) marker == ErrorPacket.PACKET_MARKER) {
+            throw new TransportException(ErrorPacket.valueOf(is.currentPacketLength(), is.currentPacketSequence(), marker, is));
+        }
+
+        final BinlogEventV4HeaderImpl header = new BinlogEventV4HeaderImpl();
+        header.setTimestamp(is.readLong(4) * 1000L);
+        header.setEventType(is.readInt(1));
+        header.setServerId(is.readLong(4));
+        header.setEventLength(is.readLong(4));
+        header.setNextPosition(is.readLong(4));
+        header.setFlags(is.readInt(2));
+
+        // 大事件可能跨多个包
+        long left = header.getEventLength() - header.getHeaderLength();
+        while (left > 0) {
+            final int n = (int) Math.min(left, is.available());
+            if (n > 0) {
+                is.skip(n);
+                left -= n;
+            } else {
+                is.read();
+                left--;
+            }
+        }
+        return header;
+    }
+
     public void stop(long timeout, TimeUnit unit) throws Exception {
         if (!this.running.compareAndSet(true, false)) {
             return;
@@ -147,15 +333,14 @@ public class BinlogRemoteClient {
     }
 
     private Transport getDefaultTransport() throws Exception {
+        if (this.nioTransport) {
+            return getChannelTransport();
+        }
+
         final TransportImpl r = new TransportImpl();
         r.setLevel1BufferSize(this.level1BufferSize);
         r.setLevel2BufferSize(this.level2BufferSize);
-
-        final AuthenticatorImpl authenticator = new AuthenticatorImpl();
-        authenticator.setUser(this.user);
-        authenticator.setPassword(this.password);
-        authenticator.setEncoding(this.encoding);
-        r.setAuthenticator(authenticator);
+        r.setAuthenticator(getAuthenticator());
 
         final SocketFactoryImpl socketFactory = new SocketFactoryImpl();
         socketFactory.setKeepAlive(true);
@@ -165,12 +350,34 @@ public class BinlogRemoteClient {
         return r;
     }
 
+    private Transport getChannelTransport() {
+        final ChannelTransportImpl r = new ChannelTransportImpl();
+        r.setLevel1BufferSize(this.level1BufferSize);
+        r.setKeepAlive(true);
+        r.setTcpNoDelay(false);
+        r.setReceiveBufferSize(this.socketReceiveBufferSize);
+        r.setAuthenticator(getAuthenticator());
+        return r;
+    }
+
+    private AuthenticatorImpl getAuthenticator() {
+        final AuthenticatorImpl authenticator = new AuthenticatorImpl();
+        authenticator.setUser(this.user);
+        authenticator.setPassword(this.password);
+        authenticator.setEncoding(this.encoding);
+        return authenticator;
+    }
+
     private void setupFilenameAndPosition(Query query) throws Exception {
         if (null == binlogFileName) {
             try {
                 List<String> cols = query.getFirst("show master status");
                 binlogFileName = cols.get(0);
                 binlogPosition = Long.parseLong(cols.get(1));
+                // Executed_Gtid_Set, mysql 5.6+
+                if (cols.size() > 4 && cols.get(4) != null) {
+                    gtidSet = cols.get(4).replace("\n", "");
+                }
             } catch (TransportException e) {
                 // ignore no-such-variable errors on mysql 5.5
                 if (e.getErrorCode() != 1193)
@@ -189,6 +396,7 @@ public class BinlogRemoteClient {
         try {
             List<String> cols = query.getFirst("SELECT @@global.binlog_checksum");
 
+            this.checksumEnabled = cols != null && "CRC32".equals(cols.get(0));
             if (cols != null && cols.get(0).equals("CRC32") || cols.get(0).equals("NONE")) {
                 query.getFirst("SET @master_binlog_checksum = @@global.binlog_checksum");
             }
@@ -231,15 +439,46 @@ public class BinlogRemoteClient {
         }
     }
 
+    private void dumpBinlogGtid() throws Exception {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("starting replication after gtid set %s", this.gtidSet));
+        }
+        final ComBinlogDumpGtidPacket command = new ComBinlogDumpGtidPacket();
+        command.setServerId(this.serverId);
+        command.setBinlogPosition(4);
+        command.setGtidSet(new GtidSet(this.gtidSet));
+        this.transport.getOutputStream().writePacket(command);
+        this.transport.getOutputStream().flush();
+
+        final Packet packet = this.transport.getInputStream().readPacket();
+        final byte[] body = packet.getPacketBody();
+        if (body[0] == ErrorPacket.PACKET_MARKER) {
+            final ErrorPacket error = ErrorPacket.valueOf(packet);
+            throw new TransportException(error);
+        }
+
+        // the first event is a fake ROTATE_EVENT carrying the binlog the master starts from
+        if (body.length > 28 && (body[5] & 0xFF) == MySQLConstants.ROTATE_EVENT) {
+            final ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+            final int eventLength = buffer.getInt(10);
+            final int length = eventLength - 19 - 8 - (this.checksumEnabled ? 4 : 0);
+            this.binlogPosition = buffer.getLong(20);
+            this.binlogFileName = new String(body, 28, Math.min(length, body.length - 28), this.encoding);
+        }
+    }
+
     private ReplicationBasedBinlogParser getSimpleBinlogParser() throws Exception {
         final ReplicationBasedBinlogParser r = new ReplicationBasedBinlogParser(stopOnEOF, threadSuffixName);
         r.registerEventParser(new RotateEventParser());
         r.registerEventParser(new FormatDescriptionEventParser());
         r.registerEventParser(new XidEventParser());
         r.registerEventParser(new TableMapEventParser());
+        r.registerEventParser(new QueryEventParser());
         r.registerEventParser(new WriteRowsEventV2Parser().setRowEventFilter(filter));
         r.registerEventParser(new UpdateRowsEventV2Parser().setRowEventFilter(filter));
         r.registerEventParser(new DeleteRowsEventV2Parser().setRowEventFilter(filter));
+        r.registerEventParser(new GtidEventParser());
+        r.registerEventParser(new TransactionPayloadEventParser());
         return r;
     }
 
@@ -248,13 +487,11 @@ public class BinlogRemoteClient {
         r.registerEventParser(new StopEventParser());
         r.registerEventParser(new IntvarEventParser());
         r.registerEventParser(new RandEventParser());
-        r.registerEventParser(new QueryEventParser());
         r.registerEventParser(new UserVarEventParser());
         r.registerEventParser(new IncidentEventParser());
         r.registerEventParser(new WriteRowsEventParser());
         r.registerEventParser(new UpdateRowsEventParser());
         r.registerEventParser(new DeleteRowsEventParser());
-        r.registerEventParser(new GtidEventParser());
         return r;
     }
 
@@ -320,6 +557,16 @@ public class BinlogRemoteClient {
     }
 
 
+    public String getGtidSet() {
+        return gtidSet;
+    }
+
+
+    public void setGtidSet(String gtidSet) {
+        this.gtidSet = gtidSet;
+    }
+
+
     public int getLevel1BufferSize() {
         return level1BufferSize;
     }
@@ -350,6 +597,26 @@ public class BinlogRemoteClient {
     }
 
 
+    public boolean isNioTransport() {
+        return nioTransport;
+    }
+
+
+    public void setNioTransport(boolean nioTransport) {
+        this.nioTransport = nioTransport;
+    }
+
+
+    public int getDecodeThreads() {
+        return decodeThreads;
+    }
+
+
+    public void setDecodeThreads(int decodeThreads) {
+        this.decodeThreads = decodeThreads;
+    }
+
+
     public Transport getTransport() {
         return transport;
     }
@@ -5,5 +5,5 @@ import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 
 public interface BinlogRowEventFilter {
 
-    boolean accepts(BinlogEventV4Header header, BinlogParserContext context, TableMapEvent event);
+    boolean accepts(BinlogEventV4Header header, BinlogEventContext context, TableMapEvent event);
 }
@@ -6,10 +6,12 @@ import io.mykit.data.monitor.mysql.binlog.impl.event.RotateEvent;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import io.mykit.data.monitor.mysql.binlog.impl.parser.NopEventParser;
 import io.mykit.data.monitor.mysql.common.util.XThreadFactory;
+import io.mykit.data.monitor.mysql.io.XInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -249,6 +251,13 @@ public abstract class AbstractBinlogParser implements BinlogParser {
             return this.tableMapEvents.get(tableId);
         }
 
+        public void parse(XInputStream is, BinlogEventV4Header header) throws IOException {
+            BinlogEventParser parser = getEventParser(header.getEventType());
+            if (parser == null)
+                parser = defaultParser;
+            parser.parse(is, header, this);
+        }
+
         public void onEvents(BinlogEventV4 event) {
             if (event == null) {
                 return;
@@ -263,6 +272,10 @@ public abstract class AbstractBinlogParser implements BinlogParser {
                 if (isClearTableMapEventsOnRotate()) this.tableMapEvents.clear();
             }
 
+            dispatch(event);
+        }
+
+        protected void dispatch(BinlogEventV4 event) {
             try {
                 AbstractBinlogParser.this.eventListener.onEvents(event);
             } catch (Exception e) {
@@ -0,0 +1,92 @@
+package io.mykit.data.monitor.mysql.binlog.impl;
+
+
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Orders the completion of binlog events which are applied out of order by the decoder workers.
+ * Every event read from the stream takes a sequence number; a barrier event (XID, ROTATE ...)
+ * is only delivered once all the events before it have completed, so a checkpoint taken from
+ * a barrier never runs ahead of the applied rows.
+ */
+public class BinlogEventSequencer {
+    private long sequence;
+    private long watermark;
+    private final Set<Long> completed = new HashSet<Long>();
+    private final ArrayDeque<Barrier> barriers = new ArrayDeque<Barrier>();
+
+    public interface Delivery {
+        void deliver(BinlogEventV4 event);
+    }
+
+    public synchronized long next() {
+        return ++this.sequence;
+    }
+
+    /**
+     * Marks an event as applied, delivering the barriers it was holding back.
+     */
+    public synchronized void complete(long sequence) {
+        this.completed.add(sequence);
+        advance();
+    }
+
+    /**
+     * Delivers the event once all the events issued before it have completed; if that is already
+     * the case the event is delivered by the calling thread.
+     */
+    public synchronized void barrier(BinlogEventV4 event, Delivery delivery) {
+        this.barriers.add(new Barrier(next(), event, delivery));
+        advance();
+    }
+
+    /**
+     * @return the number of issued events which have not completed yet
+     */
+    public synchronized long getPending() {
+        return this.sequence - this.watermark;
+    }
+
+    public synchronized void reset() {
+        this.sequence = 0;
+        this.watermark = 0;
+        this.completed.clear();
+        this.barriers.clear();
+    }
+
+    // deliveries happen under the lock so barriers reach the listener one at a time and in order
+    private void advance() {
+        while (true) {
+            final long next = this.watermark + 1;
+            if (this.completed.remove(next)) {
+                this.watermark = next;
+                continue;
+            }
+
+            final Barrier barrier = this.barriers.peek();
+            if (barrier != null && barrier.sequence == next) {
+                this.barriers.poll();
+                barrier.delivery.deliver(barrier.event);
+                this.watermark = next;
+                continue;
+            }
+            return;
+        }
+    }
+
+    private static final class Barrier {
+        private final long sequence;
+        private final BinlogEventV4 event;
+        private final Delivery delivery;
+
+        private Barrier(long sequence, BinlogEventV4 event, Delivery delivery) {
+            this.sequence = sequence;
+            this.event = event;
+            this.delivery = delivery;
+        }
+    }
+}
@@ -10,12 +10,13 @@ import io.mykit.data.monitor.mysql.common.util.IOUtils;
 import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
 import io.mykit.data.monitor.mysql.io.XInputStream;
 import io.mykit.data.monitor.mysql.io.impl.XInputStreamImpl;
-import io.mykit.data.monitor.mysql.io.util.RamdomAccessFileInputStream;
+import io.mykit.data.monitor.mysql.io.util.MappedFileInputStream;
 import io.mykit.data.monitor.mysql.net.impl.EventInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
 
 public class FileBasedBinlogParser extends AbstractBinlogParser {
@@ -26,6 +27,7 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
     protected String binlogFilePath;
     protected long stopPosition = 0;
     protected long startPosition = 4;
+    protected boolean followRotate = false;
 
     public FileBasedBinlogParser() {
     }
@@ -64,6 +66,17 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
         this.stopPosition = stopPosition;
     }
 
+    public boolean isFollowRotate() {
+        return followRotate;
+    }
+
+    /**
+     * @param followRotate at the end of a file, continue with the next local file named by its ROTATE_EVENT
+     */
+    public void setFollowRotate(boolean followRotate) {
+        this.followRotate = followRotate;
+    }
+
     public long getStartPosition() {
         return startPosition;
     }
@@ -75,11 +88,19 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
     @Override
     protected void doParse() throws Exception {
         final Context context = new Context(this);
-        final EventInputStream es = new EventInputStream(is);
+        EventInputStream es = new EventInputStream(is);
 
         es.setChecksumEnabled(findChecksumEnabled());
 
-        while (isRunning() && is.available() > 0) {
+        while (isRunning()) {
+            if (is.available() <= 0) {
+                if (!this.followRotate || !rotate(context.getBinlogFileName())) {
+                    break;
+                }
+                es = new EventInputStream(is);
+                es.setChecksumEnabled(findChecksumEnabled());
+            }
+
             final BinlogEventV4HeaderImpl header = es.getNextBinlogHeader();
             try {
                 if (isVerbose() && LOGGER.isInfoEnabled()) {
@@ -109,6 +130,23 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
         }
     }
 
+    /**
+     * Switch to the file a ROTATE_EVENT pointed to, if it has been copied to the binlog directory
+     */
+    private boolean rotate(String nextFileName) throws Exception {
+        if (nextFileName == null || nextFileName.equals(this.binlogFileName)
+                || !new File(this.binlogFilePath, nextFileName).isFile()) {
+            return false;
+        }
+
+        LOGGER.info("rotate to local binlog file: {}", nextFileName);
+        IOUtils.closeQuietly(this.is);
+        this.binlogFileName = nextFileName;
+        this.stopPosition = 0;
+        this.is = open(this.binlogFilePath + "/" + this.binlogFileName, 4L);
+        return true;
+    }
+
     @SuppressWarnings("resource")
     private boolean findChecksumEnabled() throws Exception {
         final XInputStream is = open(this.binlogFilePath + "/" + this.binlogFileName, 4L);
@@ -134,7 +172,7 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
     }
 
     protected XInputStream open(String path, Long offset) throws Exception {
-        final XInputStream is = new XInputStreamImpl(new RamdomAccessFileInputStream(new File(path)));
+        final XInputStream is = newInputStream(new File(path));
         try {
             // Check binlog magic
             final byte[] magic = is.readBytes(MySQLConstants.BINLOG_MAGIC.length);
@@ -151,4 +189,11 @@ public class FileBasedBinlogParser extends AbstractBinlogParser {
             throw e;
         }
     }
+
+    /**
+     * @return the stream the events of a local binlog file are decoded from
+     */
+    protected XInputStream newInputStream(File file) throws IOException {
+        return new XInputStreamImpl(new MappedFileInputStream(file));
+    }
 }
@@ -0,0 +1,238 @@
+package io.mykit.data.monitor.mysql.binlog.impl;
+
+
+import io.mykit.data.monitor.mysql.binlog.BinlogEventContext;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventListener;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
+import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
+import io.mykit.data.monitor.mysql.binlog.impl.parser.AbstractRowEventParser;
+import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
+import io.mykit.data.monitor.mysql.common.util.XThreadFactory;
+import io.mykit.data.monitor.mysql.io.impl.XInputStreamImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes row events off the reader thread. The reader only frames events and copies the row event
+ * bodies, which are then decoded and dispatched by a fixed set of workers; events are partitioned by
+ * table id so the rows of a table keep the binlog order. Every other event goes through the
+ * {@link BinlogEventSequencer} and is delivered after all the events read before it were applied.
+ * A row event which fails to decode stops all the workers without completing, so nothing after it is
+ * delivered; the failure is handed to the reader on its next call, or to the failure handler.
+ */
+public class ParallelBinlogEventDecoder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelBinlogEventDecoder.class);
+
+    private final Worker[] workers;
+    private final BinlogEventSequencer sequencer = new BinlogEventSequencer();
+    private final FailureHandler failureHandler;
+    private volatile Exception failure;
+
+    public interface FailureHandler {
+        void onFailure(Exception exception);
+    }
+
+    public ParallelBinlogEventDecoder(String name, int threads, int queueSize) {
+        this(name, threads, queueSize, null);
+    }
+
+    /**
+     * @param failureHandler notified once when a row event fails to decode, e.g. to wake up a reader
+     *                       blocked on an idle stream
+     */
+    public ParallelBinlogEventDecoder(String name, int threads, int queueSize, FailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+        final XThreadFactory factory = new XThreadFactory(name, true);
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            this.workers[i] = new Worker(queueSize);
+            this.workers[i].thread = factory.newThread(this.workers[i]);
+        }
+    }
+
+    public static boolean isRowEvent(int eventType) {
+        switch (eventType) {
+            case MySQLConstants.WRITE_ROWS_EVENT:
+            case MySQLConstants.UPDATE_ROWS_EVENT:
+            case MySQLConstants.DELETE_ROWS_EVENT:
+            case MySQLConstants.WRITE_ROWS_EVENT_V2:
+            case MySQLConstants.UPDATE_ROWS_EVENT_V2:
+            case MySQLConstants.DELETE_ROWS_EVENT_V2:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void start() {
+        for (Worker worker : this.workers) {
+            worker.thread.start();
+        }
+    }
+
+    public void stop() {
+        for (Worker worker : this.workers) {
+            worker.running = false;
+            worker.thread.interrupt();
+        }
+        this.sequencer.reset();
+    }
+
+    /**
+     * Queues a row event body for decoding, blocks while the partition of its table is full so a slow
+     * consumer throttles the reader instead of buffering the whole stream.
+     */
+    public void decode(AbstractRowEventParser parser, BinlogEventV4Header header, byte[] body, BinlogEventContext context)
+            throws IOException, InterruptedException {
+        checkFailure();
+        final long tableId = readTableId(body);
+        final Task task = new Task(this.sequencer.next(), parser, header, body,
+                new Snapshot(context, context.getTableMapEvent(tableId)));
+        final Worker worker = this.workers[(int) (tableId % this.workers.length)];
+        while (!worker.queue.offer(task, 1, TimeUnit.SECONDS)) {
+            checkFailure();
+            if (!worker.running) {
+                throw new InterruptedException("binlog decoder is stopped");
+            }
+        }
+    }
+
+    public void barrier(BinlogEventV4 event, BinlogEventSequencer.Delivery delivery) {
+        this.sequencer.barrier(event, delivery);
+    }
+
+    public long getPending() {
+        return this.sequencer.getPending();
+    }
+
+    /**
+     * @throws IOException if a row event failed to decode
+     */
+    public void checkFailure() throws IOException {
+        final Exception failure = this.failure;
+        if (failure != null) {
+            throw new IOException("failed to decode binlog row event", failure);
+        }
+    }
+
+    public boolean isFailed() {
+        return this.failure != null;
+    }
+
+    private void fail(Exception exception) {
+        synchronized (this) {
+            if (this.failure != null) {
+                return;
+            }
+            this.failure = exception;
+        }
+        for (Worker worker : this.workers) {
+            worker.running = false;
+        }
+        if (this.failureHandler != null) {
+            this.failureHandler.onFailure(exception);
+        }
+    }
+
+    private static long readTableId(byte[] body) {
+        long r = 0;
+        for (int i = 0; i < 6; i++) {
+            r |= ((long) (body[i] & 0xFF)) << (i << 3);
+        }
+        return r;
+    }
+
+    private final class Worker implements Runnable {
+        private final BlockingQueue<Task> queue;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        private Worker(int queueSize) {
+            this.queue = new ArrayBlockingQueue<Task>(queueSize);
+        }
+
+        public void run() {
+            while (this.running) {
+                final Task task;
+                try {
+                    task = this.queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (task == null) {
+                    continue;
+                }
+
+                try {
+                    task.parser.decode(new XInputStreamImpl(new ByteArrayInputStream(task.body), task.body.length),
+                            task.header, task.context);
+                } catch (Exception e) {
+                    // the rows are lost if the watermark moves past them, hold it here and stop the stream
+                    LOGGER.error("failed to decode binlog event, header: " + task.header, e);
+                    fail(e);
+                    break;
+                }
+                sequencer.complete(task.sequence);
+            }
+            this.queue.clear();
+        }
+    }
+
+    private static final class Task {
+        private final long sequence;
+        private final AbstractRowEventParser parser;
+        private final BinlogEventV4Header header;
+        private final byte[] body;
+        private final BinlogEventContext context;
+
+        private Task(long sequence, AbstractRowEventParser parser, BinlogEventV4Header header, byte[] body,
+                     BinlogEventContext context) {
+            this.sequence = sequence;
+            this.parser = parser;
+            this.header = header;
+            this.body = body;
+            this.context = context;
+        }
+    }
+
+    /**
+     * The reader context as it was when the event was read: later TABLE_MAP or ROTATE events must not
+     * leak into rows which are still waiting in a queue.
+     */
+    private static final class Snapshot implements BinlogEventContext {
+        private final String binlogFileName;
+        private final boolean checksumEnabled;
+        private final BinlogEventListener listener;
+        private final TableMapEvent tableMapEvent;
+
+        private Snapshot(BinlogEventContext context, TableMapEvent tableMapEvent) {
+            this.binlogFileName = context.getBinlogFileName();
+            this.checksumEnabled = context.getChecksumEnabled();
+            this.listener = context.getEventListener();
+            this.tableMapEvent = tableMapEvent;
+        }
+
+        public boolean getChecksumEnabled() {
+            return this.checksumEnabled;
+        }
+
+        public String getBinlogFileName() {
+            return this.binlogFileName;
+        }
+
+        public BinlogEventListener getEventListener() {
+            return this.listener;
+        }
+
+        public TableMapEvent getTableMapEvent(long tableId) {
+            return this.tableMapEvent != null && this.tableMapEvent.getTableId() == tableId ? this.tableMapEvent : null;
+        }
+    }
+}
@@ -2,26 +2,40 @@ package io.mykit.data.monitor.mysql.binlog.impl;
 
 
 import io.mykit.data.monitor.mysql.binlog.BinlogEventParser;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
 import io.mykit.data.monitor.mysql.binlog.impl.event.BinlogEventV4HeaderImpl;
+import io.mykit.data.monitor.mysql.binlog.impl.event.QueryEvent;
+import io.mykit.data.monitor.mysql.binlog.impl.parser.AbstractRowEventParser;
 import io.mykit.data.monitor.mysql.binlog.impl.parser.FormatDescriptionEventParser;
 import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
+import io.mykit.data.monitor.mysql.io.XInputStream;
 import io.mykit.data.monitor.mysql.net.Transport;
 import io.mykit.data.monitor.mysql.net.TransportInputStream;
 import io.mykit.data.monitor.mysql.net.impl.EventInputStream;
 import io.mykit.data.monitor.mysql.net.impl.packet.EOFPacket;
 import io.mykit.data.monitor.mysql.net.impl.packet.ErrorPacket;
 import io.mykit.data.monitor.mysql.net.impl.packet.OKPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicationBasedBinlogParser.class);
+
     private final boolean stopOnEOF;
     protected long heartbeatCount = 0;
     protected Long lastEventMillis = null;
+    protected int decodeThreads = 0;
+    protected int decodeQueueSize = 1024;
 
     protected Transport transport;
+    protected volatile ParallelBinlogEventDecoder decoder;
 
     public ReplicationBasedBinlogParser(boolean stopOnEOF, String threadSuffixName) {
         this.stopOnEOF = stopOnEOF;
@@ -35,7 +49,10 @@ public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
 
     @Override
     protected void doStop(long timeout, TimeUnit unit) throws Exception {
-        // NOP
+        final ParallelBinlogEventDecoder decoder = this.decoder;
+        if (decoder != null) {
+            decoder.stop();
+        }
     }
 
     public void setTransport(Transport transport) {
@@ -51,6 +68,33 @@ public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
         this.binlogFileName = binlogFileName;
     }
 
+    public int getDecodeThreads() {
+        return decodeThreads;
+    }
+
+    /**
+     * @param decodeThreads number of row event decoder workers, 0 decodes on the reader thread
+     */
+    public void setDecodeThreads(int decodeThreads) {
+        this.decodeThreads = decodeThreads;
+    }
+
+    public int getDecodeQueueSize() {
+        return decodeQueueSize;
+    }
+
+    public void setDecodeQueueSize(int decodeQueueSize) {
+        this.decodeQueueSize = decodeQueueSize;
+    }
+
+    /**
+     * @return the number of events read but not yet applied, always 0 without decoder workers
+     */
+    public long getPendingEvents() {
+        final ParallelBinlogEventDecoder decoder = this.decoder;
+        return decoder == null ? 0 : decoder.getPending();
+    }
+
     private void readPacketMarker(TransportInputStream ts) throws IOException {
         final int packetMarker = ts.readInt(1);
         if (packetMarker != OKPacket.PACKET_MARKER) { // 0x00
@@ -86,10 +130,41 @@ public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
         final TransportInputStream is = this.transport.getInputStream();
         final EventInputStream es = new EventInputStream(is);
 
-        final Context context = new Context(this);
+        if (this.decodeThreads <= 0) {
+            doParse(is, es, new Context(this), null);
+            return;
+        }
+
+        // a failed row event stops the stream, close the connection so an idle reader wakes up
+        final ParallelBinlogEventDecoder decoder = new ParallelBinlogEventDecoder(this.threadSuffixName + "-decoder",
+                this.decodeThreads, this.decodeQueueSize, e -> {
+            try {
+                this.transport.disconnect();
+            } catch (Exception ex) {
+                LOGGER.warn("failed to disconnect after a decode failure", ex);
+            }
+        });
+        this.decoder = decoder;
+        decoder.start();
+        try {
+            doParse(is, es, new ParallelContext(this, decoder), decoder);
+        } catch (Exception e) {
+            // report the decode failure instead of the closed connection it caused
+            decoder.checkFailure();
+            throw e;
+        } finally {
+            decoder.stop();
+            this.decoder = null;
+        }
+    }
 
+    private void doParse(TransportInputStream is, EventInputStream es, Context context, ParallelBinlogEventDecoder decoder)
+            throws Exception {
         BinlogEventV4HeaderImpl header;
         while (isRunning()) {
+            if (decoder != null) {
+                decoder.checkFailure();
+            }
             readPacketMarker(is);
             header = es.getNextBinlogHeader();
 
@@ -112,10 +187,7 @@ public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
                 else
                     this.defaultParser.parse(es, header, context);
             } else {
-                BinlogEventParser parser = getEventParser(header.getEventType());
-                if (parser == null)
-                    parser = this.defaultParser;
-                parser.parse(es, header, context);
+                context.parse(es, header);
 
                 //解决解析MySQL8 binlog字节位错位的问题
                 while (es.available() != 0){
@@ -130,4 +202,67 @@ public class ReplicationBasedBinlogParser extends AbstractBinlogParser {
         }
     }
 
+    private static boolean isBegin(QueryEvent event) {
+        return event.getSql() != null && "BEGIN".equalsIgnoreCase(event.getSql().toString().trim());
+    }
+
+    /**
+     * Row events are dispatched by the decoder workers and table maps right away, since the rows
+     * queued behind them need the table name; everything else waits for the rows read before it.
+     */
+    protected class ParallelContext extends Context {
+        private final ParallelBinlogEventDecoder decoder;
+
+        public ParallelContext(AbstractBinlogParser parser, ParallelBinlogEventDecoder decoder) {
+            super(parser);
+            this.decoder = decoder;
+        }
+
+        @Override
+        public void parse(XInputStream is, BinlogEventV4Header header) throws IOException {
+            final BinlogEventParser parser = getEventParser(header.getEventType());
+            if (parser instanceof AbstractRowEventParser && ParallelBinlogEventDecoder.isRowEvent(header.getEventType())) {
+                try {
+                    this.decoder.decode((AbstractRowEventParser) parser, header, is.readBytes(is.available()), this);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            } else {
+                super.parse(is, header);
+            }
+        }
+
+        @Override
+        protected void dispatch(BinlogEventV4 event) {
+            final int eventType = event.getHeader().getEventType();
+            // GTID events mark where a transaction begins, listeners need them before the rows are decoded
+            if (eventType == MySQLConstants.TABLE_MAP_EVENT || eventType == MySQLConstants.GTID_LOG_EVENT
+                    || ParallelBinlogEventDecoder.isRowEvent(eventType)) {
+                super.dispatch(event);
+            } else if (eventType == MySQLConstants.QUERY_EVENT && !isBegin((QueryEvent) event)) {
+                // a DDL changes how the rows after it are read, hold the reader until it has been delivered
+                final CountDownLatch delivered = new CountDownLatch(1);
+                this.decoder.barrier(event, e -> {
+                    try {
+                        super.dispatch(e);
+                    } finally {
+                        delivered.countDown();
+                    }
+                });
+                try {
+                    // stopping resets the sequencer and a failed row holds the watermark: it is never delivered then
+                    while (!delivered.await(1, TimeUnit.SECONDS)) {
+                        if (!isRunning() || this.decoder.isFailed()) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                this.decoder.barrier(event, e -> super.dispatch(e));
+            }
+        }
+    }
 }
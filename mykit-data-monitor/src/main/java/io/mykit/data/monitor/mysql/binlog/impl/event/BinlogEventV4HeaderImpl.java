@@ -10,6 +10,8 @@ public final class BinlogEventV4HeaderImpl implements BinlogEventV4Header {
     private long serverId;
     private long eventLength;
     private long nextPosition;
+    // explicit start position, -1 if it is nextPosition - eventLength
+    private long position = -1;
     private int flags;
     private long timestampOfReceipt;
 
@@ -30,7 +32,14 @@ public final class BinlogEventV4HeaderImpl implements BinlogEventV4Header {
     }
 
     public long getPosition() {
-        return this.nextPosition - this.eventLength;
+        return this.position >= 0 ? this.position : this.nextPosition - this.eventLength;
+    }
+
+    /**
+     * Events embedded in a transaction payload do not have positions of their own in the binlog file.
+     */
+    public void setPosition(long position) {
+        this.position = position;
     }
 
     public long getTimestamp() {
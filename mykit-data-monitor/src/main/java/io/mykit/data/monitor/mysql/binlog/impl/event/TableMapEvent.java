@@ -33,6 +33,7 @@ public final class TableMapEvent extends AbstractBinlogEventV4 {
     private UnsignedLong columnMetadataCount;
     private Metadata columnMetadata;
     private BitColumn columnNullabilities;
+    private int[] columnCollations;
 
     public TableMapEvent() {
     }
@@ -55,7 +56,8 @@ public final class TableMapEvent extends AbstractBinlogEventV4 {
                 .append("columnTypes", Arrays.toString(columnTypes))
                 .append("columnMetadataCount", columnMetadataCount)
                 .append("columnMetadata", columnMetadata)
-                .append("columnNullabilities", columnNullabilities).toString();
+                .append("columnNullabilities", columnNullabilities)
+                .append("columnCollations", Arrays.toString(columnCollations)).toString();
     }
 
     public TableMapEvent copy() {
@@ -72,6 +74,7 @@ public final class TableMapEvent extends AbstractBinlogEventV4 {
         r.setColumnMetadataCount(this.columnMetadataCount);
         r.setColumnMetadata(this.columnMetadata);
         r.setColumnNullabilities(this.columnNullabilities);
+        r.setColumnCollations(this.columnCollations);
         return r;
     }
 
@@ -162,4 +165,19 @@ public final class TableMapEvent extends AbstractBinlogEventV4 {
     public void setColumnNullabilities(BitColumn columnNullabilities) {
         this.columnNullabilities = columnNullabilities;
     }
+
+    public int[] getColumnCollations() {
+        return columnCollations;
+    }
+
+    public void setColumnCollations(int[] columnCollations) {
+        this.columnCollations = columnCollations;
+    }
+
+    /**
+     * @return the collation of the column, or 0 if the master did not send charset metadata
+     */
+    public int getColumnCollation(int index) {
+        return columnCollations == null ? 0 : columnCollations[index];
+    }
 }
@@ -1,8 +1,8 @@
 package io.mykit.data.monitor.mysql.binlog.impl.filter;
 
 
+import io.mykit.data.monitor.mysql.binlog.BinlogEventContext;
 import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
-import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
 import io.mykit.data.monitor.mysql.binlog.BinlogRowEventFilter;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import org.slf4j.Logger;
@@ -28,7 +28,7 @@ public class BinlogRowEventFilterImpl implements BinlogRowEventFilter {
         this.verbose = verbose;
     }
 
-    public boolean accepts(BinlogEventV4Header header, BinlogParserContext context, TableMapEvent event) {
+    public boolean accepts(BinlogEventV4Header header, BinlogEventContext context, TableMapEvent event) {
         if (event == null) {
             if (isVerbose() && LOGGER.isWarnEnabled()) {
                 LOGGER.warn("failed to find TableMapEvent, header: {}", header);
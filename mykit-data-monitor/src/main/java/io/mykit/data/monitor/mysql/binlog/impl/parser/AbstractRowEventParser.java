@@ -1,6 +1,9 @@
 package io.mykit.data.monitor.mysql.binlog.impl.parser;
 
 
+import io.mykit.data.monitor.mysql.binlog.BinlogEventContext;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
+import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
 import io.mykit.data.monitor.mysql.binlog.BinlogRowEventFilter;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import io.mykit.data.monitor.mysql.binlog.impl.filter.BinlogRowEventFilterImpl;
@@ -34,6 +37,17 @@ public abstract class AbstractRowEventParser extends AbstractBinlogEventParser {
         return this;
     }
 
+    public final void parse(XInputStream is, BinlogEventV4Header header, BinlogParserContext context)
+            throws IOException {
+        decode(is, header, context);
+    }
+
+    /**
+     * Decodes a row event, only reading the context so it can run off the reader thread.
+     */
+    public abstract void decode(XInputStream is, BinlogEventV4Header header, BinlogEventContext context)
+            throws IOException;
+
     protected Row parseRow(XInputStream is, TableMapEvent tme, BitColumn usedColumns)
             throws IOException {
         int unusedColumnCount = 0;
@@ -123,7 +137,7 @@ public abstract class AbstractRowEventParser extends AbstractBinlogEventParser {
                     break;
                 case MySQLConstants.TYPE_BLOB:
                     final int blobLength = is.readInt(meta);
-                    columns.add(is.readFixedLengthString(blobLength));
+                    columns.add(StringColumn.valueOf(is.readBytes(blobLength), tme.getColumnCollation(i)));
                     break;
                 case MySQLConstants.TYPE_GEOMETRY:
                     // 暂时不考虑该类型实现
@@ -147,12 +161,12 @@ public abstract class AbstractRowEventParser extends AbstractBinlogEventParser {
                     break;
                 case MySQLConstants.TYPE_STRING:
                     final int stringLength = length < 256 ? is.readInt(1) : is.readInt(2);
-                    columns.add(is.readFixedLengthString(stringLength));
+                    columns.add(StringColumn.valueOf(is.readBytes(stringLength), tme.getColumnCollation(i)));
                     break;
                 case MySQLConstants.TYPE_VARCHAR:
                 case MySQLConstants.TYPE_VAR_STRING:
                     final int varcharLength = meta < 256 ? is.readInt(1) : is.readInt(2);
-                    columns.add(is.readFixedLengthString(varcharLength));
+                    columns.add(StringColumn.valueOf(is.readBytes(varcharLength), tme.getColumnCollation(i)));
                     break;
                 case MySQLConstants.TYPE_TIME2:
                     final int value1 = is.readInt(3, false);
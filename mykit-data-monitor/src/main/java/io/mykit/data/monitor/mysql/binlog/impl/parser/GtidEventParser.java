@@ -33,6 +33,7 @@ public class GtidEventParser extends AbstractBinlogEventParser {
 
     public void parse(XInputStream is, BinlogEventV4Header header, BinlogParserContext context) throws IOException {
         GtidEvent event = new GtidEvent(header);
+        event.setBinlogFilename(context.getBinlogFileName());
         is.readBytes(1); // commit flag, always true
         event.setSourceId(is.readBytes(16));
         event.setTransactionId(is.readLong(8, true));
@@ -88,7 +88,8 @@ public class QueryEventParser extends AbstractBinlogEventParser {
                     r.add(QMicroseconds.valueOf(d));
                     break;
                 default:
-                    LOGGER.warn("unknown status variable type: " + type);
+                    // newer servers append variables this parser does not know, the statement is still readable
+                    LOGGER.debug("unknown status variable type: " + type);
                     abort = true;
                     break;
             }
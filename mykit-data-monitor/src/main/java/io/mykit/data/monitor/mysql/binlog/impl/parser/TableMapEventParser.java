@@ -5,11 +5,20 @@ import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
 import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import io.mykit.data.monitor.mysql.common.glossary.Metadata;
+import io.mykit.data.monitor.mysql.common.util.CodecUtils;
+import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
 import io.mykit.data.monitor.mysql.io.XInputStream;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 public class TableMapEventParser extends AbstractBinlogEventParser {
+    // optional metadata field types, see binlog_row_metadata (MySQL 8.0.1+)
+    private static final int DEFAULT_CHARSET = 2;
+    private static final int COLUMN_CHARSET = 3;
+
     private boolean reusePreviousEvent = true;
 
     public TableMapEventParser() {
@@ -48,7 +57,91 @@ public class TableMapEventParser extends AbstractBinlogEventParser {
         event.setColumnTypes(is.readBytes(event.getColumnCount().intValue()));
         event.setColumnMetadataCount(is.readUnsignedLong());
         event.setColumnMetadata(Metadata.valueOf(event.getColumnTypes(), is.readBytes(event.getColumnMetadataCount().intValue())));
-        event.setColumnNullabilities(is.readBit((event.getColumnCount().intValue() + 7) / 8));
+        // one bit per column, so the optional metadata starts right after (count + 7) / 8 bytes
+        event.setColumnNullabilities(is.readBit(event.getColumnCount().intValue()));
+        if (is.available() > 0) {
+            parseOptionalMetadata(is, event);
+        }
         context.getEventListener().onEvents(event);
     }
+
+    protected void parseOptionalMetadata(XInputStream is, TableMapEvent event) throws IOException {
+        final int[] characterColumns = getCharacterColumns(event);
+        while (is.available() > 0) {
+            final int type = is.readInt(1);
+            final int length = is.readUnsignedLong().intValue();
+            final ByteBuffer value = ByteBuffer.wrap(is.readBytes(length)).order(ByteOrder.LITTLE_ENDIAN);
+            switch (type) {
+                case DEFAULT_CHARSET:
+                    // the default collation, followed by (character column index, collation) pairs for exceptions
+                    final int[] collations = new int[event.getColumnCount().intValue()];
+                    final int defaultCollation = readPackedInt(value);
+                    for (int index : characterColumns) {
+                        collations[index] = defaultCollation;
+                    }
+                    while (value.hasRemaining()) {
+                        final int index = readPackedInt(value);
+                        final int collation = readPackedInt(value);
+                        if (index < characterColumns.length) {
+                            collations[characterColumns[index]] = collation;
+                        }
+                    }
+                    event.setColumnCollations(collations);
+                    break;
+                case COLUMN_CHARSET:
+                    // one collation per character column
+                    final int[] columnCollations = new int[event.getColumnCount().intValue()];
+                    for (int i = 0; i < characterColumns.length && value.hasRemaining(); i++) {
+                        columnCollations[characterColumns[i]] = readPackedInt(value);
+                    }
+                    event.setColumnCollations(columnCollations);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Indexes of the columns which carry a charset: CHAR, VARCHAR, TEXT and their binary
+     * counterparts, but not ENUM and SET which share TYPE_STRING in the table map.
+     */
+    private static int[] getCharacterColumns(TableMapEvent event) {
+        final byte[] types = event.getColumnTypes();
+        final Metadata metadata = event.getColumnMetadata();
+        final int[] r = new int[types.length];
+        int count = 0;
+        for (int i = 0; i < types.length; i++) {
+            int type = CodecUtils.toUnsigned(types[i]);
+            final int meta = metadata.getMetadata(i);
+            if (type == MySQLConstants.TYPE_STRING && meta > 256) {
+                final int meta0 = meta >> 8;
+                if ((meta0 & 0x30) == 0x30) type = meta0;
+            }
+            switch (type) {
+                case MySQLConstants.TYPE_STRING:
+                case MySQLConstants.TYPE_VARCHAR:
+                case MySQLConstants.TYPE_VAR_STRING:
+                case MySQLConstants.TYPE_BLOB:
+                    r[count++] = i;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return Arrays.copyOf(r, count);
+    }
+
+    private static int readPackedInt(ByteBuffer buffer) {
+        final int b = buffer.get() & 0xFF;
+        if (b < 251) {
+            return b;
+        } else if (b == 252) {
+            return buffer.getShort() & 0xFFFF;
+        } else if (b == 253) {
+            return (buffer.getShort() & 0xFFFF) | ((buffer.get() & 0xFF) << 16);
+        } else {
+            return (int) buffer.getLong();
+        }
+    }
 }
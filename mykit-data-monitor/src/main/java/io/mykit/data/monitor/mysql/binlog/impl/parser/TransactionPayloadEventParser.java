@@ -0,0 +1,113 @@
+package io.mykit.data.monitor.mysql.binlog.impl.parser;
+
+import com.github.luben.zstd.Zstd;
+import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
+import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
+import io.mykit.data.monitor.mysql.binlog.impl.event.BinlogEventV4HeaderImpl;
+import io.mykit.data.monitor.mysql.common.glossary.UnsignedLong;
+import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
+import io.mykit.data.monitor.mysql.io.XInputStream;
+import io.mykit.data.monitor.mysql.io.impl.XInputStreamImpl;
+import io.mykit.data.monitor.mysql.net.impl.EventInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * <h3>Transaction Payload Event</h3>
+ * Written by MySQL 8.0.20+ when binlog_transaction_compression is on: the events of a transaction, except
+ * its GTID event, are compressed as a whole.
+ * <ol type="1">
+ * <li><dt>Event format:</dt></li>
+ * <pre>
+ *    +-------------------------------------+
+ *    | type, length, value (packed ints)   |  payload size, compression type, uncompressed size
+ *    | ...                                 |
+ *    | 0 (end mark)                        |
+ *    +-------------------------------------+
+ *    | payload                             |  zstd compressed events, without checksums
+ *    +-------------------------------------+
+ *  </pre>
+ * </ol>
+ * The embedded events are parsed by the registered parsers in the same context, so table maps and row events
+ * go through the usual path. Their positions are mapped into the payload event in proportion to their offsets
+ * in the inflated data: they stay after the GTID event of their own transaction and before the end of the
+ * payload, which only the last one reaches. A compressed transaction is applied as a whole, so resuming from
+ * the middle of it must read the whole payload again, and only resuming after its last event may skip it.
+ */
+public class TransactionPayloadEventParser extends AbstractBinlogEventParser {
+
+    public TransactionPayloadEventParser() {
+        super(MySQLConstants.TRANSACTION_PAYLOAD_EVENT);
+    }
+
+    public void parse(XInputStream is, BinlogEventV4Header header, BinlogParserContext context) throws IOException {
+        long payloadSize = -1;
+        long uncompressedSize = -1;
+        int compressionType = MySQLConstants.PAYLOAD_COMPRESSION_NONE;
+        while (true) {
+            final int type = readPackedInt(is);
+            if (type == MySQLConstants.PAYLOAD_HEADER_END_MARK) {
+                break;
+            }
+            final int length = readPackedInt(is);
+            switch (type) {
+                case MySQLConstants.PAYLOAD_SIZE_FIELD:
+                    payloadSize = readPackedLong(is);
+                    break;
+                case MySQLConstants.PAYLOAD_COMPRESSION_TYPE_FIELD:
+                    compressionType = readPackedInt(is);
+                    break;
+                case MySQLConstants.PAYLOAD_UNCOMPRESSED_SIZE_FIELD:
+                    uncompressedSize = readPackedLong(is);
+                    break;
+                default:
+                    // fields added by later versions
+                    is.skip(length);
+                    break;
+            }
+        }
+
+        final byte[] payload = is.readBytes(payloadSize < 0 ? is.available() : (int) payloadSize);
+        final byte[] data;
+        if (compressionType == MySQLConstants.PAYLOAD_COMPRESSION_ZSTD) {
+            data = Zstd.decompress(payload, (int) (uncompressedSize < 0 ? Zstd.decompressedSize(payload) : uncompressedSize));
+        } else if (compressionType == MySQLConstants.PAYLOAD_COMPRESSION_NONE) {
+            data = payload;
+        } else {
+            throw new IOException("unsupported transaction payload compression type: " + compressionType);
+        }
+
+        final EventInputStream es = new EventInputStream(new XInputStreamImpl(new ByteArrayInputStream(data), data.length));
+        final long start = header.getPosition();
+        final long end = header.getNextPosition();
+        long offset = 0;
+        while (offset < data.length) {
+            final BinlogEventV4HeaderImpl h = es.getNextBinlogHeader();
+            h.setPosition(start + scale(offset, end - start, data.length));
+            offset += h.getEventLength();
+            h.setNextPosition(offset < data.length ? start + scale(offset, end - start, data.length) : end);
+            context.parse(es, h);
+            while (es.available() != 0) {
+                es.read();
+            }
+            es.finishEvent(h);
+        }
+    }
+
+    /**
+     * @return offset in the inflated data scaled into [0, length - 1]
+     */
+    private static long scale(long offset, long length, long total) {
+        return Math.min(length - 1, (long) ((double) offset * (length - 1) / total));
+    }
+
+    private static int readPackedInt(XInputStream is) throws IOException {
+        return (int) readPackedLong(is);
+    }
+
+    private static long readPackedLong(XInputStream is) throws IOException {
+        final UnsignedLong v = is.readUnsignedLong();
+        return v == null ? 0 : v.longValue();
+    }
+}
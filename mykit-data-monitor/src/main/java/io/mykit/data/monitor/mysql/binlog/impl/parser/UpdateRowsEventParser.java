@@ -1,8 +1,8 @@
 package io.mykit.data.monitor.mysql.binlog.impl.parser;
 
 
+import io.mykit.data.monitor.mysql.binlog.BinlogEventContext;
 import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
-import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import io.mykit.data.monitor.mysql.binlog.impl.event.UpdateRowsEvent;
 import io.mykit.data.monitor.mysql.common.glossary.Pair;
@@ -19,7 +19,7 @@ public class UpdateRowsEventParser extends AbstractRowEventParser {
         super(UpdateRowsEvent.EVENT_TYPE);
     }
 
-    public void parse(XInputStream is, BinlogEventV4Header header, BinlogParserContext context)
+    public void decode(XInputStream is, BinlogEventV4Header header, BinlogEventContext context)
             throws IOException {
         final long tableId = is.readLong(6);
         final TableMapEvent tme = context.getTableMapEvent(tableId);
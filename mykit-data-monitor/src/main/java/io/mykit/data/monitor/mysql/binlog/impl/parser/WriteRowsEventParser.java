@@ -1,8 +1,8 @@
 package io.mykit.data.monitor.mysql.binlog.impl.parser;
 
 
+import io.mykit.data.monitor.mysql.binlog.BinlogEventContext;
 import io.mykit.data.monitor.mysql.binlog.BinlogEventV4Header;
-import io.mykit.data.monitor.mysql.binlog.BinlogParserContext;
 import io.mykit.data.monitor.mysql.binlog.impl.event.TableMapEvent;
 import io.mykit.data.monitor.mysql.binlog.impl.event.WriteRowsEvent;
 import io.mykit.data.monitor.mysql.common.glossary.Row;
@@ -18,7 +18,7 @@ public class WriteRowsEventParser extends AbstractRowEventParser {
         super(WriteRowsEvent.EVENT_TYPE);
     }
 
-    public void parse(XInputStream is, BinlogEventV4Header header, BinlogParserContext context)
+    public void decode(XInputStream is, BinlogEventV4Header header, BinlogEventContext context)
             throws IOException {
         //
         final long tableId = is.readLong(6);
@@ -0,0 +1,240 @@
+package io.mykit.data.monitor.mysql.common.glossary;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A set of global transaction ids in the text form used by MySQL, e.g.
+ * <pre>
+ *   3e11fa47-71ca-11e1-9e33-c80aa9429562:1-5:7,4a11fa47-71ca-11e1-9e33-c80aa9429562:1-3
+ * </pre>
+ * Intervals are kept sorted and merged so that adding the transactions of a continuous stream keeps a single
+ * interval per server.
+ */
+public final class GtidSet {
+    private final Map<String, UuidSet> sets = new LinkedHashMap<String, UuidSet>();
+
+    public GtidSet() {
+    }
+
+    public GtidSet(String gtidSet) {
+        if (gtidSet == null) {
+            return;
+        }
+        for (String s : gtidSet.replace("\n", "").split(",")) {
+            final String[] tokens = s.trim().split(":");
+            if (tokens.length < 2) {
+                continue;
+            }
+            final UuidSet set = getOrCreate(tokens[0].trim().toLowerCase());
+            for (int i = 1; i < tokens.length; i++) {
+                final String[] bounds = tokens[i].trim().split("-");
+                final long start = Long.parseLong(bounds[0]);
+                final long end = bounds.length > 1 ? Long.parseLong(bounds[1]) : start;
+                set.add(start, end);
+            }
+        }
+    }
+
+    public GtidSet(GtidSet rhs) {
+        for (UuidSet set : rhs.sets.values()) {
+            this.sets.put(set.uuid, new UuidSet(set));
+        }
+    }
+
+    /**
+     * @return the server uuid of a GTID_LOG_EVENT source id
+     */
+    public static String toUuid(byte[] sourceId) {
+        final ByteBuffer buffer = ByteBuffer.wrap(sourceId);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+
+    public static byte[] toSourceId(String uuid) {
+        final UUID u = UUID.fromString(uuid);
+        return ByteBuffer.allocate(16).putLong(u.getMostSignificantBits()).putLong(u.getLeastSignificantBits()).array();
+    }
+
+    public boolean isEmpty() {
+        return this.sets.isEmpty();
+    }
+
+    public Collection<UuidSet> getUuidSets() {
+        return this.sets.values();
+    }
+
+    /**
+     * @return false if the transaction was already in the set
+     */
+    public boolean add(String uuid, long transactionId) {
+        return getOrCreate(uuid).add(transactionId, transactionId);
+    }
+
+    public boolean contains(String uuid, long transactionId) {
+        final UuidSet set = this.sets.get(uuid);
+        return set != null && set.contains(transactionId, transactionId);
+    }
+
+    /**
+     * @return true if every transaction of this set is also in the given set
+     */
+    public boolean isContainedWithin(GtidSet rhs) {
+        for (UuidSet set : this.sets.values()) {
+            final UuidSet other = rhs.sets.get(set.uuid);
+            for (Interval interval : set.intervals) {
+                if (other == null || !other.contains(interval.start, interval.end)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the transactions which are in both sets
+     */
+    public GtidSet intersect(GtidSet rhs) {
+        final GtidSet r = new GtidSet();
+        for (UuidSet set : this.sets.values()) {
+            final UuidSet other = rhs.sets.get(set.uuid);
+            if (other == null) {
+                continue;
+            }
+            for (Interval a : set.intervals) {
+                for (Interval b : other.intervals) {
+                    final long start = Math.max(a.start, b.start);
+                    final long end = Math.min(a.end, b.end);
+                    if (start <= end) {
+                        r.getOrCreate(set.uuid).add(start, end);
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof GtidSet && toString().equals(obj.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (UuidSet set : this.sets.values()) {
+            if (sb.length() > 0) {
+                sb.append(",");
+            }
+            sb.append(set);
+        }
+        return sb.toString();
+    }
+
+    private UuidSet getOrCreate(String uuid) {
+        UuidSet set = this.sets.get(uuid);
+        if (set == null) {
+            set = new UuidSet(uuid);
+            this.sets.put(uuid, set);
+        }
+        return set;
+    }
+
+    public static final class UuidSet {
+        private final String uuid;
+        private final List<Interval> intervals = new ArrayList<Interval>();
+
+        private UuidSet(String uuid) {
+            this.uuid = uuid;
+        }
+
+        private UuidSet(UuidSet rhs) {
+            this.uuid = rhs.uuid;
+            for (Interval interval : rhs.intervals) {
+                this.intervals.add(new Interval(interval.start, interval.end));
+            }
+        }
+
+        public String getUuid() {
+            return uuid;
+        }
+
+        public List<Interval> getIntervals() {
+            return intervals;
+        }
+
+        private boolean contains(long start, long end) {
+            for (Interval interval : this.intervals) {
+                if (interval.start <= start && end <= interval.end) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean add(long start, long end) {
+            if (contains(start, end)) {
+                return false;
+            }
+
+            // find the first interval which does not end before the new one, then swallow the adjacent ones
+            int i = 0;
+            while (i < this.intervals.size() && this.intervals.get(i).end < start - 1) {
+                i++;
+            }
+            final Interval merged = new Interval(start, end);
+            while (i < this.intervals.size() && this.intervals.get(i).start <= end + 1) {
+                final Interval interval = this.intervals.remove(i);
+                merged.start = Math.min(merged.start, interval.start);
+                merged.end = Math.max(merged.end, interval.end);
+            }
+            this.intervals.add(i, merged);
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder(this.uuid);
+            for (Interval interval : this.intervals) {
+                sb.append(":").append(interval);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A closed range of transaction ids.
+     */
+    public static final class Interval {
+        private long start;
+        private long end;
+
+        private Interval(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        @Override
+        public String toString() {
+            return start == end ? String.valueOf(start) : start + "-" + end;
+        }
+    }
+}
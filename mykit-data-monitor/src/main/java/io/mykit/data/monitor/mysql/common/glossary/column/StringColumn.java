@@ -2,26 +2,69 @@ package io.mykit.data.monitor.mysql.common.glossary.column;
 
 
 import io.mykit.data.monitor.mysql.common.glossary.Column;
+import io.mykit.data.monitor.mysql.common.util.CharsetUtils;
 
-public final class StringColumn implements Column {
+import java.nio.charset.Charset;
+
+/**
+ * Keeps the raw bytes of a string column, decoding is deferred until the value is
+ * actually read as a string, using the column collation from the TABLE_MAP_EVENT if known.
+ */
+public final class StringColumn implements Column, CharSequence {
     private static final long serialVersionUID = 1009717372407166422L;
 
     private final byte[] value;
+    private final int collation;
+    private transient String string;
 
-    private StringColumn(byte[] value) {
+    private StringColumn(byte[] value, int collation) {
         this.value = value;
+        this.collation = collation;
     }
 
     @Override
     public String toString() {
-        return new String(this.value);
+        String r = this.string;
+        if (r == null) {
+            final Charset charset = CharsetUtils.getCharset(this.collation);
+            r = charset == null ? new String(this.value) : new String(this.value, charset);
+            this.string = r;
+        }
+        return r;
     }
 
     public byte[] getValue() {
         return this.value;
     }
 
+    public int getCollation() {
+        return this.collation;
+    }
+
+    public boolean isBinary() {
+        return CharsetUtils.isBinary(this.collation);
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
     public static final StringColumn valueOf(byte[] value) {
-        return new StringColumn(value);
+        return new StringColumn(value, 0);
+    }
+
+    public static final StringColumn valueOf(byte[] value, int collation) {
+        return new StringColumn(value, collation);
     }
 }
@@ -0,0 +1,86 @@
+package io.mykit.data.monitor.mysql.common.util;
+
+import java.nio.charset.Charset;
+
+/**
+ * Maps MySQL collation ids (as found in TABLE_MAP_EVENT optional metadata) to java charsets.
+ */
+public final class CharsetUtils {
+    public static final int BINARY_COLLATION = 63;
+
+    private static final int MAX_COLLATION = 324;
+    private static final Charset[] CHARSETS = new Charset[MAX_COLLATION];
+
+    static {
+        register("Big5", 1, 84);
+        register("ISO-8859-2", 2, 9, 21, 27, 77);
+        register("IBM850", 4, 80);
+        register("windows-1252", 5, 8, 15, 31, 47, 48, 49, 94);
+        register("KOI8-R", 7, 74);
+        register("US-ASCII", 11, 65);
+        register("EUC-JP", 12, 91, 97, 98);
+        register("Shift_JIS", 13, 88);
+        register("windows-1251", 14, 23, 50, 51, 52);
+        register("ISO-8859-8", 16, 71);
+        register("TIS-620", 18, 89);
+        register("EUC-KR", 19, 85);
+        register("ISO-8859-13", 20, 41, 42, 79);
+        register("KOI8-U", 22, 75);
+        register("GB2312", 24, 86);
+        register("ISO-8859-7", 25, 70);
+        register("windows-1250", 26, 34, 44, 66, 99);
+        register("GBK", 28, 87);
+        register("windows-1257", 29, 58, 59);
+        register("ISO-8859-9", 30, 78);
+        register("UTF-8", 33, 45, 46, 76, 83, 223);
+        register("UTF-16BE", 35, 90, 159);
+        register("IBM866", 36, 68);
+        register("IBM852", 40, 81);
+        register("UTF-16", 54, 55);
+        register("UTF-16LE", 56, 62);
+        register("windows-1256", 57, 67);
+        register("UTF-32", 60, 61);
+        register("windows-31j", 95, 96);
+        register("GB18030", 248, 249, 250);
+        registerRange("UTF-16", 101, 124);
+        registerRange("UTF-16BE", 128, 151);
+        registerRange("UTF-32", 160, 183);
+        registerRange("UTF-8", 192, 215);
+        registerRange("UTF-8", 224, 247);
+        registerRange("UTF-8", 255, MAX_COLLATION - 1);
+    }
+
+    /**
+     * @return the charset of the given collation, or null if it is binary or unknown
+     */
+    public static Charset getCharset(int collation) {
+        if (collation <= 0 || collation >= MAX_COLLATION) {
+            return null;
+        }
+        return CHARSETS[collation];
+    }
+
+    public static boolean isBinary(int collation) {
+        return collation == BINARY_COLLATION;
+    }
+
+    private static void register(String name, int... collations) {
+        if (!Charset.isSupported(name)) {
+            return;
+        }
+        final Charset charset = Charset.forName(name);
+        for (int collation : collations) {
+            CHARSETS[collation] = charset;
+        }
+    }
+
+    private static void registerRange(String name, int from, int to) {
+        if (!Charset.isSupported(name)) {
+            return;
+        }
+        final Charset charset = Charset.forName(name);
+        for (int collation = from; collation <= to; collation++) {
+            CHARSETS[collation] = charset;
+        }
+    }
+}
@@ -63,6 +63,12 @@ public final class MySQLConstants {
     public static final int COM_STMT_FETCH = 0x1c;
     public static final int COM_DAEMON = 0x1d;
     public static final int COM_END = 0x1e;
+    public static final int COM_BINLOG_DUMP_GTID = 0x1e;
+
+    // COM_BINLOG_DUMP_GTID flags
+    public static final int BINLOG_DUMP_NON_BLOCK = 0x01;
+    public static final int BINLOG_THROUGH_POSITION = 0x02;
+    public static final int BINLOG_THROUGH_GTID = 0x04;
 
     // Status variable type
     public static final int Q_FLAGS2_CODE = 0;
@@ -193,4 +199,16 @@ public final class MySQLConstants {
     public static final int GTID_LOG_EVENT = 33;
     public static final int ANONYMOUS_GTID_LOG_EVENT = 34;
     public static final int PREVIOUS_GTIDS_LOG_EVENT = 35;
+    public static final int TRANSACTION_PAYLOAD_EVENT = 40;
+
+    // TRANSACTION_PAYLOAD_EVENT fields
+    public static final int PAYLOAD_HEADER_END_MARK = 0;
+    public static final int PAYLOAD_SIZE_FIELD = 1;
+    public static final int PAYLOAD_COMPRESSION_TYPE_FIELD = 2;
+    public static final int PAYLOAD_UNCOMPRESSED_SIZE_FIELD = 3;
+    public static final int PAYLOAD_COMPRESSION_ZSTD = 0;
+    public static final int PAYLOAD_COMPRESSION_NONE = 255;
+
+    // Event header flags
+    public static final int LOG_EVENT_ARTIFICIAL_F = 0x20;
 }
@@ -12,11 +12,20 @@ import io.mykit.data.monitor.mysql.io.util.XSerializer;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
+/**
+ * Buffered input stream backed by a little-endian {@link ByteBuffer} window.
+ * <p>
+ * Fixed length integers are decoded with bulk primitive reads from the window
+ * instead of assembling them byte by byte through {@link #read()}.
+ */
 public class XInputStreamImpl extends InputStream implements XInputStream {
-    private int head = 0;
-    private int tail = 0;
-    private final byte[] buffer;
+    private static final int MAX_PRIMITIVE_LENGTH = 8;
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer scratch;
     private final InputStream is;
 
     protected int readCount = 0;
@@ -27,8 +36,17 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
     }
 
     public XInputStreamImpl(InputStream is, int size) {
+        this(is, ByteBuffer.wrap(new byte[size]));
+    }
+
+    /**
+     * Subclasses passing a direct buffer must override {@link #readInto(ByteBuffer)}.
+     */
+    public XInputStreamImpl(InputStream is, ByteBuffer buffer) {
         this.is = is;
-        this.buffer = new byte[size];
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.clear().limit(0);
+        this.scratch = ByteBuffer.allocate(MAX_PRIMITIVE_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
     }
 
     public int readInt(int length) throws IOException {
@@ -82,57 +100,23 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
      *
      */
     public int readSignedInt(int length) throws IOException {
-        int r = 0;
-        for (int i = 0; i < length; ++i) {
-            final int v = this.read();
-            r |= (v << (i << 3));
-            if ((i == length - 1) && ((v & 0x80) == 0x80)) {
-                for (int j = length; j < 4; j++) {
-                    r |= (255 << (j << 3));
-                }
-            }
-        }
-        return r;
+        if (length <= 0) return 0;
+        final int shift = 32 - (length << 3);
+        return ((int) readPrimitive(length, true) << shift) >> shift;
     }
 
     public long readSignedLong(int length) throws IOException {
-        long r = 0;
-        for (int i = 0; i < length; ++i) {
-            final long v = this.read();
-            r |= (v << (i << 3));
-            if ((i == length - 1) && ((v & 0x80) == 0x80)) {
-                for (int j = length; j < 8; j++) {
-                    r |= (255 << (j << 3));
-                }
-            }
-        }
-        return r;
+        if (length <= 0) return 0;
+        final int shift = 64 - (length << 3);
+        return (readPrimitive(length, true) << shift) >> shift;
     }
 
     public int readInt(int length, boolean littleEndian) throws IOException {
-        int r = 0;
-        for (int i = 0; i < length; ++i) {
-            final int v = this.read();
-            if (littleEndian) {
-                r |= (v << (i << 3));
-            } else {
-                r = (r << 8) | v;
-            }
-        }
-        return r;
+        return (int) readPrimitive(length, littleEndian);
     }
 
     public long readLong(int length, boolean littleEndian) throws IOException {
-        long r = 0;
-        for (int i = 0; i < length; ++i) {
-            final long v = this.read();
-            if (littleEndian) {
-                r |= (v << (i << 3));
-            } else {
-                r = (r << 8) | v;
-            }
-        }
-        return r;
+        return readPrimitive(length, littleEndian);
     }
 
     public BitColumn readBit(int length, boolean littleEndian) throws IOException {
@@ -159,12 +143,12 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
         if (this.readLimit > 0) {
             return this.readLimit - this.readCount;
         } else {
-            return this.tail - this.head + this.is.available();
+            return this.buffer.remaining() + this.is.available();
         }
     }
 
     public boolean hasMore() throws IOException {
-        if (this.head < this.tail) return true;
+        if (this.buffer.hasRemaining()) return true;
         return this.available() > 0;
     }
 
@@ -184,8 +168,8 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
         if (this.readLimit > 0 && (this.readCount + 1) > this.readLimit) {
             throw new ExceedLimitException();
         } else {
-            if (this.head >= this.tail) doFill();
-            final int r = this.buffer[this.head++] & 0xFF;
+            if (!this.buffer.hasRemaining()) doFill(1);
+            final int r = this.buffer.get() & 0xFF;
             ++this.readCount;
             return r;
         }
@@ -203,24 +187,112 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
     }
 
     /**
+     * Returns a little-endian window holding at least {@code length} unread bytes,
+     * positioned at the first of them. The bytes are accounted as consumed; the
+     * caller must read exactly {@code length} bytes from the returned buffer.
+     * <p>
+     * Subclasses that override {@link #read(byte[], int, int)} to interpret the
+     * byte stream (packet framing, checksums) must override this method as well,
+     * typically by delegating to {@link #fill(int)}.
+     */
+    protected ByteBuffer window(final int length) throws IOException {
+        if (length > this.buffer.capacity()) {
+            return fill(length);
+        }
+        if (this.readLimit > 0 && (this.readCount + length) > this.readLimit) {
+            throw new ExceedLimitException();
+        }
+        if (this.buffer.remaining() < length) doFill(length);
+        this.readCount += length;
+        return this.buffer;
+    }
+
+    /**
+     * Copies the next {@code length} bytes through {@link #read(byte[], int, int)}
+     * into a scratch buffer, so overridden bulk reads stay in charge of the stream.
+     */
+    protected final ByteBuffer fill(final int length) throws IOException {
+        this.scratch.clear();
+        this.read(this.scratch.array(), 0, length);
+        this.scratch.limit(length);
+        return this.scratch;
+    }
+
+    /**
+     *
+     */
+    private long readPrimitive(final int length, final boolean littleEndian) throws IOException {
+        if (length <= 0) return 0;
+        if (length > MAX_PRIMITIVE_LENGTH) {
+            throw new IllegalArgumentException("invalid primitive length: " + length);
+        }
+
+        final ByteBuffer b = window(length);
+        if (!littleEndian) {
+            long r = 0;
+            for (int i = 0; i < length; i++) {
+                r = (r << 8) | (b.get() & 0xFF);
+            }
+            return r;
+        }
+
+        switch (length) {
+            case 1:
+                return b.get() & 0xFF;
+            case 2:
+                return b.getShort() & 0xFFFF;
+            case 3:
+                return (b.getShort() & 0xFFFF) | ((long) (b.get() & 0xFF) << 16);
+            case 4:
+                return b.getInt() & 0xFFFFFFFFL;
+            case 8:
+                return b.getLong();
+            default:
+                final long low = b.getInt() & 0xFFFFFFFFL;
+                long high = 0;
+                for (int i = 0; i < length - 4; i++) {
+                    high |= (long) (b.get() & 0xFF) << (i << 3);
+                }
+                return low | (high << 32);
+        }
+    }
+
+    /**
+     * Reads from the underlying source into {@code dst}, advancing its position.
      *
+     * @return the number of bytes read, or -1 on end of stream
+     */
+    protected int readInto(final ByteBuffer dst) throws IOException {
+        final int r = this.is.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+        if (r > 0) dst.position(dst.position() + r);
+        return r;
+    }
+
+    /**
+     * Ensures at least {@code n} unread bytes are in the window, compacting it first.
      */
-    private void doFill() throws IOException {
-        this.head = 0;
-        this.tail = this.is.read(this.buffer, 0, this.buffer.length);
-        if (this.tail <= 0) throw new EOFException();
+    private void doFill(final int n) throws IOException {
+        this.buffer.compact();
+        try {
+            while (this.buffer.position() < n) {
+                if (readInto(this.buffer) <= 0) throw new EOFException();
+            }
+        } finally {
+            this.buffer.flip();
+        }
     }
 
     private long doSkip(final long n) throws IOException {
         long total = n;
         while (total > 0) {
-            final int availabale = this.tail - this.head;
-            if (availabale >= total) {
-                this.head += total;
+            final int available = this.buffer.remaining();
+            if (available >= total) {
+                this.buffer.position(this.buffer.position() + (int) total);
                 break;
             } else {
-                total -= availabale;
-                doFill();
+                total -= available;
+                this.buffer.position(this.buffer.limit());
+                doFill(1);
             }
         }
         return n;
@@ -230,16 +302,15 @@ public class XInputStreamImpl extends InputStream implements XInputStream {
         int total = len;
         int index = off;
         while (total > 0) {
-            final int available = this.tail - this.head;
+            final int available = this.buffer.remaining();
             if (available >= total) {
-                System.arraycopy(this.buffer, this.head, b, index, total);
-                this.head += total;
+                this.buffer.get(b, index, total);
                 break;
             } else {
-                System.arraycopy(this.buffer, this.head, b, index, available);
+                this.buffer.get(b, index, available);
                 index += available;
                 total -= available;
-                doFill();
+                doFill(1);
             }
         }
         return len;
@@ -0,0 +1,94 @@
+package io.mykit.data.monitor.mysql.io.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory-mapped windows, so sequential reads of large binlog files are served from the page cache
+ * without a system call per buffer. The length is fixed when the file is opened, bytes appended later are not visible.
+ */
+public class MappedFileInputStream extends InputStream {
+    private static final long WINDOW = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long length;
+    private long offset;
+    private MappedByteBuffer buffer;
+
+    public MappedFileInputStream(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            this.length = this.channel.size();
+            map(0);
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, this.length - position());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.buffer = null;
+        this.channel.close();
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long current = position();
+        final long target = Math.min(this.length, current + Math.max(0, n));
+        if (target - this.offset <= this.buffer.limit()) {
+            this.buffer.position((int) (target - this.offset));
+        } else {
+            map(target);
+        }
+        return target - current;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensure() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensure()) {
+            return -1;
+        }
+        final int n = Math.min(len, this.buffer.remaining());
+        this.buffer.get(b, off, n);
+        return n;
+    }
+
+    private long position() {
+        return this.offset + this.buffer.position();
+    }
+
+    private boolean ensure() throws IOException {
+        if (this.buffer.hasRemaining()) {
+            return true;
+        }
+        final long position = position();
+        if (position >= this.length) {
+            return false;
+        }
+        map(position);
+        return true;
+    }
+
+    private void map(long position) throws IOException {
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, this.length - position));
+        this.offset = position;
+    }
+}
@@ -0,0 +1,64 @@
+package io.mykit.data.monitor.mysql.net.impl;
+
+
+import java.net.InetSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * <h3>NIO通信管道</h3>
+ * <ol type="1">
+ * <li><dt>基于SocketChannel的通信管道</dt></li>
+ * <dd>阻塞模式读取至直接内存缓冲区, 原地解析数据包, 不再经过ActiveBufferedInputStream的读线程和二级缓冲区</dd>
+ * </ol>
+ */
+public class ChannelTransportImpl extends TransportImpl {
+    protected SocketChannel channel;
+    protected boolean keepAlive = true;
+    protected boolean tcpNoDelay = false;
+    protected int receiveBufferSize = -1;
+
+    @Override
+    protected void open(String host, int port) throws Exception {
+        this.channel = SocketChannel.open();
+        try {
+            this.channel.configureBlocking(true);
+            this.channel.socket().setKeepAlive(this.keepAlive);
+            this.channel.socket().setTcpNoDelay(this.tcpNoDelay);
+            if (this.receiveBufferSize > 0) this.channel.socket().setReceiveBufferSize(this.receiveBufferSize);
+            this.channel.connect(new InetSocketAddress(host, port));
+        } catch (Exception e) {
+            this.channel.close();
+            throw e;
+        }
+
+        // 关闭socket即关闭channel
+        this.socket = this.channel.socket();
+        this.os = new TransportOutputStreamImpl(Channels.newOutputStream(this.channel));
+        this.is = new ChannelTransportInputStreamImpl(this.channel, this.level1BufferSize);
+    }
+
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public void setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public void setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+}
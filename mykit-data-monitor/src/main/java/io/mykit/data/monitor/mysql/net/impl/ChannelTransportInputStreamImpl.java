@@ -0,0 +1,26 @@
+package io.mykit.data.monitor.mysql.net.impl;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reads packets straight from a {@link SocketChannel} into a direct buffer;
+ * packets are framed and decoded in place, without a copying reader thread.
+ */
+public class ChannelTransportInputStreamImpl extends TransportInputStreamImpl {
+
+    private final SocketChannel channel;
+
+    public ChannelTransportInputStreamImpl(SocketChannel channel, int size) {
+        super(Channels.newInputStream(channel), ByteBuffer.allocateDirect(size));
+        this.channel = channel;
+    }
+
+    @Override
+    protected int readInto(ByteBuffer dst) throws IOException {
+        return this.channel.read(dst);
+    }
+}
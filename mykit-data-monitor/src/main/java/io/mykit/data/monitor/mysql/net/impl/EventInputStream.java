@@ -9,6 +9,7 @@ import io.mykit.data.monitor.mysql.io.impl.XInputStreamImpl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.zip.CRC32;
 
 public class EventInputStream extends XInputStreamImpl implements XInputStream {
@@ -81,6 +82,12 @@ public class EventInputStream extends XInputStreamImpl implements XInputStream {
         }
     }
 
+    @Override
+    protected ByteBuffer window(final int length) throws IOException {
+        // one bulk read and one bulk CRC update per primitive
+        return fill(length);
+    }
+
     @Override
     public long skip(final long n) throws IOException {
         if (!isChecksumEnabled()) {
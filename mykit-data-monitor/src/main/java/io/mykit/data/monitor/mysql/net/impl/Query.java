@@ -64,4 +64,45 @@ public class Query {
         }
         return result;
     }
+
+    public List<List<String>> getAll(String sql) throws IOException, TransportException {
+        final List<List<String>> result = new ArrayList<List<String>>();
+
+        final ComQuery command = new ComQuery();
+        command.setSql(StringColumn.valueOf(sql.getBytes()));
+        transport.getOutputStream().writePacket(command);
+        transport.getOutputStream().flush();
+
+        Packet packet = transport.getInputStream().readPacket();
+        if (packet.getPacketBody()[0] == ErrorPacket.PACKET_MARKER) {
+            throw new TransportException(ErrorPacket.valueOf(packet));
+        }
+
+        ResultSetHeaderPacket header = ResultSetHeaderPacket.valueOf(packet);
+        if (header.getFieldCount().longValue() == 0) {
+            return result;
+        }
+
+        while (true) {
+            packet = transport.getInputStream().readPacket();
+            if (packet.getPacketBody()[0] == EOFPacket.PACKET_MARKER) {
+                break;
+            }
+        }
+
+        while (true) {
+            packet = transport.getInputStream().readPacket();
+            if (packet.getPacketBody()[0] == EOFPacket.PACKET_MARKER) {
+                break;
+            } else {
+                ResultSetRowPacket row = ResultSetRowPacket.valueOf(packet);
+                final List<String> columns = new ArrayList<String>();
+                for (StringColumn c : row.getColumns()) {
+                    columns.add(c == null ? null : c.toString());
+                }
+                result.add(columns);
+            }
+        }
+        return result;
+    }
 }
@@ -40,13 +40,7 @@ public class TransportImpl extends AbstractTransport {
             LOGGER.debug("connecting to host: {}, port: {}", host, port);
         }
 
-        this.socket = this.socketFactory.create(host, port);
-        this.os = new TransportOutputStreamImpl(this.socket.getOutputStream());
-        if (this.level2BufferSize <= 0) {
-            this.is = new TransportInputStreamImpl(this.socket.getInputStream(), this.level1BufferSize);
-        } else {
-            this.is = new TransportInputStreamImpl(new ActiveBufferedInputStream(this.socket.getInputStream(), this.level2BufferSize), this.level1BufferSize);
-        }
+        open(host, port);
 
         final Packet packet = this.is.readPacket();
         if (packet.getPacketBody()[0] == ErrorPacket.PACKET_MARKER) {
@@ -73,6 +67,19 @@ public class TransportImpl extends AbstractTransport {
         this.authenticator.login(this);
     }
 
+    /**
+     * 建立连接并创建输入/输出流
+     */
+    protected void open(String host, int port) throws Exception {
+        this.socket = this.socketFactory.create(host, port);
+        this.os = new TransportOutputStreamImpl(this.socket.getOutputStream());
+        if (this.level2BufferSize <= 0) {
+            this.is = new TransportInputStreamImpl(this.socket.getInputStream(), this.level1BufferSize);
+        } else {
+            this.is = new TransportInputStreamImpl(new ActiveBufferedInputStream(this.socket.getInputStream(), this.level2BufferSize), this.level1BufferSize);
+        }
+    }
+
     public void disconnect() throws Exception {
         if (!this.connected.compareAndSet(true, false)) {
             return;
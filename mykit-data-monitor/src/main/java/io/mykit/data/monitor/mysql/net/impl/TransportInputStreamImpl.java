@@ -8,6 +8,7 @@ import io.mykit.data.monitor.mysql.net.impl.packet.RawPacket;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public class TransportInputStreamImpl extends XInputStreamImpl implements TransportInputStream {
 
@@ -23,6 +24,11 @@ public class TransportInputStreamImpl extends XInputStreamImpl implements Transp
         this.readLimit = this.readCount = 0;
     }
 
+    public TransportInputStreamImpl(InputStream is, ByteBuffer buffer) {
+        super(is, buffer);
+        this.readLimit = this.readCount = 0;
+    }
+
     public Packet readPacket() throws IOException {
         final RawPacket r = readPacketHeader();
 
@@ -49,6 +55,15 @@ public class TransportInputStreamImpl extends XInputStreamImpl implements Transp
         return r;
     }
 
+    @Override
+    protected ByteBuffer window(final int length) throws IOException {
+        // primitives that span two packets go through the framing aware read
+        if (this.readCount + length <= this.readLimit) {
+            return super.window(length);
+        }
+        return fill(length);
+    }
+
     @Override
     public int read() throws IOException {
         if (this.readCount + 1 > this.readLimit) {
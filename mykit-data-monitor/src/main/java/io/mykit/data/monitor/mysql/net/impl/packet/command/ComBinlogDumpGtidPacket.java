@@ -0,0 +1,123 @@
+package io.mykit.data.monitor.mysql.net.impl.packet.command;
+
+
+import io.mykit.data.monitor.mysql.common.glossary.GtidSet;
+import io.mykit.data.monitor.mysql.common.glossary.column.StringColumn;
+import io.mykit.data.monitor.mysql.common.util.MySQLConstants;
+import io.mykit.data.monitor.mysql.common.util.ToStringBuilder;
+import io.mykit.data.monitor.mysql.io.util.XSerializer;
+
+import java.io.IOException;
+
+/**
+ * <pre>
+ *   1  [1e] COM_BINLOG_DUMP_GTID
+ *   2  flags
+ *   4  server-id
+ *   4  binlog-filename-len
+ *   n  binlog-filename
+ *   8  binlog-pos
+ *   4  data-size  (if flags &amp; BINLOG_THROUGH_GTID)
+ *   n  data, the encoded gtid set the slave has executed
+ * </pre>
+ */
+public class ComBinlogDumpGtidPacket extends AbstractCommandPacket {
+    private static final long serialVersionUID = -4836516012947193424L;
+
+    private int binlogFlag = MySQLConstants.BINLOG_THROUGH_GTID;
+    private long serverId;
+    private StringColumn binlogFileName;
+    private long binlogPosition;
+    private GtidSet gtidSet;
+
+    public ComBinlogDumpGtidPacket() {
+        super(MySQLConstants.COM_BINLOG_DUMP_GTID);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("binlogFlag", binlogFlag)
+                .append("serverId", serverId)
+                .append("binlogFileName", binlogFileName)
+                .append("binlogPosition", binlogPosition)
+                .append("gtidSet", gtidSet).toString();
+    }
+
+    public byte[] getPacketBody() throws IOException {
+        final byte[] data = encode(this.gtidSet);
+        final XSerializer ps = new XSerializer();
+        ps.writeInt(this.command, 1);
+        ps.writeInt(this.binlogFlag, 2);
+        ps.writeLong(this.serverId, 4);
+        ps.writeInt(this.binlogFileName == null ? 0 : this.binlogFileName.getValue().length, 4);
+        if (this.binlogFileName != null) {
+            ps.writeFixedLengthString(this.binlogFileName);
+        }
+        ps.writeLong(this.binlogPosition, 8);
+        ps.writeInt(data.length, 4);
+        ps.writeBytes(data);
+        return ps.toByteArray();
+    }
+
+    /**
+     * n_sids(8) followed by sid(16), n_intervals(8) and [start(8), end(8)) for each server
+     */
+    private static byte[] encode(GtidSet gtidSet) {
+        final XSerializer ps = new XSerializer();
+        if (gtidSet == null) {
+            ps.writeLong(0, 8);
+            return ps.toByteArray();
+        }
+        ps.writeLong(gtidSet.getUuidSets().size(), 8);
+        for (GtidSet.UuidSet set : gtidSet.getUuidSets()) {
+            ps.writeBytes(GtidSet.toSourceId(set.getUuid()));
+            ps.writeLong(set.getIntervals().size(), 8);
+            for (GtidSet.Interval interval : set.getIntervals()) {
+                ps.writeLong(interval.getStart(), 8);
+                ps.writeLong(interval.getEnd() + 1, 8);
+            }
+        }
+        return ps.toByteArray();
+    }
+
+    public int getBinlogFlag() {
+        return binlogFlag;
+    }
+
+    public void setBinlogFlag(int binlogFlag) {
+        this.binlogFlag = binlogFlag;
+    }
+
+    public long getServerId() {
+        return serverId;
+    }
+
+    public void setServerId(long serverId) {
+        this.serverId = serverId;
+    }
+
+    public StringColumn getBinlogFileName() {
+        return binlogFileName;
+    }
+
+    public void setBinlogFileName(StringColumn binlogFileName) {
+        this.binlogFileName = binlogFileName;
+    }
+
+    public long getBinlogPosition() {
+        return binlogPosition;
+    }
+
+    public void setBinlogPosition(long binlogPosition) {
+        this.binlogPosition = binlogPosition;
+    }
+
+    public GtidSet getGtidSet() {
+        return gtidSet;
+    }
+
+    public void setGtidSet(GtidSet gtidSet) {
+        this.gtidSet = gtidSet;
+    }
+}
@@ -12,9 +12,15 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 授予登录账号监听事件权限
@@ -26,17 +32,23 @@ public class DBChangeNotification {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private static final String QUERY_ROW_DATA_SQL = "SELECT * FROM \"%s\" WHERE ROWID = '%s'";
+    private static final String QUERY_ROW_DATA_SQL = "SELECT T.ROWID, T.* FROM \"%s\" T WHERE T.ROWID IN (%s)";
     private static final String QUERY_TABLE_ALL_SQL = "SELECT DATA_OBJECT_ID, OBJECT_NAME FROM DBA_OBJECTS WHERE OWNER='%S' AND OBJECT_TYPE = 'TABLE'";
     private static final String QUERY_TABLE_SQL = "SELECT 1 FROM \"%s\" WHERE 1=2";
     private static final String QUERY_CALLBACK_SQL = "SELECT REGID,CALLBACK FROM USER_CHANGE_NOTIFICATION_REGS";
     private static final String CALLBACK = "net8://(ADDRESS=(PROTOCOL=tcp)(HOST=%s)(PORT=%s))?PR=0";
+    // IN列表绑定变量个数, 不足时用最后一个ROWID补齐, 每张表最多共享4个游标
+    private static final int[] BATCH_SIZE = {1, 8, 64, 512};
 
     private String username;
     private String password;
     private String url;
     private OracleConnection conn;
     private OracleStatement statement;
+    // 反查行数据专用连接, 不占用通知注册的连接
+    private Connection queryConn;
+    // 在通知线程之外按顺序反查
+    private ExecutorService worker;
     private DatabaseChangeRegistration dcr;
     private Map<Integer, String> tables;
     private List<RowEventListener> listeners;
@@ -53,6 +65,11 @@ public class DBChangeNotification {
             conn = connect();
             statement = (OracleStatement) conn.createStatement();
             readTables();
+            worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "oracle-dcn-fetch");
+                t.setDaemon(true);
+                return t;
+            });
 
             Properties prop = new Properties();
             prop.setProperty(OracleConnection.DCN_NOTIFY_ROWIDS, "true");
@@ -86,6 +103,11 @@ public class DBChangeNotification {
     }
 
     public void close() {
+        if (null != worker) {
+            worker.shutdownNow();
+        }
+        closeQueryConnection();
+
         try {
             if (null != statement) {
                 statement.close();
@@ -104,6 +126,25 @@ public class DBChangeNotification {
         }
     }
 
+    private void closeQueryConnection() {
+        try {
+            if (null != queryConn) {
+                queryConn.close();
+            }
+        } catch (SQLException e) {
+            logger.error(e.getMessage());
+        } finally {
+            queryConn = null;
+        }
+    }
+
+    private Connection getQueryConnection() throws SQLException {
+        if (null == queryConn || queryConn.isClosed()) {
+            queryConn = connect();
+        }
+        return queryConn;
+    }
+
     private void close(ResultSet rs) {
         if (null != rs) {
             try {
@@ -195,39 +236,127 @@ public class DBChangeNotification {
 
         @Override
         public void onDatabaseChangeNotification(DatabaseChangeEvent event) {
+            // 按表分组ROWID, 交给反查线程, 不阻塞通知线程
+            final List<TableChange> changes = new ArrayList<>();
             TableChangeDescription[] tds = event.getTableChangeDescription();
-
             for (TableChangeDescription td : tds) {
                 RowChangeDescription[] rds = td.getRowChangeDescription();
+                if (null == rds || rds.length == 0) {
+                    continue;
+                }
+                TableChange change = new TableChange(tables.get(td.getObjectNumber()));
                 for (RowChangeDescription rd : rds) {
-                    RowChangeDescription.RowOperation opr = rd.getRowOperation();
-                    parseEvent(tables.get(td.getObjectNumber()), rd.getRowid().stringValue(), opr);
+                    change.add(rd.getRowid().stringValue(), rd.getRowOperation().getCode());
                 }
+                changes.add(change);
+            }
+            if (!changes.isEmpty()) {
+                worker.execute(() -> changes.forEach(c -> parseEvent(c)));
             }
         }
 
-        private void parseEvent(String tableName, String rowId, RowChangeDescription.RowOperation event) {
-            List<Object> data = new ArrayList<>();
-            data.add(rowId);
+        private void parseEvent(TableChange change) {
+            final Map<String, List<Object>> rows = fetch(change);
+            final int size = change.rowIds.size();
+            for (int i = 0; i < size; i++) {
+                final String rowId = change.rowIds.get(i);
+                List<Object> data = new ArrayList<>();
+                data.add(rowId);
+                final int event = change.events.get(i);
+                if (event != TableChangeDescription.TableOperation.DELETE.getCode() && rows.containsKey(rowId)) {
+                    data.addAll(rows.get(rowId));
+                }
+                listeners.forEach(e -> e.onEvents(new RowChangeEvent(change.tableName, event, data)));
+            }
+        }
 
-            if (event.getCode() != TableChangeDescription.TableOperation.DELETE.getCode()) {
-                ResultSet rs = null;
-                try {
-                    rs = statement.executeQuery(String.format(QUERY_ROW_DATA_SQL, tableName, rowId));
-                    final int size = rs.getMetaData().getColumnCount();
-                    while (rs.next()) {
-                        for (int i = 1; i <= size; i++) {
-                            data.add(rs.getObject(i));
-                        }
+        /**
+         * 批量反查新增/修改的行
+         *
+         * @param change
+         * @return {ROWID: 行数据}
+         */
+        private Map<String, List<Object>> fetch(TableChange change) {
+            final List<String> rowIds = new ArrayList<>(new LinkedHashSet<>(change.getChangedRowIds()));
+            final Map<String, List<Object>> rows = new HashMap<>(rowIds.size());
+            int from = 0;
+            while (from < rowIds.size()) {
+                final int remaining = rowIds.size() - from;
+                int batch = BATCH_SIZE[BATCH_SIZE.length - 1];
+                for (int b : BATCH_SIZE) {
+                    if (b >= remaining) {
+                        batch = b;
+                        break;
                     }
+                }
+                final List<String> ids = rowIds.subList(from, Math.min(rowIds.size(), from + batch));
+                try {
+                    fetch(change.tableName, ids, batch, rows);
                 } catch (SQLException e) {
                     logger.error(e.getMessage());
-                } finally {
-                    close(rs);
+                    // 连接可能已失效, 下次重新建立
+                    closeQueryConnection();
+                }
+                from += ids.size();
+            }
+            return rows;
+        }
+
+        private void fetch(String tableName, List<String> ids, int batch, Map<String, List<Object>> rows) throws SQLException {
+            StringBuilder params = new StringBuilder();
+            for (int i = 0; i < batch; i++) {
+                params.append(i > 0 ? ",?" : "?");
+            }
+            PreparedStatement ps = null;
+            ResultSet rs = null;
+            try {
+                ps = getQueryConnection().prepareStatement(String.format(QUERY_ROW_DATA_SQL, tableName, params));
+                final int size = ids.size();
+                for (int i = 0; i < batch; i++) {
+                    ps.setString(i + 1, ids.get(Math.min(i, size - 1)));
+                }
+                ps.setFetchSize(batch);
+                rs = ps.executeQuery();
+                final int columnCount = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    List<Object> data = new ArrayList<>(columnCount - 1);
+                    for (int i = 2; i <= columnCount; i++) {
+                        data.add(rs.getObject(i));
+                    }
+                    rows.put(rs.getString(1), data);
+                }
+            } finally {
+                close(rs);
+                if (null != ps) {
+                    ps.close();
                 }
             }
+        }
+    }
+
+    static final class TableChange {
+        private final String tableName;
+        private final List<String> rowIds = new ArrayList<>();
+        private final List<Integer> events = new ArrayList<>();
+
+        TableChange(String tableName) {
+            this.tableName = tableName;
+        }
+
+        void add(String rowId, int event) {
+            rowIds.add(rowId);
+            events.add(event);
+        }
 
-            listeners.forEach(e -> e.onEvents(new RowChangeEvent(tableName, event.getCode(), data)));
+        List<String> getChangedRowIds() {
+            final List<String> list = new ArrayList<>();
+            final int size = rowIds.size();
+            for (int i = 0; i < size; i++) {
+                if (events.get(i) != TableChangeDescription.TableOperation.DELETE.getCode()) {
+                    list.add(rowIds.get(i));
+                }
+            }
+            return list;
         }
     }
 
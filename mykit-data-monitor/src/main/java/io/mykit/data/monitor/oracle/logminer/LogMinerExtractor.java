@@ -0,0 +1,430 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.oracle.logminer;
+
+import io.mykit.data.common.event.Event;
+import io.mykit.data.common.utils.DateFormatUtils;
+import io.mykit.data.connector.config.DatabaseConfig;
+import io.mykit.data.connector.constants.ConnectorConstants;
+import io.mykit.data.connector.utils.JDBCUtils;
+import io.mykit.data.monitor.AbstractExtractor;
+import io.mykit.data.monitor.exception.ListenerException;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 基于LogMiner的Oracle增量抽取
+ * <p>按SCN窗口批量读取重做日志, 不依赖数据库回调端口, 也没有逐行反查:
+ * <ol>
+ * <li>每个窗口加入覆盖该范围的归档日志和在线日志, 以字典模式DICT_FROM_ONLINE_CATALOG启动LogMiner</li>
+ * <li>按事务缓存行变更, 提交时按顺序通知, 回滚时丢弃; 未提交的事务跨窗口保留在内存中, 每个窗口只读取新的范围</li>
+ * <li>断点记录未提交事务的最早SCN, 最后通知的提交SCN及该SCN上已通知的事务; 重启或读取失败后从最早SCN重新读取以恢复未提交的事务, 跳过已通知的事务</li>
+ * </ol>
+ * <p>需开启归档和补充日志:
+ * <p>ALTER DATABASE ADD SUPPLEMENTAL LOG DATA (ALL) COLUMNS;
+ * <p>GRANT SELECT ANY TRANSACTION, LOGMINING, SELECT ON V_$DATABASE, V_$LOG, V_$LOGFILE, V_$ARCHIVED_LOG, V_$LOGMNR_CONTENTS TO AE86;
+ */
+public class LogMinerExtractor extends AbstractExtractor {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final String SCN = "scn";
+    private static final String COMMIT_SCN = "commitScn";
+    private static final String COMMIT_XID = "commitXid";
+
+    // 每个窗口最多读取的SCN范围
+    private static final long WINDOW = 100000L;
+    // 没有新日志时的等待时间(毫秒)
+    private static final long IDLE = 1000L;
+    private static final int FETCH_SIZE = 2000;
+
+    private static final int INSERT = 1;
+    private static final int DELETE = 2;
+    private static final int UPDATE = 3;
+    private static final int DDL = 5;
+    private static final int START = 6;
+    private static final int COMMIT = 7;
+    private static final int ROLLBACK = 36;
+
+    private static final String CURRENT_SCN_SQL = "SELECT CURRENT_SCN FROM V$DATABASE";
+    private static final String TIMESTAMP_TO_SCN_SQL = "SELECT TIMESTAMP_TO_SCN(?) FROM DUAL";
+    private static final String ARCHIVED_LOG_SQL = "SELECT NAME, THREAD#, SEQUENCE# FROM V$ARCHIVED_LOG WHERE NAME IS NOT NULL AND STATUS = 'A' "
+            + "AND STANDBY_DEST = 'NO' AND FIRST_CHANGE# <= ? AND NEXT_CHANGE# > ? ORDER BY SEQUENCE#";
+    private static final String ONLINE_LOG_SQL = "SELECT MIN(F.MEMBER), L.THREAD#, L.SEQUENCE# FROM V$LOG L JOIN V$LOGFILE F ON L.GROUP# = F.GROUP# "
+            + "WHERE L.FIRST_CHANGE# <= ? AND (L.STATUS = 'CURRENT' OR L.NEXT_CHANGE# > ?) GROUP BY L.THREAD#, L.SEQUENCE# ORDER BY L.SEQUENCE#";
+    private static final String ADD_LOGFILE_SQL = "BEGIN DBMS_LOGMNR.ADD_LOGFILE(LOGFILENAME => ?, OPTIONS => DBMS_LOGMNR.ADDFILE); END;";
+    private static final String START_LOGMNR_SQL = "BEGIN DBMS_LOGMNR.START_LOGMNR(STARTSCN => ?, ENDSCN => ?, "
+            + "OPTIONS => DBMS_LOGMNR.DICT_FROM_ONLINE_CATALOG + DBMS_LOGMNR.NO_ROWID_IN_STMT); END;";
+    private static final String END_LOGMNR_SQL = "BEGIN DBMS_LOGMNR.END_LOGMNR; END;";
+    private static final String CONTENTS_SQL = "SELECT SCN, OPERATION_CODE, TABLE_NAME, RAWTOHEX(XID), CSF, SQL_REDO FROM V$LOGMNR_CONTENTS "
+            + "WHERE SCN >= ? AND SCN < ? AND (OPERATION_CODE IN (6, 7, 36) OR (SEG_OWNER = ? AND OPERATION_CODE IN (1, 2, 3, 5)))";
+    private static final String COLUMNS_SQL = "SELECT COLUMN_NAME FROM ALL_TAB_COLUMNS WHERE OWNER = ? AND TABLE_NAME = ? ORDER BY COLUMN_ID";
+
+    private volatile boolean running;
+    private Thread worker;
+    private Connection conn;
+    private String owner;
+
+    // 未提交事务的最早SCN, 重启后从此处恢复
+    private long startScn;
+    // 已读取到的SCN(不含)
+    private long endScn;
+    // 最后通知的提交SCN
+    private long commitScn;
+    // 在commitScn上已通知的事务, 多个事务可在同一SCN提交
+    private final Set<String> committed = new HashSet<>();
+
+    // <事务, 行变更>, 跨窗口保留
+    private final Map<String, Transaction> transactions = new LinkedHashMap<>();
+
+    // <表名, 字段>
+    private final Map<String, List<String>> columns = new HashMap<>();
+
+    @Override
+    public void start() {
+        try {
+            final DatabaseConfig config = (DatabaseConfig) connectorConfig;
+            owner = config.getUsername().toUpperCase();
+            conn = connect();
+
+            String scn = map.get(SCN);
+            String commit = map.get(COMMIT_SCN);
+            commitScn = StringUtils.isBlank(commit) ? 0 : Long.parseLong(commit);
+            committed.clear();
+            String xids = map.get(COMMIT_XID);
+            if (StringUtils.isNotBlank(xids)) {
+                committed.addAll(Arrays.asList(StringUtils.split(xids, ",")));
+            }
+            startScn = StringUtils.isBlank(scn) ? readStartScn() : Long.parseLong(scn);
+            endScn = startScn;
+            transactions.clear();
+            logger.info("LogMiner起始SCN:{}, 已提交SCN:{}", startScn, commitScn);
+
+            running = true;
+            worker = new Thread(() -> run(), "oracle-logminer-" + owner);
+            worker.setDaemon(true);
+            worker.start();
+        } catch (Exception e) {
+            logger.error("启动失败:{}", e.getMessage());
+            close();
+            throw new ListenerException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (null != worker) {
+            worker.interrupt();
+            worker = null;
+        }
+        JDBCUtils.close(conn);
+        conn = null;
+    }
+
+    private Connection connect() throws SQLException, ClassNotFoundException {
+        final DatabaseConfig config = (DatabaseConfig) connectorConfig;
+        Connection c = JDBCUtils.getConnection(config.getDriverClassName(), config.getUrl(), config.getUsername(), config.getPassword());
+        try (Statement s = c.createStatement()) {
+            // 日期按固定格式输出, 以便还原为Timestamp
+            s.execute("ALTER SESSION SET NLS_DATE_FORMAT = 'YYYY-MM-DD HH24:MI:SS'");
+            s.execute("ALTER SESSION SET NLS_TIMESTAMP_FORMAT = 'YYYY-MM-DD HH24:MI:SS.FF'");
+        }
+        return c;
+    }
+
+    private long readStartScn() throws SQLException {
+        final String startTime = listenerConfig.getStartTime();
+        if (StringUtils.isBlank(startTime)) {
+            return queryScn(CURRENT_SCN_SQL, null);
+        }
+        return queryScn(TIMESTAMP_TO_SCN_SQL, new Timestamp(DateFormatUtils.stringToTimestamp(startTime)));
+    }
+
+    private long queryScn(String sql, Timestamp arg) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (null != arg) {
+                ps.setTimestamp(1, arg);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (null == conn || conn.isClosed()) {
+                    conn = connect();
+                }
+                final long current = queryScn(CURRENT_SCN_SQL, null);
+                if (current <= endScn) {
+                    TimeUnit.MILLISECONDS.sleep(IDLE);
+                    continue;
+                }
+                // 只读取新的范围, 未提交的事务已在内存中
+                mine(endScn, Math.min(current, endScn + WINDOW));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                logger.error("读取日志失败:{}", e.getMessage());
+                errorEvent(e);
+                JDBCUtils.close(conn);
+                conn = null;
+                // 窗口可能读取了一半, 丢弃缓存的事务, 从未提交事务的最早SCN重新读取
+                transactions.clear();
+                endScn = startScn;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(IDLE * 5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 读取[from, to)范围的日志
+     */
+    private void mine(long from, long to) throws SQLException {
+        addLogFiles(from, to);
+        try (CallableStatement cs = conn.prepareCall(START_LOGMNR_SQL)) {
+            cs.setLong(1, from);
+            cs.setLong(2, to);
+            cs.execute();
+        }
+
+        boolean changed = false;
+        try (PreparedStatement ps = conn.prepareStatement(CONTENTS_SQL)) {
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, from);
+            ps.setLong(2, to);
+            ps.setString(3, owner);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (running && rs.next()) {
+                    final long scn = rs.getLong(1);
+                    final int operation = rs.getInt(2);
+                    final String tableName = rs.getString(3);
+                    final String xid = rs.getString(4);
+                    String redo = rs.getString(6);
+                    // 超长语句分为多行, CSF=1表示下一行继续
+                    if (rs.getInt(5) == 1) {
+                        StringBuilder s = new StringBuilder(StringUtils.defaultString(redo));
+                        while (rs.getInt(5) == 1 && rs.next()) {
+                            s.append(StringUtils.defaultString(rs.getString(6)));
+                        }
+                        redo = s.toString();
+                    }
+
+                    switch (operation) {
+                        case START:
+                            transactions.computeIfAbsent(xid, k -> new Transaction(scn));
+                            break;
+                        case INSERT:
+                        case UPDATE:
+                        case DELETE:
+                            transactions.computeIfAbsent(xid, k -> new Transaction(scn)).rows.add(new Row(tableName, operation, redo));
+                            break;
+                        case COMMIT:
+                            Transaction t = transactions.remove(xid);
+                            if (null != t && !isCommitted(scn, xid)) {
+                                t.rows.forEach(r -> emit(r));
+                                committed(scn, xid);
+                                changed = true;
+                            }
+                            break;
+                        case ROLLBACK:
+                            transactions.remove(xid);
+                            break;
+                        case DDL:
+                            if (isCommitted(scn, xid)) {
+                                break;
+                            }
+                            if (null != tableName && columns.remove(tableName) != null) {
+                                changedSchemaEvent(tableName, getColumns(tableName));
+                            }
+                            committed(scn, xid);
+                            changed = true;
+                            break;
+                        default:
+                    }
+                }
+            }
+        } finally {
+            try (CallableStatement cs = conn.prepareCall(END_LOGMNR_SQL)) {
+                cs.execute();
+            } catch (SQLException e) {
+                logger.warn(e.getMessage());
+            }
+        }
+        if (!running) {
+            return;
+        }
+
+        // 未提交事务的最早SCN, 重启时从此处恢复
+        long next = to;
+        for (Transaction t : transactions.values()) {
+            next = Math.min(next, t.startScn);
+        }
+        startScn = next;
+        endScn = to;
+        synchronized (map) {
+            map.put(SCN, String.valueOf(startScn));
+            map.put(COMMIT_SCN, String.valueOf(commitScn));
+            map.put(COMMIT_XID, StringUtils.join(committed, ","));
+        }
+        if (changed) {
+            flushEvent();
+        }
+    }
+
+    /**
+     * 已通知: 提交SCN小于断点, 或等于断点且该事务已通知
+     */
+    boolean isCommitted(long scn, String xid) {
+        return scn < commitScn || (scn == commitScn && committed.contains(xid));
+    }
+
+    void committed(long scn, String xid) {
+        if (scn > commitScn) {
+            commitScn = scn;
+            committed.clear();
+        }
+        committed.add(xid);
+    }
+
+    private void addLogFiles(long from, long to) throws SQLException {
+        // 同一序列的日志已归档时不再加入在线日志
+        final Map<String, String> files = new LinkedHashMap<>();
+        readLogFiles(ARCHIVED_LOG_SQL, from, to, files);
+        readLogFiles(ONLINE_LOG_SQL, from, to, files);
+        if (files.isEmpty()) {
+            throw new ListenerException(String.format("没有包含SCN[%s]的日志文件", from));
+        }
+        try (CallableStatement cs = conn.prepareCall(ADD_LOGFILE_SQL)) {
+            for (String file : files.values()) {
+                cs.setString(1, file);
+                cs.execute();
+            }
+        }
+    }
+
+    private void readLogFiles(String sql, long from, long to, Map<String, String> files) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, to);
+            ps.setLong(2, from);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    files.putIfAbsent(rs.getInt(2) + "_" + rs.getLong(3), rs.getString(1));
+                }
+            }
+        }
+    }
+
+    private void emit(Row row) {
+        final RedoSqlParser parser = RedoSqlParser.parse(row.redo);
+        if (null == parser) {
+            logger.warn("无法解析:{}", row.redo);
+            return;
+        }
+        final List<String> names = getColumns(row.tableName);
+        if (names.isEmpty()) {
+            return;
+        }
+        switch (row.operation) {
+            case INSERT:
+                changedLogEvent(row.tableName, ConnectorConstants.OPERTION_INSERT, Collections.EMPTY_LIST, toList(names, parser.getAfter()));
+                break;
+            case UPDATE:
+                Map<String, Object> after = new HashMap<>(parser.getBefore());
+                after.putAll(parser.getAfter());
+                changedLogEvent(row.tableName, ConnectorConstants.OPERTION_UPDATE, toList(names, parser.getBefore()), toList(names, after));
+                break;
+            case DELETE:
+                changedLogEvent(row.tableName, ConnectorConstants.OPERTION_DELETE, toList(names, parser.getBefore()), Collections.EMPTY_LIST);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 按表字段顺序排列, 日志中没有的字段为{@link Event#MISSING}
+     */
+    private List<Object> toList(List<String> names, Map<String, Object> row) {
+        List<Object> list = new ArrayList<>(names.size());
+        for (String name : names) {
+            list.add(row.containsKey(name) ? row.get(name) : Event.MISSING);
+        }
+        return list;
+    }
+
+    private List<String> getColumns(String tableName) {
+        List<String> list = columns.get(tableName);
+        if (null != list) {
+            return list;
+        }
+        list = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(COLUMNS_SQL)) {
+            ps.setString(1, owner);
+            ps.setString(2, tableName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("读取表结构失败:{}, {}", tableName, e.getMessage());
+            return Collections.EMPTY_LIST;
+        }
+        columns.put(tableName, list);
+        return list;
+    }
+
+    static final class Transaction {
+        private final long startScn;
+        private final List<Row> rows = new ArrayList<>();
+
+        Transaction(long startScn) {
+            this.startScn = startScn;
+        }
+    }
+
+    static final class Row {
+        private final String tableName;
+        private final int operation;
+        private final String redo;
+
+        Row(String tableName, int operation, String redo) {
+            this.tableName = tableName;
+            this.operation = operation;
+            this.redo = redo;
+        }
+    }
+
+}
@@ -0,0 +1,333 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.oracle.logminer;
+
+import io.mykit.data.common.event.Event;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 解析LogMiner的SQL_REDO, 还原行数据
+ * <p>需开启补充日志, 修改和删除语句的where条件即为变化前的行:
+ * <ol>
+ * <li>insert into "OWNER"."T"("ID","NAME") values ('1','a');</li>
+ * <li>update "OWNER"."T" set "NAME" = 'b' where "ID" = '1' and "NAME" = 'a' and ROWID = 'AAA...';</li>
+ * <li>delete from "OWNER"."T" where "ID" = '1' and "NAME" IS NULL and ROWID = 'AAA...';</li>
+ * </ol>
+ * <p>会话需设置NLS_DATE_FORMAT='YYYY-MM-DD HH24:MI:SS'和NLS_TIMESTAMP_FORMAT='YYYY-MM-DD HH24:MI:SS.FF', 日期转换为Timestamp, 其他值保留字符串
+ */
+public final class RedoSqlParser {
+
+    private final String sql;
+    private int i;
+
+    // 变化前
+    private final Map<String, Object> before = new LinkedHashMap<>();
+    // 变化后
+    private final Map<String, Object> after = new LinkedHashMap<>();
+
+    private RedoSqlParser(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * @param sql SQL_REDO
+     * @return 无法解析时返回null
+     */
+    public static RedoSqlParser parse(String sql) {
+        if (null == sql) {
+            return null;
+        }
+        RedoSqlParser parser = new RedoSqlParser(sql);
+        try {
+            String keyword = parser.word();
+            if ("insert".equalsIgnoreCase(keyword)) {
+                parser.parseInsert();
+                return parser;
+            }
+            if ("update".equalsIgnoreCase(keyword)) {
+                parser.parseUpdate();
+                return parser;
+            }
+            if ("delete".equalsIgnoreCase(keyword)) {
+                parser.parseDelete();
+                return parser;
+            }
+        } catch (IllegalStateException e) {
+            // 不支持的语法
+        }
+        return null;
+    }
+
+    public Map<String, Object> getBefore() {
+        return before;
+    }
+
+    public Map<String, Object> getAfter() {
+        return after;
+    }
+
+    private void parseInsert() {
+        expectWord("into");
+        table();
+        expect('(');
+        List<String> columns = new ArrayList<>();
+        do {
+            columns.add(identifier());
+        } while (accept(','));
+        expect(')');
+        expectWord("values");
+        expect('(');
+        int n = 0;
+        do {
+            Object value = value();
+            if (n < columns.size()) {
+                after.put(columns.get(n), value);
+            }
+            n++;
+        } while (accept(','));
+        expect(')');
+    }
+
+    private void parseUpdate() {
+        table();
+        expectWord("set");
+        do {
+            String column = identifier();
+            expect('=');
+            after.put(column, value());
+        } while (accept(','));
+        where();
+    }
+
+    private void parseDelete() {
+        expectWord("from");
+        table();
+        where();
+    }
+
+    private void where() {
+        skipSpace();
+        if (i >= sql.length() || sql.charAt(i) == ';') {
+            return;
+        }
+        expectWord("where");
+        do {
+            skipSpace();
+            if (i < sql.length() && sql.charAt(i) == '"') {
+                String column = identifier();
+                if (accept('=')) {
+                    before.put(column, value());
+                } else {
+                    expectWord("IS");
+                    expectWord("NULL");
+                    before.put(column, null);
+                }
+            } else {
+                // ROWID = '...'
+                word();
+                expect('=');
+                value();
+            }
+        } while (acceptWord("and"));
+    }
+
+    private void table() {
+        identifier();
+        if (accept('.')) {
+            identifier();
+        }
+    }
+
+    private Object value() {
+        skipSpace();
+        final char c = peek();
+        if (c == '\'') {
+            return string();
+        }
+        if (c == '-' || c == '.' || Character.isDigit(c)) {
+            int start = i++;
+            while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.' || sql.charAt(i) == '+'
+                    || sql.charAt(i) == '-')) {
+                i++;
+            }
+            return sql.substring(start, i);
+        }
+        String name = word();
+        if ("NULL".equalsIgnoreCase(name)) {
+            return null;
+        }
+        // 函数
+        expect('(');
+        List<Object> args = new ArrayList<>();
+        if (!accept(')')) {
+            do {
+                args.add(value());
+            } while (accept(','));
+            expect(')');
+        }
+        return function(name.toUpperCase(), args);
+    }
+
+    private Object function(String name, List<Object> args) {
+        final Object arg = args.isEmpty() ? null : args.get(0);
+        switch (name) {
+            case "TO_DATE":
+            case "TO_TIMESTAMP":
+                try {
+                    return null == arg ? null : Timestamp.valueOf(String.valueOf(arg));
+                } catch (IllegalArgumentException e) {
+                    return arg;
+                }
+            case "HEXTORAW":
+                return null == arg ? null : hexToBytes(String.valueOf(arg));
+            case "UNISTR":
+                return null == arg ? null : unistr(String.valueOf(arg));
+            case "EMPTY_CLOB":
+            case "EMPTY_BLOB":
+                // 大字段内容不在该语句中
+                return Event.MISSING;
+            default:
+                return arg;
+        }
+    }
+
+    private String string() {
+        expect('\'');
+        StringBuilder s = new StringBuilder();
+        while (true) {
+            if (i >= sql.length()) {
+                throw new IllegalStateException("unterminated string");
+            }
+            char c = sql.charAt(i++);
+            if (c == '\'') {
+                if (i < sql.length() && sql.charAt(i) == '\'') {
+                    s.append('\'');
+                    i++;
+                    continue;
+                }
+                return s.toString();
+            }
+            s.append(c);
+        }
+    }
+
+    private String identifier() {
+        skipSpace();
+        if (peek() != '"') {
+            return word();
+        }
+        i++;
+        int end = sql.indexOf('"', i);
+        if (end < 0) {
+            throw new IllegalStateException("unterminated identifier");
+        }
+        String name = sql.substring(i, end);
+        i = end + 1;
+        return name;
+    }
+
+    private String word() {
+        skipSpace();
+        int start = i;
+        while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+            i++;
+        }
+        if (start == i) {
+            throw new IllegalStateException("word expected at " + i);
+        }
+        return sql.substring(start, i);
+    }
+
+    private void expectWord(String word) {
+        if (!word.equalsIgnoreCase(word())) {
+            throw new IllegalStateException(word + " expected");
+        }
+    }
+
+    private boolean acceptWord(String word) {
+        skipSpace();
+        final int end = i + word.length();
+        if (end <= sql.length() && sql.regionMatches(true, i, word, 0, word.length())
+                && (end == sql.length() || !Character.isLetterOrDigit(sql.charAt(end)))) {
+            i = end;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw new IllegalStateException(c + " expected at " + i);
+        }
+    }
+
+    private boolean accept(char c) {
+        skipSpace();
+        if (i < sql.length() && sql.charAt(i) == c) {
+            i++;
+            return true;
+        }
+        return false;
+    }
+
+    private char peek() {
+        if (i >= sql.length()) {
+            throw new IllegalStateException("unexpected end");
+        }
+        return sql.charAt(i);
+    }
+
+    private void skipSpace() {
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+    }
+
+    private static byte[] hexToBytes(String hex) {
+        final int len = hex.length() / 2;
+        byte[] bytes = new byte[len];
+        for (int k = 0; k < len; k++) {
+            bytes[k] = (byte) Integer.parseInt(hex.substring(k * 2, k * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static String unistr(String s) {
+        StringBuilder r = new StringBuilder(s.length());
+        final int len = s.length();
+        for (int k = 0; k < len; k++) {
+            char c = s.charAt(k);
+            if (c == '\\' && k + 4 < len && s.charAt(k + 1) != '\\') {
+                r.append((char) Integer.parseInt(s.substring(k + 1, k + 5), 16));
+                k += 4;
+            } else if (c == '\\' && k + 1 < len && s.charAt(k + 1) == '\\') {
+                r.append('\\');
+                k++;
+            } else {
+                r.append(c);
+            }
+        }
+        return r.toString();
+    }
+
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.quartz;
+
+import io.mykit.data.common.utils.UUIDUtils;
+import io.mykit.data.connector.factory.ConnectorFactory;
+import io.mykit.data.monitor.AbstractExtractor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 按映射关系定时抽取
+ * <p>按定时表达式触发, 每个映射关系在有界线程池中并行读取, 上次读取未完成的映射关系跳过本次
+ */
+public abstract class AbstractQuartzExtractor extends AbstractExtractor implements ScheduledTaskJob {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String threadName;
+
+    protected ConnectorFactory connectorFactory;
+    protected ScheduledTaskService scheduledTaskService;
+    protected List<Map<String, String>> commands;
+    protected int commandSize;
+    protected String taskKey;
+    protected String cron;
+    protected ScheduledThreadPoolExecutor executor;
+    // 每个映射关系是否正在读取
+    private AtomicBoolean[] running;
+
+    protected AbstractQuartzExtractor(String threadName) {
+        this.threadName = threadName;
+    }
+
+    /**
+     * 读取一个映射关系
+     *
+     * @param command
+     * @param index
+     * @return 读取的行数
+     */
+    protected abstract long execute(Map<String, String> command, int index) throws Exception;
+
+    @Override
+    public void start() {
+        init();
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        logger.info("执行定时任务:{} >> {}", taskKey, cron);
+        // 并行执行同步映射关系, 各自维护增量点
+        for (int i = 0; i < commandSize; i++) {
+            final int index = i;
+            // 上次读取未完成时跳过, 不影响其他表
+            if (!running[index].compareAndSet(false, true)) {
+                logger.warn("上次读取未完成, 跳过本次:{} >> {}", taskKey, index);
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        execute(commands.get(index), index);
+                    } catch (Exception e) {
+                        errorEvent(e);
+                        logger.error(e.getMessage());
+                    } finally {
+                        running[index].set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                running[index].set(false);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduledTaskService.stop(taskKey);
+        if (null != executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 立即执行一次, 然后按定时表达式执行
+     */
+    protected void schedule() {
+        run();
+        scheduledTaskService.start(taskKey, cron, this);
+        logger.info("启动定时任务:{} >> {}", taskKey, cron);
+    }
+
+    protected void init() {
+        commandSize = commands.size();
+        taskKey = UUIDUtils.getUUID();
+        cron = listenerConfig.getCronExpression();
+        running = new AtomicBoolean[commandSize];
+        for (int i = 0; i < commandSize; i++) {
+            running[i] = new AtomicBoolean();
+        }
+
+        // 有界线程池, 超过并行数的表排队
+        final int threads = Math.max(1, Math.min(commandSize, listenerConfig.getPollThreads()));
+        executor = new ScheduledThreadPoolExecutor(threads, r -> {
+            Thread t = new Thread(r, threadName + "-" + taskKey);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void setConnectorFactory(ConnectorFactory connectorFactory) {
+        this.connectorFactory = connectorFactory;
+    }
+
+    public void setScheduledTaskService(ScheduledTaskService scheduledTaskService) {
+        this.scheduledTaskService = scheduledTaskService;
+    }
+
+    public void setCommands(List<Map<String, String>> commands) {
+        this.commands = commands;
+    }
+
+}
@@ -17,10 +17,7 @@ package io.mykit.data.monitor.quartz;
 
 import io.mykit.data.common.model.Result;
 import io.mykit.data.common.utils.CollectionUtils;
-import io.mykit.data.common.utils.UUIDUtils;
 import io.mykit.data.connector.constants.ConnectorConstants;
-import io.mykit.data.connector.factory.ConnectorFactory;
-import io.mykit.data.monitor.AbstractExtractor;
 import io.mykit.data.monitor.QuartzFilter;
 import io.mykit.data.monitor.enums.QuartzFilterEnum;
 import org.apache.commons.lang.StringUtils;
@@ -28,8 +25,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -38,86 +41,141 @@ import java.util.stream.Stream;
  * @version 1.0.0
  * @description 默认定时抽取
  */
-public class QuartzExtractor  extends AbstractExtractor implements ScheduledTaskJob {
+public class QuartzExtractor extends AbstractQuartzExtractor {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private ConnectorFactory connectorFactory;
-    private ScheduledTaskService scheduledTaskService;
-    private List<Map<String, String>> commands;
-    private int commandSize;
+    // 时间戳(开始)条件的字段, 例如: "LAST_TIME">'$timestamp_begin$'
+    private static final Pattern TIMESTAMP_COLUMN = Pattern.compile("(\"?[\\w$#]+\"?)\\s*>=?\\s*'" + Pattern.quote(QuartzFilterEnum.TIME_STAMP_BEGIN.getType()) + "'");
+    private static final String CURSOR_TIMESTAMP = "$cursor_timestamp$";
+    private static final String CURSOR_PK = "$cursor_pk$";
+    // 空闲退避的起始间隔(毫秒)
+    private static final long IDLE_INTERVAL = 1000L;
 
     private int readNum;
     private String eventFieldName;
     private Set<String> update;
     private Set<String> insert;
     private Set<String> delete;
-    private String taskKey;
-    private String cron;
-    private AtomicBoolean running;
+    // 自适应间隔(毫秒), 最大间隔大于0时启用, 不再使用定时表达式
+    private boolean adaptive;
+    private long minInterval;
+    private long maxInterval;
+    private long[] interval;
+    // 游标分页失败的映射关系, 改为按页读取
+    private Set<Integer> noCursor;
+
+    public QuartzExtractor() {
+        super("quartz-extractor");
+    }
 
     @Override
     public void start() {
         init();
-        run();
-        scheduledTaskService.start(taskKey, cron, this);
-        logger.info("启动定时任务:{} >> {}", taskKey, cron);
+        if (adaptive) {
+            for (int i = 0; i < commandSize; i++) {
+                schedule(i, 0);
+            }
+            logger.info("启动自适应定时任务:{} >> [{}, {}]ms", taskKey, minInterval, maxInterval);
+            return;
+        }
+        schedule();
     }
 
-    @Override
-    public void run() {
+    private void schedule(int index, long delay) {
         try {
-            logger.info("执行定时任务:{} >> {}", taskKey, cron);
-            if (running.compareAndSet(false, true)) {
-                // 依次执行同步映射关系
-                for (int i = 0; i < commandSize; i++) {
-                    execute(commands.get(i), i);
-                }
+            executor.schedule(() -> poll(index), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已关闭
+        }
+    }
+
+    /**
+     * 自适应间隔: 读到整页时立即再次读取, 有变化时按最小间隔读取, 空闲时间隔翻倍直到最大间隔
+     *
+     * @param index
+     */
+    private void poll(int index) {
+        long next;
+        try {
+            final long rows = execute(commands.get(index), index);
+            if (rows >= readNum) {
+                next = 0;
+            } else if (rows > 0) {
+                next = minInterval;
+            } else {
+                next = Math.min(maxInterval, Math.max(Math.max(minInterval, IDLE_INTERVAL), interval[index] * 2));
             }
-            running.compareAndSet(true, false);
         } catch (Exception e) {
-            running.compareAndSet(true, false);
             errorEvent(e);
             logger.error(e.getMessage());
+            next = maxInterval;
         }
+        interval[index] = next;
+        schedule(index, next);
     }
 
     @Override
-    public void close() {
-        scheduledTaskService.stop(taskKey);
-    }
-
-    private void execute(Map<String, String> command, int index) {
+    protected long execute(Map<String, String> command, int index) {
         // 检查增量点
         Point point = checkLastPoint(command, index);
+        Cursor cursor = checkCursor(command, index);
         int pageIndex = 1;
+        int rows = 0;
         for (; ; ) {
-            Result reader = connectorFactory.reader(connectorConfig, point.getCommand(), point.getArgs(), pageIndex++, readNum);
-            List<Map<String, Object>> data = reader.getData();
+            List<Map<String, Object>> data;
+            if (null != cursor) {
+                try {
+                    // 按(时间戳, 主键)定位, 每次只读取第一页
+                    data = connectorFactory.reader(connectorConfig, cursor.getCommand(), cursor.getArgs(point.getArgs()), 1, readNum).getData();
+                } catch (Exception e) {
+                    if (pageIndex > 1) {
+                        throw e;
+                    }
+                    logger.warn("游标分页失败, 改为按页读取:{}", e.getMessage());
+                    noCursor.add(index);
+                    cursor.clear();
+                    cursor = null;
+                    continue;
+                }
+            } else {
+                Result reader = connectorFactory.reader(connectorConfig, point.getCommand(), point.getArgs(), pageIndex, readNum);
+                data = reader.getData();
+            }
+            pageIndex++;
             if (CollectionUtils.isEmpty(data)) {
                 break;
             }
+            rows += data.size();
 
-            Object event = null;
+            // 连续相同事件的行合并为一批写入, 保持数据源顺序(例如同一行先删除再插入)
+            List<Map<String, Object>> batch = new ArrayList<>();
+            String batchEvent = null;
             for (Map<String, Object> row : data) {
-                event = row.get(eventFieldName);
-                if (update.contains(event)) {
-                    changedQuartzEvent(index, ConnectorConstants.OPERTION_UPDATE, Collections.EMPTY_MAP, row);
+                final String event = getEvent(row.get(eventFieldName));
+                if (null == event) {
                     continue;
                 }
-                if (insert.contains(event)) {
-                    changedQuartzEvent(index, ConnectorConstants.OPERTION_INSERT, Collections.EMPTY_MAP, row);
-                    continue;
-                }
-                if (delete.contains(event)) {
-                    changedQuartzEvent(index, ConnectorConstants.OPERTION_DELETE, row, Collections.EMPTY_MAP);
-                    continue;
+                if (!StringUtils.equals(batchEvent, event) && !batch.isEmpty()) {
+                    changedQuartzEvent(index, batchEvent, batch);
+                    batch = new ArrayList<>();
                 }
-
+                batchEvent = event;
+                batch.add(row);
             }
-            // 更新记录点
+            if (!batch.isEmpty()) {
+                changedQuartzEvent(index, batchEvent, batch);
+            }
+            // 更新记录点, 游标随每页保存, 中断后从该行之后继续
             point.refresh();
+            if (null != cursor) {
+                cursor.seek(data.get(data.size() - 1));
+            }
 
+            // 最后一页
+            if (data.size() < readNum) {
+                break;
+            }
         }
 
         // 持久化
@@ -125,7 +183,57 @@ public class QuartzExtractor  extends AbstractExtractor implements ScheduledTask
             map.putAll(point.getPosition());
             logger.info("增量点：{}", map);
         }
+        // 本次范围已读完, 下次从新的时间戳开始
+        if (null != cursor) {
+            cursor.clear();
+        }
+        return rows;
+    }
+
+    /**
+     * @param value 事件字段值
+     * @return 未知事件返回null
+     */
+    private String getEvent(Object value) {
+        if (update.contains(value)) {
+            return ConnectorConstants.OPERTION_UPDATE;
+        }
+        if (insert.contains(value)) {
+            return ConnectorConstants.OPERTION_INSERT;
+        }
+        if (delete.contains(value)) {
+            return ConnectorConstants.OPERTION_DELETE;
+        }
+        return null;
+    }
+
+    /**
+     * 增量条件包含时间戳(开始)且表有主键时, 按(时间戳, 主键)游标分页
+     *
+     * @param command
+     * @param index
+     * @return 不支持时返回null
+     */
+    private Cursor checkCursor(Map<String, String> command, int index) {
+        final String query = command.get(ConnectorConstants.OPERTION_QUERY_CURSOR);
+        final String pk = command.get(ConnectorConstants.OPERTION_QUERY_PK);
+        if (StringUtils.isBlank(query) || StringUtils.isBlank(pk) || noCursor.contains(index)) {
+            return null;
+        }
+        Matcher matcher = TIMESTAMP_COLUMN.matcher(command.get(ConnectorConstants.OPERTION_QUERY));
+        if (!matcher.find()) {
+            return null;
+        }
+        final String column = StringUtils.remove(matcher.group(1), "\"");
 
+        Cursor cursor = new Cursor(index, column, pk);
+        // 替换系统参数, 与增量查询使用相同的参数
+        String replaceQuery = query;
+        for (QuartzFilterEnum quartzFilter : QuartzFilterEnum.values()) {
+            replaceQuery = StringUtils.replace(replaceQuery, "'" + quartzFilter.getType() + "'", "?");
+        }
+        cursor.setQuery(replaceQuery);
+        return cursor;
     }
 
     private Point checkLastPoint(Map<String, String> command, int index) {
@@ -179,34 +287,103 @@ public class QuartzExtractor  extends AbstractExtractor implements ScheduledTask
         return point;
     }
 
-    private void init() {
-        commandSize = commands.size();
-
+    @Override
+    protected void init() {
+        super.init();
         readNum = listenerConfig.getReadNum();
         eventFieldName = listenerConfig.getEventFieldName();
         update = Stream.of(listenerConfig.getUpdate().split(",")).collect(Collectors.toSet());
         insert = Stream.of(listenerConfig.getInsert().split(",")).collect(Collectors.toSet());
         delete = Stream.of(listenerConfig.getDelete().split(",")).collect(Collectors.toSet());
+        noCursor = ConcurrentHashMap.newKeySet();
 
-        taskKey = UUIDUtils.getUUID();
-        cron = listenerConfig.getCronExpression();
-        running = new AtomicBoolean();
+        maxInterval = TimeUnit.SECONDS.toMillis(Math.max(0, listenerConfig.getMaxInterval()));
+        minInterval = Math.min(maxInterval, TimeUnit.SECONDS.toMillis(Math.max(0, listenerConfig.getMinInterval())));
+        adaptive = maxInterval > 0;
+        interval = new long[commandSize];
     }
 
     private boolean appearNotMoreThanOnce(String str, String searchStr) {
         return StringUtils.indexOf(str, searchStr) == StringUtils.lastIndexOf(str, searchStr);
     }
 
-    public void setConnectorFactory(ConnectorFactory connectorFactory) {
-        this.connectorFactory = connectorFactory;
-    }
+    /**
+     * 游标, 记录已读取的最后一行(时间戳, 主键), 与增量点一起保存
+     */
+    final class Cursor {
+
+        private final String timestampKey;
+        private final String pkKey;
+        private final String column;
+        private final String pk;
+        private final Map<String, String> command = new HashMap<>();
+        private String query;
+        private Object timestamp;
+        private Object pkValue;
+
+        public Cursor(int index, String column, String pk) {
+            this.timestampKey = index + CURSOR_TIMESTAMP;
+            this.pkKey = index + CURSOR_PK;
+            this.column = column;
+            this.pk = pk;
+            // 上次读取中断时的位置
+            if (map.containsKey(timestampKey) && map.containsKey(pkKey)) {
+                this.timestamp = toObject(map.get(timestampKey));
+                this.pkValue = map.get(pkKey);
+            }
+        }
 
-    public void setScheduledTaskService(ScheduledTaskService scheduledTaskService) {
-        this.scheduledTaskService = scheduledTaskService;
-    }
+        public void setQuery(String query) {
+            this.query = query;
+        }
+
+        public Map<String, String> getCommand() {
+            final String order = String.format(" ORDER BY %s, %s", column, pk);
+            final String condition = null == timestamp ? "1=1" : String.format("(%s > ? OR (%s = ? AND %s > ?))", column, column, pk);
+            command.put(ConnectorConstants.OPERTION_QUERY, StringUtils.replace(query, ConnectorConstants.QUERY_CURSOR_CONDITION, condition + order));
+            return command;
+        }
+
+        public List<Object> getArgs(List<Object> args) {
+            if (null != timestamp) {
+                args.add(timestamp);
+                args.add(timestamp);
+                args.add(pkValue);
+            }
+            return args;
+        }
+
+        public void seek(Map<String, Object> row) {
+            Object ts = row.get(column);
+            Object id = row.get(pk);
+            if (null == ts || null == id) {
+                return;
+            }
+            if (ts instanceof LocalDateTime) {
+                ts = Timestamp.valueOf((LocalDateTime) ts);
+            } else if (ts instanceof Date && !(ts instanceof Timestamp)) {
+                ts = new Timestamp(((Date) ts).getTime());
+            }
+            timestamp = ts;
+            pkValue = id;
+            map.put(timestampKey, String.valueOf(timestamp));
+            map.put(pkKey, String.valueOf(pkValue));
+        }
 
-    public void setCommands(List<Map<String, String>> commands) {
-        this.commands = commands;
+        public void clear() {
+            timestamp = null;
+            pkValue = null;
+            map.remove(timestampKey);
+            map.remove(pkKey);
+        }
+
+        private Object toObject(String value) {
+            try {
+                return Timestamp.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                return value;
+            }
+        }
     }
 
     final class Point {
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.snapshot;
+
+import io.mykit.data.common.utils.CollectionUtils;
+import io.mykit.data.common.utils.UUIDUtils;
+import io.mykit.data.connector.constants.ConnectorConstants;
+import io.mykit.data.monitor.enums.QuartzFilterEnum;
+import io.mykit.data.monitor.exception.ListenerException;
+import io.mykit.data.monitor.quartz.AbstractQuartzExtractor;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 快照对比抽取, 适用于没有时间戳字段且无法读取日志的表
+ * <p>定时按主键顺序扫描数据源表, 与本地保存的上次扫描摘要对比, 只发送增删改:
+ * <ol>
+ * <li>按上次扫描的块边界分段读取, 块摘要相同时跳过逐行对比</li>
+ * <li>块摘要不同时按行摘要对比, 上次存在而本次不存在的主键为删除</li>
+ * <li>首次扫描只建立索引, 不发送事件(由全量同步完成初始数据)</li>
+ * <li>新索引写完后才更新增量点, 与断点一起落盘, 保留上一版本索引</li>
+ * </ol>
+ */
+public class SnapshotExtractor extends AbstractQuartzExtractor {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private static final String PATH = "data" + File.separator + "snapshot" + File.separator;
+    // 索引目录
+    private static final String SNAPSHOT_ID = "snapshot";
+    // 索引版本, 0表示没有索引
+    private static final String SNAPSHOT_VERSION = "$snapshot_version$";
+
+    private int readNum;
+    private int chunkSize;
+    private File dir;
+    private volatile boolean closed;
+
+    public SnapshotExtractor() {
+        super("snapshot-extractor");
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        super.close();
+    }
+
+    @Override
+    protected long execute(Map<String, String> command, int index) throws IOException {
+        final String query = command.get(ConnectorConstants.OPERTION_QUERY_CURSOR);
+        final String pk = command.get(ConnectorConstants.OPERTION_QUERY_PK);
+        if (StringUtils.isBlank(query) || StringUtils.isBlank(pk)) {
+            throw new ListenerException(String.format("快照对比需要单一主键的表, 映射关系:%s", index));
+        }
+        Assert.isTrue(Stream.of(QuartzFilterEnum.values()).noneMatch(f -> StringUtils.contains(query, f.getType())), "快照对比不支持系统参数.");
+
+        final String versionKey = index + SNAPSHOT_VERSION;
+        final long version = NumberUtils.toLong(map.get(versionKey), 0);
+        final File current = new File(dir, index + "_" + version);
+        final File next = new File(dir, index + "_" + (version + 1));
+        final boolean baseline = 0 == version || !current.exists();
+        if (baseline) {
+            logger.info("首次扫描, 建立快照索引:{}", next.getPath());
+        }
+
+        final Count count = new Count();
+        try (SnapshotIndex.Reader reader = baseline ? null : new SnapshotIndex.Reader(current);
+             SnapshotIndex.Writer writer = new SnapshotIndex.Writer(next, chunkSize)) {
+            // 按上次的块边界分段读取, 最后一段没有上边界
+            String lower = null;
+            for (; ; ) {
+                final SnapshotIndex.Chunk chunk = null == reader ? null : reader.next();
+                final String upper = null == chunk ? null : chunk.getLast();
+                final Range range = baseline ? null : new Range(index, chunk, count);
+                String cursor = lower;
+                for (; ; ) {
+                    if (closed) {
+                        return count.rows;
+                    }
+                    List<Map<String, Object>> data = read(query, pk, cursor, upper);
+                    if (CollectionUtils.isEmpty(data)) {
+                        break;
+                    }
+                    for (Map<String, Object> row : data) {
+                        final String key = String.valueOf(row.get(pk));
+                        final long hash = SnapshotIndex.hash(row);
+                        writer.add(key, hash);
+                        if (null != range) {
+                            range.add(key, hash, row);
+                        }
+                    }
+                    count.rows += data.size();
+                    cursor = String.valueOf(data.get(data.size() - 1).get(pk));
+                    if (data.size() < readNum) {
+                        break;
+                    }
+                }
+                if (null != range) {
+                    range.finish();
+                }
+                if (null == chunk) {
+                    break;
+                }
+                lower = upper;
+            }
+            writer.finish();
+        }
+
+        // 切换索引版本, 断点落盘前重启时仍使用上一版本
+        map.put(versionKey, String.valueOf(version + 1));
+        final File expired = new File(dir, index + "_" + (version - 1));
+        if (expired.exists() && !expired.delete()) {
+            logger.warn("删除快照索引失败:{}", expired.getPath());
+        }
+        logger.info("快照对比完成:{} >> rows:{}, insert:{}, update:{}, delete:{}, skipped chunks:{}", index, count.rows,
+                count.insert, count.update, count.delete, count.skipped);
+        return count.rows;
+    }
+
+    /**
+     * 按主键顺序读取(lower, upper]
+     */
+    private List<Map<String, Object>> read(String query, String pk, String lower, String upper) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder condition = new StringBuilder();
+        if (null != lower) {
+            condition.append(pk).append(" > ?");
+            args.add(lower);
+        }
+        if (null != upper) {
+            condition.append(null != lower ? " AND " : "").append(pk).append(" <= ?");
+            args.add(upper);
+        }
+        if (0 == condition.length()) {
+            condition.append("1=1");
+        }
+        condition.append(" ORDER BY ").append(pk);
+
+        Map<String, String> command = new HashMap<>();
+        command.put(ConnectorConstants.OPERTION_QUERY, StringUtils.replace(query, ConnectorConstants.QUERY_CURSOR_CONDITION, condition.toString()));
+        return connectorFactory.reader(connectorConfig, command, args, 1, readNum).getData();
+    }
+
+    @Override
+    protected void init() {
+        super.init();
+        readNum = listenerConfig.getReadNum();
+        chunkSize = Math.max(1, listenerConfig.getSnapshotChunkSize());
+
+        // 索引目录与增量点一起保存, 重置增量点后重新建立索引
+        String id = map.get(SNAPSHOT_ID);
+        if (StringUtils.isBlank(id)) {
+            id = UUIDUtils.getUUID();
+            map.put(SNAPSHOT_ID, id);
+        }
+        dir = new File(PATH + id);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new ListenerException(String.format("创建快照目录失败:%s", dir.getPath()));
+        }
+    }
+
+    /**
+     * 与上次扫描的一块对比, 块摘要相同时不解析上次的行摘要
+     */
+    final class Range {
+
+        private final int index;
+        private final SnapshotIndex.Chunk chunk;
+        private final Count count;
+        private final List<String> keys = new ArrayList<>();
+        private final List<Long> hashes = new ArrayList<>();
+        private final List<Map<String, Object>> rows = new ArrayList<>();
+        private long hash = SnapshotIndex.emptyHash();
+        private int size;
+        // 上次的行摘要, 已对比的行会被移除
+        private Map<String, Long> last;
+
+        Range(int index, SnapshotIndex.Chunk chunk, Count count) {
+            this.index = index;
+            this.chunk = chunk;
+            this.count = count;
+        }
+
+        void add(String key, long rowHash, Map<String, Object> row) throws IOException {
+            hash = SnapshotIndex.hash(hash, key, rowHash);
+            size++;
+            keys.add(key);
+            hashes.add(rowHash);
+            rows.add(row);
+            // 新增较多时提前对比, 避免缓存整段数据
+            if (rows.size() >= chunkSize * 2) {
+                diff();
+            }
+        }
+
+        void finish() throws IOException {
+            if (null == last && null != chunk && size == chunk.getCount() && hash == chunk.getHash()) {
+                count.skipped++;
+                return;
+            }
+            diff();
+
+            // 剩余的为删除
+            if (!last.isEmpty()) {
+                List<Map<String, Object>> deletes = new ArrayList<>(last.size());
+                last.keySet().forEach(k -> {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put(commands.get(index).get(ConnectorConstants.OPERTION_QUERY_PK), k);
+                    deletes.add(row);
+                });
+                count.delete += deletes.size();
+                changedQuartzEvent(index, ConnectorConstants.OPERTION_DELETE, deletes);
+            }
+        }
+
+        private void diff() throws IOException {
+            if (null == last) {
+                last = null == chunk ? new HashMap<>() : chunk.getRows();
+            }
+            List<Map<String, Object>> inserts = new ArrayList<>();
+            List<Map<String, Object>> updates = new ArrayList<>();
+            final int n = rows.size();
+            for (int i = 0; i < n; i++) {
+                final Long h = last.remove(keys.get(i));
+                if (null == h) {
+                    inserts.add(rows.get(i));
+                } else if (h != hashes.get(i).longValue()) {
+                    updates.add(rows.get(i));
+                }
+            }
+            keys.clear();
+            hashes.clear();
+            rows.clear();
+
+            count.insert += inserts.size();
+            count.update += updates.size();
+            if (!inserts.isEmpty()) {
+                changedQuartzEvent(index, ConnectorConstants.OPERTION_INSERT, inserts);
+            }
+            if (!updates.isEmpty()) {
+                changedQuartzEvent(index, ConnectorConstants.OPERTION_UPDATE, updates);
+            }
+        }
+    }
+
+    static final class Count {
+        long rows;
+        long insert;
+        long update;
+        long delete;
+        long skipped;
+    }
+}
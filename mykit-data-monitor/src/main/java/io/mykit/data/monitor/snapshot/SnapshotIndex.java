@@ -0,0 +1,219 @@
+/**
+ * Copyright 2020-9999 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.mykit.data.monitor.snapshot;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 快照摘要索引
+ * <p>按主键顺序保存上次扫描的每行摘要, 每N行为一块:
+ * <ol>
+ * <li>块头: 行数, 块摘要, 最后一行主键, 行数据长度</li>
+ * <li>行数据: 主键, 行摘要</li>
+ * <li>行数为0表示结束</li>
+ * </ol>
+ * <p>块摘要相同时不解析该块的行数据
+ */
+public final class SnapshotIndex {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SnapshotIndex() {
+    }
+
+    /**
+     * 行摘要, 按查询结果的字段顺序计算
+     *
+     * @param row
+     * @return
+     */
+    public static long hash(Map<String, Object> row) {
+        long hash = FNV_OFFSET;
+        for (Object value : row.values()) {
+            final String s = value instanceof byte[] ? Arrays.toString((byte[]) value) : String.valueOf(value);
+            hash = hash(hash, s);
+        }
+        return hash;
+    }
+
+    /**
+     * 块摘要, 依次累加(主键, 行摘要)
+     *
+     * @param hash 上一行的块摘要
+     * @param pk
+     * @param row  行摘要
+     * @return
+     */
+    public static long hash(long hash, String pk, long row) {
+        hash = hash(hash, pk);
+        for (int i = 0; i < 8; i++) {
+            hash ^= (row >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    public static long emptyHash() {
+        return FNV_OFFSET;
+    }
+
+    private static long hash(long hash, String s) {
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= FNV_PRIME;
+        }
+        // 字段分隔
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+
+    /**
+     * 上次扫描的一块
+     */
+    public static final class Chunk {
+        private final int count;
+        private final long hash;
+        private final String last;
+        private final byte[] rows;
+
+        Chunk(int count, long hash, String last, byte[] rows) {
+            this.count = count;
+            this.hash = hash;
+            this.last = last;
+            this.rows = rows;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        /**
+         * @return 块的上边界(含)
+         */
+        public String getLast() {
+            return last;
+        }
+
+        /**
+         * @return <主键, 行摘要>
+         */
+        public Map<String, Long> getRows() throws IOException {
+            final Map<String, Long> map = new LinkedHashMap<>(count * 4 / 3 + 1);
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(rows))) {
+                for (int i = 0; i < count; i++) {
+                    map.put(in.readUTF(), in.readLong());
+                }
+            }
+            return map;
+        }
+    }
+
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+
+        public Reader(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        /**
+         * @return 没有更多时返回null
+         */
+        public Chunk next() throws IOException {
+            final int count = in.readInt();
+            if (count <= 0) {
+                return null;
+            }
+            final long hash = in.readLong();
+            final String last = in.readUTF();
+            final byte[] rows = new byte[in.readInt()];
+            in.readFully(rows);
+            return new Chunk(count, hash, last, rows);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static final class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final int chunkSize;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream rows = new DataOutputStream(buffer);
+        private int count;
+        private long hash = emptyHash();
+        private String last;
+
+        public Writer(File file, int chunkSize) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            this.chunkSize = Math.max(1, chunkSize);
+        }
+
+        public void add(String pk, long rowHash) throws IOException {
+            rows.writeUTF(pk);
+            rows.writeLong(rowHash);
+            hash = hash(hash, pk, rowHash);
+            last = pk;
+            if (++count >= chunkSize) {
+                flushChunk();
+            }
+        }
+
+        /**
+         * 写入结束标记
+         */
+        public void finish() throws IOException {
+            flushChunk();
+            out.writeInt(0);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void flushChunk() throws IOException {
+            if (0 == count) {
+                return;
+            }
+            rows.flush();
+            out.writeInt(count);
+            out.writeLong(hash);
+            out.writeUTF(last);
+            out.writeInt(buffer.size());
+            buffer.writeTo(out);
+            buffer.reset();
+            count = 0;
+            hash = emptyHash();
+            last = null;
+        }
+    }
+
+}
@@ -0,0 +1,148 @@
+package io.mykit.data.monitor.mysql;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 表结构DDL解析
+ */
+public class DdlParserTest {
+
+    private static final List<String> COLUMNS = Arrays.asList("id", "name", "age");
+
+    private List<String> alter(String sql) {
+        DdlParser ddl = DdlParser.parse(sql);
+        assertNotNull(ddl);
+        assertEquals(DdlParser.Type.ALTER, ddl.getType());
+        return ddl.apply(COLUMNS);
+    }
+
+    @Test
+    public void testCreate() {
+        DdlParser ddl = DdlParser.parse("CREATE TABLE IF NOT EXISTS `db`.`user` (`id` int(11) NOT NULL AUTO_INCREMENT, "
+                + "`name` varchar(50) DEFAULT 'a,b', age int, PRIMARY KEY (`id`), KEY `idx_name` (`name`, age)) ENGINE=InnoDB");
+        assertNotNull(ddl);
+        assertEquals(DdlParser.Type.CREATE, ddl.getType());
+        assertEquals("db", ddl.getTables().get(0)[0]);
+        assertEquals("user", ddl.getTables().get(0)[1]);
+        assertEquals(COLUMNS, ddl.apply(null));
+    }
+
+    @Test
+    public void testCreateLike() {
+        DdlParser ddl = DdlParser.parse("CREATE TABLE user2 LIKE user");
+        assertNotNull(ddl);
+        assertEquals(DdlParser.Type.CREATE, ddl.getType());
+        assertNull(ddl.apply(null));
+
+        ddl = DdlParser.parse("CREATE TABLE user2 (id int) SELECT * FROM user");
+        assertNotNull(ddl);
+        assertNull(ddl.apply(null));
+    }
+
+    @Test
+    public void testAdd() {
+        assertEquals(Arrays.asList("id", "name", "age", "email"), alter("ALTER TABLE user ADD COLUMN email varchar(50)"));
+        assertEquals(Arrays.asList("email", "id", "name", "age"), alter("ALTER TABLE user ADD email varchar(50) FIRST"));
+        assertEquals(Arrays.asList("id", "email", "name", "age"), alter("ALTER TABLE user ADD COLUMN `email` varchar(50) NOT NULL AFTER `id`"));
+        assertEquals(Arrays.asList("id", "name", "age", "a", "b"), alter("ALTER TABLE user ADD COLUMN (a int, b varchar(10))"));
+        // 索引不影响字段
+        assertEquals(COLUMNS, alter("ALTER TABLE user ADD INDEX idx_age (age)"));
+        // 字段已存在或AFTER的字段不存在, 无法确定
+        assertNull(alter("ALTER TABLE user ADD name int"));
+        assertNull(alter("ALTER TABLE user ADD email int AFTER unknown"));
+    }
+
+    @Test
+    public void testDrop() {
+        assertEquals(Arrays.asList("id", "age"), alter("ALTER TABLE user DROP COLUMN name"));
+        assertEquals(Arrays.asList("id", "name"), alter("ALTER TABLE user DROP `age`"));
+        assertEquals(COLUMNS, alter("ALTER TABLE user DROP PRIMARY KEY"));
+        assertEquals(COLUMNS, alter("ALTER TABLE user DROP INDEX idx_name"));
+        assertNull(alter("ALTER TABLE user DROP COLUMN unknown"));
+    }
+
+    @Test
+    public void testChange() {
+        assertEquals(Arrays.asList("id", "user_name", "age"), alter("ALTER TABLE user CHANGE name user_name varchar(50)"));
+        assertEquals(Arrays.asList("user_name", "id", "age"), alter("ALTER TABLE user CHANGE COLUMN `name` `user_name` varchar(50) FIRST"));
+        assertEquals(Arrays.asList("id", "age", "user_name"), alter("ALTER TABLE user CHANGE name user_name varchar(50) AFTER age"));
+    }
+
+    @Test
+    public void testModify() {
+        assertEquals(COLUMNS, alter("ALTER TABLE user MODIFY name varchar(100) COMMENT 'after first'"));
+        assertEquals(Arrays.asList("age", "id", "name"), alter("ALTER TABLE user MODIFY COLUMN age int FIRST"));
+        assertEquals(Arrays.asList("name", "id", "age"), alter("ALTER TABLE user MODIFY id int AFTER name"));
+    }
+
+    @Test
+    public void testRenameColumn() {
+        assertEquals(Arrays.asList("id", "user_name", "age"), alter("ALTER TABLE user RENAME COLUMN name TO user_name"));
+        // 改表名和改索引名不影响字段
+        assertEquals(COLUMNS, alter("ALTER TABLE user RENAME INDEX a TO b"));
+    }
+
+    @Test
+    public void testMultiClause() {
+        assertEquals(Arrays.asList("email", "id", "user_name"),
+                alter("ALTER TABLE user DROP COLUMN age, CHANGE name user_name varchar(50), ADD email varchar(50) FIRST, ADD KEY idx (email)"));
+    }
+
+    @Test
+    public void testVersionComment() {
+        assertEquals(Arrays.asList("id", "name", "age", "email"), alter("ALTER TABLE user /*!50100 ADD COLUMN email int */"));
+        // 普通注释忽略
+        assertEquals(COLUMNS, alter("ALTER TABLE user /* ADD COLUMN email int */ ENGINE=InnoDB"));
+        DdlParser ddl = DdlParser.parse("/*!40000 ALTER TABLE `user` DISABLE KEYS */");
+        assertNotNull(ddl);
+        assertEquals(COLUMNS, ddl.apply(COLUMNS));
+    }
+
+    @Test
+    public void testAlterRename() {
+        DdlParser ddl = DdlParser.parse("ALTER TABLE db.user RENAME TO db.user2");
+        assertNotNull(ddl);
+        assertEquals("user2", ddl.getNewName()[1]);
+        assertEquals(COLUMNS, ddl.apply(COLUMNS));
+        assertNull(DdlParser.parse("ALTER TABLE user ADD email int").getNewName());
+    }
+
+    @Test
+    public void testRenameTable() {
+        DdlParser ddl = DdlParser.parse("RENAME TABLE a TO b, db.c TO db2.d");
+        assertNotNull(ddl);
+        assertEquals(DdlParser.Type.RENAME, ddl.getType());
+        assertEquals(2, ddl.getTables().size());
+        assertEquals("a", ddl.getTables().get(0)[1]);
+        assertEquals("b", ddl.getTables().get(0)[3]);
+        assertEquals("db", ddl.getTables().get(1)[0]);
+        assertEquals("c", ddl.getTables().get(1)[1]);
+        assertEquals("db2", ddl.getTables().get(1)[2]);
+        assertEquals("d", ddl.getTables().get(1)[3]);
+    }
+
+    @Test
+    public void testDropTable() {
+        DdlParser ddl = DdlParser.parse("DROP TABLE IF EXISTS a, `db`.`b`");
+        assertNotNull(ddl);
+        assertEquals(DdlParser.Type.DROP, ddl.getType());
+        assertEquals(2, ddl.getTables().size());
+        assertEquals("b", ddl.getTables().get(1)[1]);
+    }
+
+    @Test
+    public void testNotDdl() {
+        assertNull(DdlParser.parse("BEGIN"));
+        assertNull(DdlParser.parse("INSERT INTO user VALUES (1)"));
+        assertNull(DdlParser.parse("CREATE TEMPORARY TABLE t (id int)"));
+        assertNull(DdlParser.parse("CREATE INDEX idx ON user (name)"));
+    }
+
+}
@@ -0,0 +1,74 @@
+package io.mykit.data.monitor.mysql;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 表结构版本
+ */
+public class SchemaHistoryTest {
+
+    private static final List<String> V1 = Arrays.asList("id", "name");
+    private static final List<String> V2 = Arrays.asList("id", "name", "age");
+    private static final List<String> V3 = Arrays.asList("id", "age");
+
+    private SchemaHistory history() {
+        SchemaHistory history = new SchemaHistory();
+        history.put("user", "mysql-bin.000009", 100, V1);
+        history.put("user", "mysql-bin.000010", 200, V2);
+        history.put("user", "mysql-bin.000010", 500, V3);
+        return history;
+    }
+
+    @Test
+    public void testGet() {
+        SchemaHistory history = history();
+        assertNull(history.get("user", "mysql-bin.000009", 99));
+        assertEquals(V1, history.get("user", "mysql-bin.000009", 100));
+        assertEquals(V1, history.get("user", "mysql-bin.000010", 199));
+        assertEquals(V2, history.get("user", "mysql-bin.000010", 200));
+        assertEquals(V1, history.getBefore("user", "mysql-bin.000010", 200));
+        assertEquals(V3, history.get("user", "mysql-bin.000011", 4));
+        assertNull(history.get("unknown", "mysql-bin.000010", 200));
+    }
+
+    @Test
+    public void testToJsonKeepsCheckpointVersion() {
+        // 增量点在V2和V3之间, 重新读取时需要V2解析之后的行事件
+        SchemaHistory history = new SchemaHistory(history().toJson("mysql-bin.000010", 300));
+        assertEquals(V2, history.get("user", "mysql-bin.000010", 300));
+        assertEquals(V3, history.get("user", "mysql-bin.000010", 500));
+        // 增量点之前的版本已丢弃
+        assertNull(history.getExact("user", "mysql-bin.000009", 100));
+    }
+
+    @Test
+    public void testToJsonAtVersion() {
+        SchemaHistory history = new SchemaHistory(history().toJson("mysql-bin.000010", 200));
+        assertEquals(V2, history.getExact("user", "mysql-bin.000010", 200));
+        assertNull(history.getExact("user", "mysql-bin.000009", 100));
+    }
+
+    @Test
+    public void testToJsonBeforeFirstVersion() {
+        SchemaHistory history = new SchemaHistory(history().toJson("mysql-bin.000001", 4));
+        assertEquals(V1, history.getExact("user", "mysql-bin.000009", 100));
+        assertEquals(V3, history.getExact("user", "mysql-bin.000010", 500));
+    }
+
+    @Test
+    public void testDroppedTable() {
+        SchemaHistory history = history();
+        history.put("user", "mysql-bin.000010", 600, Collections.EMPTY_LIST);
+        history = new SchemaHistory(history.toJson("mysql-bin.000010", 700));
+        assertTrue(history.get("user", "mysql-bin.000010", 700).isEmpty());
+    }
+
+}
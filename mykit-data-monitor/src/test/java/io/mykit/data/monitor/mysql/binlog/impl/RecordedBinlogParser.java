@@ -0,0 +1,71 @@
+package io.mykit.data.monitor.mysql.binlog.impl;
+
+import io.mykit.data.monitor.mysql.binlog.BinlogEventListener;
+import io.mykit.data.monitor.mysql.binlog.impl.parser.*;
+import io.mykit.data.monitor.mysql.io.XInputStream;
+import io.mykit.data.monitor.mysql.io.util.MappedFileInputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 在当前线程中解析测试资源中录制的binlog文件(binlog/mysql-bin.000001), 可替换读取文件的输入流
+ * <p>文件为MySQL 5.7行格式, 开启CRC32校验, 包含400个事务(BEGIN, TABLE_MAP, WRITE/UPDATE/DELETE_ROWS v2, XID), 以ROTATE结尾
+ */
+public class RecordedBinlogParser extends FileBasedBinlogParser {
+
+    public static final String FILE_NAME = "mysql-bin.000001";
+
+    // 录制文件中的事件数: FORMAT_DESCRIPTION + 400 * 4 + ROTATE
+    public static final int EVENT_COUNT = 1602;
+
+    private final Function<InputStream, XInputStream> reader;
+
+    public RecordedBinlogParser(Function<InputStream, XInputStream> reader, BinlogEventListener listener) {
+        this.reader = reader;
+        setEventListener(listener);
+        setBinlogFilePath(getFile().getParent());
+        setBinlogFileName(FILE_NAME);
+        registerEventParser(new RotateEventParser());
+        registerEventParser(new XidEventParser());
+        registerEventParser(new QueryEventParser());
+        registerEventParser(new TableMapEventParser());
+        registerEventParser(new WriteRowsEventV2Parser());
+        registerEventParser(new UpdateRowsEventV2Parser());
+        registerEventParser(new DeleteRowsEventV2Parser());
+        registerEventParser(new FormatDescriptionEventParser());
+    }
+
+    public static File getFile() {
+        try {
+            return new File(RecordedBinlogParser.class.getResource("/binlog/" + FILE_NAME).toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 从头解析到文件末尾
+     */
+    public void parse() throws Exception {
+        running.set(true);
+        try {
+            doStart();
+            doParse();
+        } finally {
+            running.set(false);
+            doStop(0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    protected XInputStream newInputStream(File file) throws IOException {
+        return reader.apply(new MappedFileInputStream(file));
+    }
+}
@@ -0,0 +1,90 @@
+package io.mykit.data.monitor.mysql.io.impl;
+
+import io.mykit.data.monitor.mysql.binlog.impl.RecordedBinlogParser;
+import io.mykit.data.monitor.mysql.io.XInputStream;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description ByteBuffer窗口解码与逐字节解码结果一致
+ */
+public class XInputStreamImplTest {
+
+    @Test
+    public void testPrimitives() throws Exception {
+        final byte[] data = new byte[64 * 1024];
+        new Random(26).nextBytes(data);
+
+        // 缓冲区小于、接近和大于单个值的长度, 覆盖跨窗口读取
+        for (int size : new int[]{7, 64, 4096}) {
+            final XInputStream expected = new ByteAtATimeInputStream(new ByteArrayInputStream(data), size);
+            final XInputStream actual = new XInputStreamImpl(new ByteArrayInputStream(data), size);
+            final Random random = new Random(size);
+            int remaining = data.length;
+            while (remaining > 16) {
+                final int length = 1 + random.nextInt(4);
+                switch (random.nextInt(8)) {
+                    case 0:
+                        assertEquals(expected.readInt(length), actual.readInt(length));
+                        break;
+                    case 1:
+                        assertEquals(expected.readSignedInt(length), actual.readSignedInt(length));
+                        break;
+                    case 2:
+                        assertEquals(expected.readInt(length, false), actual.readInt(length, false));
+                        break;
+                    case 3:
+                        final int longLength = 1 + random.nextInt(8);
+                        assertEquals(expected.readLong(longLength), actual.readLong(longLength));
+                        remaining -= longLength - length;
+                        break;
+                    case 4:
+                        final int bigEndianLength = 1 + random.nextInt(8);
+                        assertEquals(expected.readLong(bigEndianLength, false), actual.readLong(bigEndianLength, false));
+                        remaining -= bigEndianLength - length;
+                        break;
+                    case 5:
+                        // 旧实现只在8字节时正确扩展符号位, 解析器也只按8字节读取
+                        assertEquals(expected.readSignedLong(8), actual.readSignedLong(8));
+                        remaining -= 8 - length;
+                        break;
+                    case 6:
+                        assertArrayEquals(expected.readBytes(length * 3), actual.readBytes(length * 3));
+                        remaining -= length * 2;
+                        break;
+                    default:
+                        assertEquals(expected.readBit(length * 5).toString(), actual.readBit(length * 5).toString());
+                        remaining -= (length * 5 + 7) / 8 - length;
+                        break;
+                }
+                remaining -= length;
+                assertEquals(expected.available(), actual.available());
+            }
+        }
+    }
+
+    @Test
+    public void testRecordedBinlog() throws Exception {
+        final List<String> expected = decode(ByteAtATimeInputStream::new);
+        assertEquals(RecordedBinlogParser.EVENT_COUNT, expected.size());
+        assertEquals(expected, decode(XInputStreamImpl::new));
+        // 窗口小于单个事件, 每个事件都会跨窗口读取
+        assertEquals(expected, decode(in -> new XInputStreamImpl(in, 1000)));
+    }
+
+    private List<String> decode(Function<InputStream, XInputStream> reader) throws Exception {
+        final List<String> events = new ArrayList<>();
+        new RecordedBinlogParser(reader, event -> events.add(event.toString().replaceAll("timestampOfReceipt=\\d+", ""))).parse();
+        return events;
+    }
+}
@@ -0,0 +1,44 @@
+package io.mykit.data.monitor.oracle.logminer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 提交SCN断点
+ */
+public class LogMinerExtractorTest {
+
+    @Test
+    public void testSameScn() {
+        LogMinerExtractor extractor = new LogMinerExtractor();
+        extractor.committed(100, "A");
+        extractor.committed(100, "B");
+
+        // 同一SCN上已通知的事务跳过, 未通知的事务不能跳过
+        assertTrue(extractor.isCommitted(100, "A"));
+        assertTrue(extractor.isCommitted(100, "B"));
+        assertFalse(extractor.isCommitted(100, "C"));
+        // 更早的SCN都已通知
+        assertTrue(extractor.isCommitted(99, "C"));
+        assertFalse(extractor.isCommitted(101, "A"));
+
+        extractor.committed(100, "C");
+        assertTrue(extractor.isCommitted(100, "C"));
+    }
+
+    @Test
+    public void testNextScn() {
+        LogMinerExtractor extractor = new LogMinerExtractor();
+        extractor.committed(100, "A");
+        extractor.committed(101, "B");
+
+        // SCN前进后只保留新SCN上的事务
+        assertTrue(extractor.isCommitted(100, "X"));
+        assertTrue(extractor.isCommitted(101, "B"));
+        assertFalse(extractor.isCommitted(101, "A"));
+    }
+
+}
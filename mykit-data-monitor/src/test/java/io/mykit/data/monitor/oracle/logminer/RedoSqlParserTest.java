@@ -0,0 +1,107 @@
+package io.mykit.data.monitor.oracle.logminer;
+
+import io.mykit.data.common.event.Event;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author binghe
+ * @version 1.0.0
+ * @description 解析SQL_REDO
+ */
+public class RedoSqlParserTest {
+
+    @Test
+    public void testInsert() {
+        RedoSqlParser p = RedoSqlParser.parse("insert into \"AE86\".\"USER\"(\"ID\",\"NAME\",\"AGE\") values ('1','a',18);");
+        assertNotNull(p);
+        Map<String, Object> after = p.getAfter();
+        assertEquals(3, after.size());
+        assertEquals("1", after.get("ID"));
+        assertEquals("a", after.get("NAME"));
+        assertEquals("18", after.get("AGE"));
+        assertTrue(p.getBefore().isEmpty());
+    }
+
+    @Test
+    public void testUpdate() {
+        RedoSqlParser p = RedoSqlParser.parse("update \"AE86\".\"USER\" set \"NAME\" = 'b', \"AGE\" = NULL where \"ID\" = '1' and \"NAME\" = 'a' "
+                + "and \"AGE\" = '18' and ROWID = 'AAAR3sAAEAAAACXAAA';");
+        assertNotNull(p);
+        assertEquals("b", p.getAfter().get("NAME"));
+        assertTrue(p.getAfter().containsKey("AGE"));
+        assertNull(p.getAfter().get("AGE"));
+        assertEquals(3, p.getBefore().size());
+        assertEquals("1", p.getBefore().get("ID"));
+        assertEquals("a", p.getBefore().get("NAME"));
+        assertEquals("18", p.getBefore().get("AGE"));
+    }
+
+    @Test
+    public void testDelete() {
+        RedoSqlParser p = RedoSqlParser.parse("delete from \"AE86\".\"USER\" where \"ID\" = '1' and \"NAME\" = 'a' and ROWID = 'AAAR3sAAEAAAACXAAA';");
+        assertNotNull(p);
+        assertTrue(p.getAfter().isEmpty());
+        assertEquals(2, p.getBefore().size());
+        assertEquals("1", p.getBefore().get("ID"));
+    }
+
+    @Test
+    public void testIsNull() {
+        RedoSqlParser p = RedoSqlParser.parse("delete from \"AE86\".\"USER\" where \"ID\" = '1' and \"NAME\" IS NULL and ROWID = 'AAAR3sAAEAAAACXAAA';");
+        assertNotNull(p);
+        assertTrue(p.getBefore().containsKey("NAME"));
+        assertNull(p.getBefore().get("NAME"));
+        assertEquals("1", p.getBefore().get("ID"));
+    }
+
+    @Test
+    public void testToDate() {
+        RedoSqlParser p = RedoSqlParser.parse("insert into \"AE86\".\"USER\"(\"ID\",\"CREATE_TIME\",\"UPDATE_TIME\") values ('1',"
+                + "TO_DATE('2020-05-01 08:30:00', 'YYYY-MM-DD HH24:MI:SS'),TO_TIMESTAMP('2020-05-01 08:30:00.123'));");
+        assertNotNull(p);
+        assertEquals(Timestamp.valueOf("2020-05-01 08:30:00"), p.getAfter().get("CREATE_TIME"));
+        assertEquals(Timestamp.valueOf("2020-05-01 08:30:00.123"), p.getAfter().get("UPDATE_TIME"));
+    }
+
+    @Test
+    public void testHexToRaw() {
+        RedoSqlParser p = RedoSqlParser.parse("insert into \"AE86\".\"FILE\"(\"ID\",\"DATA\") values ('1',HEXTORAW('00ff7a'));");
+        assertNotNull(p);
+        assertArrayEquals(new byte[]{0, (byte) 0xff, 0x7a}, (byte[]) p.getAfter().get("DATA"));
+    }
+
+    @Test
+    public void testUnistr() {
+        RedoSqlParser p = RedoSqlParser.parse("insert into \"AE86\".\"USER\"(\"ID\",\"NAME\") values ('1',UNISTR('\\4e2d\\6587a\\\\b'));");
+        assertNotNull(p);
+        assertEquals("中文a\\b", p.getAfter().get("NAME"));
+    }
+
+    @Test
+    public void testQuotedString() {
+        RedoSqlParser p = RedoSqlParser.parse("update \"AE86\".\"USER\" set \"NAME\" = 'it''s; ok' where \"ID\" = '1' and \"NAME\" = '''a''';");
+        assertNotNull(p);
+        assertEquals("it's; ok", p.getAfter().get("NAME"));
+        assertEquals("'a'", p.getBefore().get("NAME"));
+    }
+
+    @Test
+    public void testEmptyLob() {
+        RedoSqlParser p = RedoSqlParser.parse("insert into \"AE86\".\"FILE\"(\"ID\",\"CONTENT\") values ('1',EMPTY_CLOB());");
+        assertNotNull(p);
+        assertSame(Event.MISSING, p.getAfter().get("CONTENT"));
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertNull(RedoSqlParser.parse(null));
+        assertNull(RedoSqlParser.parse("create table \"AE86\".\"T\" (\"ID\" NUMBER)"));
+        assertNull(RedoSqlParser.parse("insert into \"AE86\".\"USER\"(\"ID\") values ('1"));
+    }
+
+}
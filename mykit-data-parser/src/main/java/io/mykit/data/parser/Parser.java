@@ -132,4 +132,23 @@ public interface Parser {
      * @param dataEvent
      */
     void execute(Mapping mapping, TableGroup tableGroup, DataEvent dataEvent);
+
+    /**
+     * 批量同步增量数据
+     *
+     * @param mapping
+     * @param tableGroup
+     * @param event
+     * @param data
+     * @return 写入失败的数据下标
+     */
+    List<Integer> execute(Mapping mapping, TableGroup tableGroup, String event, List<Map<String, Object>> data);
+
+    /**
+     * 记录跳过的增量事件(同步字段未变化)
+     *
+     * @param metaId
+     * @param count
+     */
+    void skip(String metaId, long count);
 }
\ No newline at end of file
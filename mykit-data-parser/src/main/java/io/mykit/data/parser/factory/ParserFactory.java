@@ -22,6 +22,7 @@ import io.mykit.data.parser.model.*;
 import io.mykit.data.parser.utils.ConvertUtils;
 import io.mykit.data.parser.utils.PickerUtils;
 import io.mykit.data.plugins.factory.PluginFactory;
+import org.apache.commons.lang.StringUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -234,7 +235,9 @@ public class ParserFactory implements Parser {
 
     @Override
     public void execute(Mapping mapping, TableGroup tableGroup, DataEvent dataEvent) {
-        logger.info("{}", dataEvent);
+        if (logger.isDebugEnabled()) {
+            logger.debug("{}", dataEvent);
+        }
         final String metaId = mapping.getMetaId();
 
         ConnectorConfig tConfig = getConnectorConfig(mapping.getTargetConnectorId());
@@ -254,8 +257,23 @@ public class ParserFactory implements Parser {
         // 3、插件转换
         pluginFactory.convert(tableGroup.getPlugin(), event, data, target);
 
+        // 只更新变化的字段(插件可能依赖完整数据, 配置插件时写入全部字段)
+        if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event) && null == tableGroup.getPlugin()) {
+            PickerUtils.pickChanged(picker, tableGroup.getConvert(), dataEvent.getBefore(), data);
+        }
+
+        // 变化前的数据按相同规则映射, 更新时按变化前的主键定位
+        Map<String, Object> before = null;
+        if (StringUtils.equals(ConnectorConstants.OPERTION_UPDATE, event) && !CollectionUtils.isEmpty(dataEvent.getBefore())) {
+            Picker beforePicker = new Picker();
+            PickerUtils.pickFields(beforePicker, tableGroup.getFieldMapping());
+            PickerUtils.pickData(beforePicker, dataEvent.getBefore());
+            before = beforePicker.getTarget();
+            ConvertUtils.convert(tableGroup.getConvert(), before);
+        }
+
         // 4、写入目标源
-        Result writer = connectorFactory.writer(tConfig, picker.getTargetFields(), tableGroup.getCommand(), event, target);
+        Result writer = connectorFactory.writer(tConfig, picker.getTargetFields(), tableGroup.getCommand(), event, before, target);
 
         // 5、更新结果
         List<Map<String, Object>> list = new ArrayList<>(1);
@@ -263,6 +281,61 @@ public class ParserFactory implements Parser {
         flush(metaId, writer, event, list);
     }
 
+    @Override
+    public List<Integer> execute(Mapping mapping, TableGroup tableGroup, String event, List<Map<String, Object>> data) {
+        final String metaId = mapping.getMetaId();
+
+        ConnectorConfig tConfig = getConnectorConfig(mapping.getTargetConnectorId());
+        // 获取同步字段
+        Picker picker = new Picker();
+        PickerUtils.pickFields(picker, tableGroup.getFieldMapping());
+
+        // 1、映射字段
+        PickerUtils.pickData(picker, data);
+
+        // 2、参数转换
+        List<Map<String, Object>> target = picker.getTargetList();
+        ConvertUtils.convert(tableGroup.getConvert(), target);
+
+        // 3、插件转换
+        if (null != tableGroup.getPlugin()) {
+            final int size = data.size();
+            for (int i = 0; i < size; i++) {
+                pluginFactory.convert(tableGroup.getPlugin(), event, data.get(i), target.get(i));
+            }
+        }
+
+        // 4、按批次写入目标源
+        final int batchSize = Math.max(1, mapping.getBatchNum());
+        final int total = target.size();
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < total; i += batchSize) {
+            List<Map<String, Object>> list = new ArrayList<>(target.subList(i, Math.min(total, i + batchSize)));
+            Result writer = connectorFactory.writer(tConfig, new ArrayList<>(picker.getTargetFields()), tableGroup.getCommand(), event, list);
+
+            // 失败数据与写入数据是同一对象, 按引用找回下标
+            if (!CollectionUtils.isEmpty(writer.getFailData())) {
+                Set<Map<String, Object>> failData = Collections.newSetFromMap(new IdentityHashMap<>());
+                failData.addAll(writer.getFailData());
+                final int size = list.size();
+                for (int j = 0; j < size; j++) {
+                    if (failData.contains(list.get(j))) {
+                        failed.add(i + j);
+                    }
+                }
+            }
+
+            // 5、更新结果
+            flush(metaId, writer, event, list);
+        }
+        return failed;
+    }
+
+    @Override
+    public void skip(String metaId, long count) {
+        getMeta(metaId).getSkip().getAndAdd(count);
+    }
+
     /**
      * 更新缓存
      *
@@ -282,9 +355,11 @@ public class ParserFactory implements Parser {
         // 引用传递
         long total = data.size();
         long fail = writer.getFail().get();
+        long skip = writer.getSkip().get();
         Meta meta = getMeta(metaId);
         meta.getFail().getAndAdd(fail);
-        meta.getSuccess().getAndAdd(total - fail);
+        meta.getSkip().getAndAdd(skip);
+        meta.getSuccess().getAndAdd(total - fail - skip);
 
         // 记录错误数据
         Queue<Map<String, Object>> failData = writer.getFailData();
@@ -24,6 +24,8 @@ public class Meta extends ConfigModel {
     private AtomicLong total;
     private AtomicLong success;
     private AtomicLong fail;
+    // 同步字段未变化而跳过的增量事件
+    private AtomicLong skip;
     private Map<String, String> map;
     private long beginTime;
     private long endTime;
@@ -44,6 +46,7 @@ public class Meta extends ConfigModel {
         this.total = new AtomicLong(0);
         this.success = new AtomicLong(0);
         this.fail = new AtomicLong(0);
+        this.skip = new AtomicLong(0);
         this.map = new LinkedHashMap<>();
         this.beginTime = 0L;
         this.endTime = 0L;
@@ -89,6 +92,14 @@ public class Meta extends ConfigModel {
         this.fail = fail;
     }
 
+    public AtomicLong getSkip() {
+        return skip;
+    }
+
+    public void setSkip(AtomicLong skip) {
+        this.skip = skip;
+    }
+
     public Map<String, String> getMap() {
         return map;
     }
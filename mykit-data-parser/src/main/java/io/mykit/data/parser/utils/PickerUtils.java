@@ -7,10 +7,8 @@ import io.mykit.data.parser.model.*;
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.BeanUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public abstract class PickerUtils {
 
@@ -93,6 +91,38 @@ public abstract class PickerUtils {
         }
     }
 
+    /**
+     * 移除未变化的目标字段, 保留主键和转换配置的字段
+     *
+     * @param picker
+     * @param convert
+     * @param before 变化前的数据源数据
+     * @param row    变化后的数据源数据
+     */
+    public static void pickChanged(Picker picker, List<Convert> convert, Map<String, Object> before, Map<String, Object> row) {
+        Map<String, Object> target = picker.getTarget();
+        if (CollectionUtils.isEmpty(before) || CollectionUtils.isEmpty(target)) {
+            return;
+        }
+        Set<String> converted = CollectionUtils.isEmpty(convert) ? Collections.EMPTY_SET
+                : convert.stream().map(c -> c.getName()).collect(Collectors.toSet());
+        List<Field> sFields = picker.getSourceFields();
+        List<Field> tFields = picker.getTargetFields();
+        final int size = sFields.size();
+        Field sField = null;
+        Field tField = null;
+        for (int k = 0; k < size; k++) {
+            sField = sFields.get(k);
+            tField = tFields.get(k);
+            if (null == sField || null == tField || tField.isPk() || converted.contains(tField.getName())) {
+                continue;
+            }
+            if (before.containsKey(sField.getName()) && Objects.deepEquals(before.get(sField.getName()), row.get(sField.getName()))) {
+                target.remove(tField.getName());
+            }
+        }
+    }
+
     public static Map<String, Field> convert2Map(List<Field> col) {
         final Map<String, Field> map = new HashMap<>();
         col.forEach(f -> map.put(f.getName(), f));
@@ -107,7 +137,8 @@ public abstract class PickerUtils {
         for (int k = 0; k < sFieldSize; k++) {
             sField = sFields.get(k);
             tField = tFields.get(k);
-            if (null != sField && null != tField) {
+            // 日志未记录的字段不写入目标源
+            if (null != sField && null != tField && source.containsKey(sField.getName())) {
                 v = source.get(sField.getName());
                 target.put(tField.getName(), v);
             }
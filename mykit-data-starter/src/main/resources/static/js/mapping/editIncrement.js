@@ -16,15 +16,22 @@ function bindMappingIncrementStrategyConfigChange() {
     showIncrementStrategyConfig(value);
 }
 
-// 显示增量策略配置（日志/定时）
+// 显示增量策略配置（日志/定时/快照）
 function showIncrementStrategyConfig($value) {
     var $dqlConfig = $("#mappingIncrementStrategyDQLConfig");
     var $quartzConfig = $("#mappingIncrementStrategyQuartzConfig");
+    var $snapshotConfig = $("#mappingIncrementStrategySnapshotConfig");
     if ('log' == $value) {
         $quartzConfig.addClass("hidden");
+        $snapshotConfig.addClass("hidden");
         $dqlConfig.removeClass("hidden");
+    } else if ('snapshot' == $value) {
+        $dqlConfig.addClass("hidden");
+        $quartzConfig.addClass("hidden");
+        $snapshotConfig.removeClass("hidden");
     } else {
         $dqlConfig.addClass("hidden");
+        $snapshotConfig.addClass("hidden");
         $quartzConfig.removeClass("hidden");
     }
 }
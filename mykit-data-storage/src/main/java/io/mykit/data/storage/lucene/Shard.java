@@ -26,20 +26,48 @@ import org.apache.lucene.search.*;
 import org.apache.lucene.search.highlight.InvalidTokenOffsetsException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author binghe
  * @version 1.0.0
  * @description lucene相关的操作
+ * <p>写入可按条数/时间批量提交(fsync):
+ * <ol>
+ * <li>未提交的变更达到条数时立即提交, 否则由后台线程按间隔提交</li>
+ * <li>关闭时提交剩余变更</li>
+ * </ol>
+ * <p>查询使用{@link SearcherManager}获取和释放读取器:
+ * <ol>
+ * <li>后台线程按近实时(NRT)方式从写入对象刷新读取器, 未提交的变更也可见</li>
+ * <li>旧读取器在所有查询释放后才关闭</li>
+ * <li>每次写入都提交的分片, 查询前等待刷新到最后一次写入</li>
+ * </ol>
  */
 public class Shard {
 
+    private static final Logger logger = LoggerFactory.getLogger(Shard.class);
+
+    // 所有分片共用的定时提交线程
+    private static final ScheduledExecutorService COMMITTER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "shard-committer");
+        t.setDaemon(true);
+        return t;
+    });
+
     private File indexPath;
 
     private Directory directory;
@@ -48,15 +76,52 @@ public class Shard {
 
     private IndexWriter indexWriter;
 
-    private IndexReader indexReader;
+    private SearcherManager searcherManager;
 
-    private IndexWriterConfig config;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
 
-    private final Object lock = new Object();
+    private IndexWriterConfig config;
 
     private static final int MAX_SIZE = 10000;
 
+    // 读取器最大延迟(秒), 没有查询等待时按该间隔刷新
+    private static final double MAX_STALE_SEC = 1.0;
+
+    // 读取器最小延迟(秒), 有查询等待时按该间隔刷新
+    private static final double MIN_STALE_SEC = 0.025;
+
+    // 最后一次写入的序号
+    private final AtomicLong generation = new AtomicLong(-1);
+
+    // 未提交的变更达到该条数时提交, 小于等于1时每次写入都提交
+    private final long commitRows;
+
+    // 提交间隔(毫秒)
+    private final long commitInterval;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private volatile long lastCommit = Instant.now().toEpochMilli();
+
+    private ScheduledFuture<?> committer;
+
+    /**
+     * 每次写入都提交
+     *
+     * @param path
+     * @throws IOException
+     */
     public Shard(String path) throws IOException {
+        this(path, 1, 0);
+    }
+
+    /**
+     * @param path
+     * @param commitRows     未提交的变更达到该条数时提交
+     * @param commitInterval 提交间隔(毫秒)
+     * @throws IOException
+     */
+    public Shard(String path, long commitRows, long commitInterval) throws IOException {
         // 索引存放的位置，设置在当前目录中
         Path dir = Paths.get(path);
         indexPath = new File(dir.toUri());
@@ -69,39 +134,46 @@ public class Shard {
         config.setRAMBufferSizeMB(32);
         // 创建索引写入对象
         indexWriter = new IndexWriter(directory, config);
-        // 创建索引的读取器
-        indexReader = DirectoryReader.open(indexWriter);
+        // 创建索引的读取器, 后台刷新
+        searcherManager = new SearcherManager(indexWriter, new SearcherFactory());
+        reopenThread = new ControlledRealTimeReopenThread<>(indexWriter, searcherManager, MAX_STALE_SEC, MIN_STALE_SEC);
+        reopenThread.setName("shard-reopen-" + indexPath.getName());
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+
+        this.commitRows = commitRows;
+        this.commitInterval = commitInterval;
+        if (commitRows > 1 && commitInterval > 0) {
+            committer = COMMITTER.scheduleWithFixedDelay(this::tick, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+        }
     }
 
     public void insert(Document doc) throws IOException {
         if (null != doc) {
-            indexWriter.addDocument(doc);
-            indexWriter.commit();
+            changed(indexWriter.addDocument(doc), 1);
         }
     }
 
     public void insertBatch(List<Document> docs) throws IOException {
         if (null != docs) {
-            indexWriter.addDocuments(docs);
-            indexWriter.commit();
+            changed(indexWriter.addDocuments(docs), docs.size());
         }
     }
 
     public void update(Term term, Document doc) throws IOException {
         if (null != term && null != doc) {
-            indexWriter.updateDocument(term, doc);
-            indexWriter.commit();
+            changed(indexWriter.updateDocument(term, doc), 1);
         }
     }
 
     public void delete(Term term) throws IOException {
         if (null != term) {
-            indexWriter.deleteDocuments(term);
-            indexWriter.commit();
+            changed(indexWriter.deleteDocuments(term), 1);
         }
     }
 
     public void deleteAll() throws IOException {
+        stopCommitter();
         indexWriter.deleteAll();
         indexWriter.commit();
         close();
@@ -109,24 +181,77 @@ public class Shard {
         FileUtils.deleteDirectory(indexPath);
     }
 
+    /**
+     * 提交未提交的变更
+     *
+     * @throws IOException
+     */
+    public void commit() throws IOException {
+        synchronized (pending) {
+            pending.set(0);
+            lastCommit = Instant.now().toEpochMilli();
+            if (indexWriter.hasUncommittedChanges()) {
+                indexWriter.commit();
+            }
+        }
+    }
+
     public void close() throws IOException {
-        indexReader.close();
+        stopCommitter();
+        commit();
+        reopenThread.close();
+        searcherManager.close();
         indexWriter.close();
     }
 
-    public IndexSearcher getSearcher() throws IOException {
-        // 复用索引读取器
-        IndexReader changeReader = DirectoryReader.openIfChanged((DirectoryReader) indexReader, indexWriter, true);
-        if (null != changeReader) {
-            indexReader.close();
-            indexReader = null;
-            synchronized (lock) {
-                if (null == indexReader) {
-                    indexReader = changeReader;
-                }
+    private void changed(long seqNo, int rows) throws IOException {
+        generation.accumulateAndGet(seqNo, Math::max);
+        if (commitRows <= 1 || pending.addAndGet(rows) >= commitRows) {
+            commit();
+        }
+    }
+
+    /**
+     * 定时检查, 有变更且超过间隔时提交
+     */
+    private void tick() {
+        if (0 < pending.get() && Instant.now().toEpochMilli() - lastCommit >= commitInterval) {
+            try {
+                commit();
+            } catch (Exception e) {
+                logger.error("提交索引失败:{}, {}", indexPath, e.getMessage());
+            }
+        }
+    }
+
+    private void stopCommitter() {
+        if (null != committer) {
+            committer.cancel(false);
+            committer = null;
+        }
+    }
+
+    /**
+     * 获取读取器, 使用后需调用{@link #release(IndexSearcher)}
+     *
+     * @return
+     * @throws IOException
+     */
+    private IndexSearcher acquire() throws IOException {
+        // 配置等每次写入都提交的分片, 需读到最后一次写入
+        final long gen = generation.get();
+        if (commitRows <= 1 && gen >= 0) {
+            try {
+                reopenThread.waitForGeneration(gen);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
-        return new IndexSearcher(indexReader);
+        return searcherManager.acquire();
+    }
+
+    private void release(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
     }
 
     public Analyzer getAnalyzer() {
@@ -134,9 +259,13 @@ public class Shard {
     }
 
     public List<Map> query(Query query) throws IOException {
-        final IndexSearcher searcher = getSearcher();
-        final TopDocs topDocs = searcher.search(query, MAX_SIZE);
-        return search(searcher, topDocs, new Option(), 1, 20);
+        final IndexSearcher searcher = acquire();
+        try {
+            final TopDocs topDocs = searcher.search(query, MAX_SIZE);
+            return search(searcher, topDocs, new Option(), 1, 20);
+        } finally {
+            release(searcher);
+        }
     }
 
     public List<Map> query(Query query, Sort sort) throws IOException {
@@ -144,9 +273,13 @@ public class Shard {
     }
 
     public List<Map> query(Option option, int pageNum, int pageSize, Sort sort) throws IOException {
-        final IndexSearcher searcher = getSearcher();
-        final TopDocs topDocs = searcher.search(option.getQuery(), MAX_SIZE, sort);
-        return search(searcher, topDocs, option, pageNum, pageSize);
+        final IndexSearcher searcher = acquire();
+        try {
+            final TopDocs topDocs = searcher.search(option.getQuery(), MAX_SIZE, sort);
+            return search(searcher, topDocs, option, pageNum, pageSize);
+        } finally {
+            release(searcher);
+        }
     }
 
     /**
@@ -35,6 +35,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
@@ -59,20 +60,39 @@ public class DiskStorageServiceImpl extends AbstractStorageService {
     // 相对路径：./data/
     private static final String PATH = "data" + File.separator;
 
+    // 日志和数据分片批量提交: 未提交的条数
+    private static final long COMMIT_ROWS = 1000;
+
+    // 日志和数据分片批量提交: 间隔(毫秒)
+    private static final long COMMIT_INTERVAL = 1000;
+
     @PostConstruct
     private void init() {
         try {
-            // 创建配置和日志索引shard
+            // 创建配置和日志索引shard, 配置每次写入都提交
             String config = StorageEnum.CONFIG.getType();
             map.putIfAbsent(config, new Shard(PATH + config));
 
             String log = StorageEnum.LOG.getType();
-            map.putIfAbsent(log, new Shard(PATH + log));
+            map.putIfAbsent(log, new Shard(PATH + log, COMMIT_ROWS, COMMIT_INTERVAL));
         } catch (IOException e) {
             throw new StorageException(e);
         }
     }
 
+    @PreDestroy
+    private void destroy() {
+        // 提交未提交的变更
+        map.forEach((k, shard) -> {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                logger.error("关闭分片失败:{}, {}", k, e.getMessage());
+            }
+        });
+        map.clear();
+    }
+
     @Override
     public List<Map> select(String collectionId, Query query) throws IOException {
         Shard shard = map.get(collectionId);
@@ -159,7 +179,7 @@ public class DiskStorageServiceImpl extends AbstractStorageService {
      */
     private void createShardIfNotExist(String collectionId) throws IOException {
         if (null == map.get(collectionId)) {
-            map.putIfAbsent(collectionId, new Shard(PATH + collectionId));
+            map.putIfAbsent(collectionId, new Shard(PATH + collectionId, COMMIT_ROWS, COMMIT_INTERVAL));
         }
     }
 
@@ -167,7 +187,7 @@ public class DiskStorageServiceImpl extends AbstractStorageService {
         String path = PATH + collectionId;
         if (new File(path).exists()) {
             try {
-                map.putIfAbsent(collectionId, new Shard(path));
+                map.putIfAbsent(collectionId, new Shard(path, COMMIT_ROWS, COMMIT_INTERVAL));
             } catch (IOException e) {
                 logger.error(e.getMessage());
             }